@@ -0,0 +1,74 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.model.account.Account;
+import com.bank.reportservice.model.account.AccountType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the message rendering of the former per-response payload log with the sampled size/latency log of
+ * {@link UpstreamResponseLogger}. Appender I/O is left out on purpose: the rendering is what scales with the payload.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpstreamResponseLoggingBenchmark {
+    @Param({"10", "200"})
+    private int accounts;
+    @Param({"0.01"})
+    private double sampleRate;
+    private List<Account> response;
+
+    @Setup
+    public void setUp() {
+        response = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            response.add(Account.builder()
+                    .id("account-" + i)
+                    .customerId("customer-1")
+                    .accountType(AccountType.SAVINGS)
+                    .balance(1000.0 + i)
+                    .holders(List.of("customer-1"))
+                    .signers(List.of())
+                    .createdAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                    .transactionCost(BigDecimal.ONE)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public String payloadAtInfo() {
+        return MessageFormatter.format("Customer API response: {}", response).getMessage();
+    }
+
+    @Benchmark
+    public String sampledSizeAndLatency() {
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        return MessageFormatter.arrayFormat("upstream response client={} operation={} items={} latencyMs={}",
+                new Object[] {"account", "getAccountsByCustomer", UpstreamResponseLogger.sizeOf(response), 12L})
+                .getMessage();
+    }
+}
@@ -0,0 +1,115 @@
+package com.bank.reportservice.load;
+
+import com.bank.reportservice.ReportServiceApplication;
+import com.bank.reportservice.model.balance.DailyBalanceRun;
+import com.bank.reportservice.service.DailyBalanceService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Scale test of the nightly daily balance job. The application is booted in process against
+ * {@link SimulatedUpstreams} and one full run of {@link DailyBalanceService#runDailyBalances()} is timed, reporting
+ * wall time, snapshots written per second, upstream calls per customer and the peak heap reached during the run.
+ *
+ * <p>By default the job's collections are replaced by {@link InMemoryPersistence}, which runs the real snapshot
+ * writer and rollup batching but acknowledges their bulk writes without a server, isolating the fetch orchestration,
+ * upstream fan-out and write batching; {@code mongo-write-latency} adds a fixed delay per write round trip, and the
+ * store's write counts are reported too. Given {@code mongo=<uri>} the run writes to that database instead, which
+ * must not hold a completed run for today, since runs are keyed by date.
+ *
+ * <p>Run with {@code mvn -P benchmark test-compile exec:java@job -Dexec.args="customers=100000 products=3"}.
+ * Options: {@code customers} (10000), {@code products} per family (2), the {@code upstream.*} and per-service
+ * latency options of {@link ReportLoadHarness}, {@code mongo} and {@code mongo-write-latency} (0ms). Arguments
+ * starting with {@code --} are passed to the application, e.g. {@code --report.daily-balance.customer-concurrency=64}.
+ */
+public final class DailyBalanceJobBenchmark {
+    private DailyBalanceJobBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HarnessOptions.parse(args);
+        int customers = HarnessOptions.integer(options, "customers", 10_000);
+        Map<String, UpstreamProfile> profiles = SimulatedUpstreams.profiles(options);
+        boolean inMemory = !options.containsKey("mongo");
+
+        try (SimulatedUpstreams upstreams = new SimulatedUpstreams(customers,
+                HarnessOptions.integer(options, "products", 2), 0, profiles)) {
+            upstreams.start();
+            ReportLoadHarness.applicationProperties(upstreams, options).forEach(System::setProperty);
+            System.setProperty("report.load.mongo-write-latency",
+                    HarnessOptions.duration(options, "mongo-write-latency", Duration.ZERO).toMillis() + "ms");
+            SpringApplicationBuilder builder = new SpringApplicationBuilder(ReportServiceApplication.class);
+            if (inMemory) {
+                builder.sources(InMemoryPersistence.class);
+            }
+            try (ConfigurableApplicationContext app = builder.run(HarnessOptions.springArguments(args))) {
+                DailyBalanceService job = app.getBean(DailyBalanceService.class);
+                PrintStream out = System.out;
+                out.printf("Upstreams: %s%n", profiles);
+                out.printf("Running the daily balance job for %d customers against %s...%n", customers,
+                        inMemory ? "the in-memory store" : options.get("mongo"));
+                long callsBefore = upstreams.totalCalls();
+                List<MemoryPoolMXBean> heapPools = heapPools();
+                System.gc();
+                heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+                long start = System.nanoTime();
+                DailyBalanceRun run = job.runDailyBalances().block();
+                long elapsedNanos = System.nanoTime() - start;
+                print(out, run, elapsedNanos, upstreams, upstreams.totalCalls() - callsBefore, peakHeap(heapPools));
+                if (inMemory) {
+                    printStore(out, app.getBean(InMemoryPersistence.class), run);
+                }
+            }
+        }
+    }
+
+    private static void print(PrintStream out, DailyBalanceRun run, long elapsedNanos, SimulatedUpstreams upstreams,
+                              long calls, long peakHeapBytes) {
+        double seconds = elapsedNanos / 1e9;
+        long customers = Math.max(run.getCustomersProcessed(), 1);
+        out.printf("%-26s %s%n", "status", run.getStatus());
+        out.printf("%-26s %.2f s%n", "wall time", seconds);
+        out.printf("%-26s %d%n", "customers processed", run.getCustomersProcessed());
+        out.printf("%-26s %d%n", "failures", run.getFailures());
+        out.printf("%-26s %d%n", "snapshots written", run.getProductsSaved());
+        out.printf("%-26s %.1f%n", "snapshots/s", run.getProductsSaved() / seconds);
+        out.printf("%-26s %.2f%n", "upstream calls/customer", calls / (double) customers);
+        for (String service : SimulatedUpstreams.SERVICES) {
+            out.printf("  %-24s %.2f%n", service, upstreams.calls(service) / (double) customers);
+        }
+        out.printf("%-26s %.1f MiB%n", "peak heap", peakHeapBytes / (1024.0 * 1024.0));
+    }
+
+    private static void printStore(PrintStream out, InMemoryPersistence store, DailyBalanceRun run) {
+        long roundTrips = store.writeRoundTrips();
+        out.printf("%-26s %d%n", "snapshots stored", store.snapshotsWritten());
+        out.printf("%-26s %d%n", "rollup upserts", store.rollupsWritten());
+        out.printf("%-26s %d%n", "checkpoints", store.checkpointsWritten());
+        out.printf("%-26s %d%n", "write round trips", roundTrips);
+        out.printf("%-26s %.2f%n", "snapshots/round trip",
+                run.getProductsSaved() / (double) Math.max(roundTrips, 1));
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sum of the per-pool peaks, an upper bound of the heap in use at any one moment since the pools peak at
+     * different times; it is the figure to compare across runs, not an exact high-water mark.
+     */
+    private static long peakHeap(List<MemoryPoolMXBean> heapPools) {
+        return heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+}
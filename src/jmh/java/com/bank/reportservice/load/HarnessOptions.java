@@ -0,0 +1,48 @@
+package com.bank.reportservice.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code key=value} options of the load harnesses. Arguments starting with {@code --} are left out; they are
+ * Spring properties handed to the application under test.
+ */
+final class HarnessOptions {
+    private HarnessOptions() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") || separator <= 0) {
+                continue;
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    static String[] springArguments(String[] args) {
+        return Arrays.stream(args).filter(arg -> arg.startsWith("--")).toArray(String[]::new);
+    }
+
+    static Duration duration(Map<String, String> options, String key, Duration defaultValue) {
+        String value = options.get(key);
+        return value != null ? DurationStyle.detectAndParse(value) : defaultValue;
+    }
+
+    static int integer(Map<String, String> options, String key, int defaultValue) {
+        String value = options.get(key);
+        return value != null ? Integer.parseInt(value.replace("_", "")) : defaultValue;
+    }
+
+    static double decimal(Map<String, String> options, String key, double defaultValue) {
+        String value = options.get(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
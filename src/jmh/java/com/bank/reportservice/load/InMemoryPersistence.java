@@ -0,0 +1,259 @@
+package com.bank.reportservice.load;
+
+import com.bank.reportservice.config.DailyBalanceJobProperties;
+import com.bank.reportservice.model.balance.DailyBalancePartition;
+import com.bank.reportservice.model.balance.DailyBalanceRun;
+import com.bank.reportservice.model.balance.DailyBalanceRunStatus;
+import com.bank.reportservice.repository.DailyBalanceCheckpointRepository;
+import com.bank.reportservice.repository.DailyBalanceRepository;
+import com.bank.reportservice.repository.DailyBalanceRunRepository;
+import com.bank.reportservice.service.DailyBalancePartitionLeases;
+import com.bank.reportservice.service.DailyBalanceWriter;
+import com.bank.reportservice.service.MonthlyBalanceRollupService;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the Mongo collections the nightly job writes to, registered as primary beans over the
+ * real repositories, writer and partition leases. Runs and partitions are kept; checkpoints, snapshots and rollups
+ * are acknowledged and counted but not retained, so the peak heap of a run is the job's own and not the store's.
+ * The snapshot writer is the real one, batching and flushing as in production, over a template whose collections
+ * acknowledge its bulk inserts and rollup bulk writes without a server. Only the calls the job makes are supported.
+ * {@code report.load.mongo-write-latency} delays every write round trip: each bulk insert, each rollup bulk write
+ * and each checkpoint save.
+ *
+ * <p>Deliberately not a {@code @Configuration}: the benchmark sources sit under the application's scanned package,
+ * so the stand-in is only picked up when passed to the application builder as a source.
+ */
+public class InMemoryPersistence {
+    private final Map<String, DailyBalanceRun> runs = new ConcurrentHashMap<>();
+    private final Map<String, DailyBalancePartition> partitions = new ConcurrentHashMap<>();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder rollups = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+    private final LongAdder roundTrips = new LongAdder();
+    private final Duration writeLatency;
+
+    public InMemoryPersistence(@Value("${report.load.mongo-write-latency:0ms}") Duration writeLatency) {
+        this.writeLatency = writeLatency;
+    }
+
+    public long snapshotsWritten() {
+        return snapshots.sum();
+    }
+
+    public long rollupsWritten() {
+        return rollups.sum();
+    }
+
+    public long checkpointsWritten() {
+        return checkpoints.sum();
+    }
+
+    public long writeRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    @Bean
+    @Primary
+    public DailyBalanceRunRepository inMemoryDailyBalanceRunRepository() {
+        return repository(DailyBalanceRunRepository.class, (method, args) -> {
+            switch (method) {
+                case "findById":
+                    return Mono.justOrEmpty(runs.get((String) args[0]));
+                case "findFirstByOrderByIdDesc":
+                    return Mono.justOrEmpty(runs.values().stream().max(Comparator.comparing(DailyBalanceRun::getId)));
+                case "insert":
+                case "save":
+                    DailyBalanceRun run = (DailyBalanceRun) args[0];
+                    runs.put(run.getId(), run);
+                    return Mono.just(run);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @Bean
+    @Primary
+    public DailyBalanceCheckpointRepository inMemoryDailyBalanceCheckpointRepository() {
+        return repository(DailyBalanceCheckpointRepository.class, (method, args) -> {
+            switch (method) {
+                case "findById":
+                    return Mono.empty();
+                case "deleteByRunId":
+                    return Mono.just(0L);
+                case "save":
+                    return roundTrip(Mono.fromSupplier(() -> {
+                        checkpoints.increment();
+                        return args[0];
+                    }));
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @Bean
+    @Primary
+    public DailyBalanceRepository inMemoryDailyBalanceRepository() {
+        return repository(DailyBalanceRepository.class, (method, args) ->
+                "deleteByCustomerIdAndDate".equals(method) ? Mono.just(0L) : null);
+    }
+
+    /**
+     * Leases for a single instance: partitions are handed out once each and never expire.
+     */
+    @Bean
+    @Primary
+    public DailyBalancePartitionLeases inMemoryDailyBalancePartitionLeases(DailyBalanceJobProperties properties) {
+        return new DailyBalancePartitionLeases(null, properties) {
+            @Override
+            public Flux<DailyBalancePartition> claim(String runId, int count, int max) {
+                return Flux.range(0, count)
+                        .map(partition -> DailyBalancePartition.builder()
+                                .id(DailyBalancePartition.idOf(runId, partition))
+                                .runId(runId)
+                                .partition(partition)
+                                .status(DailyBalanceRunStatus.RUNNING)
+                                .owner(owner())
+                                .attempts(1)
+                                .build())
+                        .filter(claimed -> partitions.putIfAbsent(claimed.getId(), claimed) == null)
+                        .take(max);
+            }
+
+            @Override
+            public Mono<Boolean> renew(DailyBalancePartition progress) {
+                return Mono.just(true);
+            }
+
+            @Override
+            public Mono<Boolean> complete(DailyBalancePartition progress) {
+                progress.setStatus(DailyBalanceRunStatus.COMPLETED);
+                partitions.put(progress.getId(), progress);
+                return Mono.just(true);
+            }
+
+            @Override
+            public Mono<Void> release(DailyBalancePartition partition) {
+                return Mono.fromRunnable(() -> partitions.remove(partition.getId()));
+            }
+
+            @Override
+            public Flux<DailyBalancePartition> partitions(String runId) {
+                return Flux.fromIterable(partitions.values())
+                        .filter(partition -> runId.equals(partition.getRunId()));
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public DailyBalanceWriter inMemoryDailyBalanceWriter(ReactiveMongoTemplate mongoTemplate,
+                                                         DailyBalanceJobProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        ReactiveMongoTemplate template = acknowledgingTemplate(mongoTemplate);
+        return new DailyBalanceWriter(template, properties, new MonthlyBalanceRollupService(template, null),
+                meterRegistry);
+    }
+
+    /**
+     * A template with the application's converter whose collections answer the writer's bulk inserts and the
+     * rollups' bulk writes, so everything up to the driver call is the production code.
+     */
+    private ReactiveMongoTemplate acknowledgingTemplate(ReactiveMongoTemplate mongoTemplate) {
+        MongoCollection<Document> collection = repository(MongoCollection.class, (method, args) -> {
+            switch (method) {
+                case "insertMany":
+                    return roundTrip(Mono.fromSupplier(() -> insertMany(documents(args[0]))));
+                case "bulkWrite":
+                    int upserts = ((List<?>) args[0]).size();
+                    return roundTrip(Mono.fromSupplier(() -> {
+                        rollups.add(upserts);
+                        return BulkWriteResult.acknowledged(0, upserts, 0, upserts, Collections.emptyList());
+                    }));
+                default:
+                    return null;
+            }
+        });
+        return new ReactiveMongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter()) {
+            @Override
+            public Mono<MongoCollection<Document>> getCollection(String collectionName) {
+                return Mono.just(collection);
+            }
+        };
+    }
+
+    // Assigns the ids the way the driver does, since the writer reads them back from the documents.
+    private InsertManyResult insertMany(List<Document> documents) {
+        Map<Integer, BsonValue> ids = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            Object id = documents.get(i).computeIfAbsent("_id", key -> new ObjectId());
+            if (id instanceof ObjectId) {
+                ids.put(i, new BsonObjectId((ObjectId) id));
+            }
+        }
+        snapshots.add(documents.size());
+        return InsertManyResult.acknowledged(ids);
+    }
+
+    private <T> Mono<T> roundTrip(Mono<T> write) {
+        Mono<T> counted = write.doOnSubscribe(subscription -> roundTrips.increment());
+        return writeLatency.isZero() ? counted : counted.delaySubscription(writeLatency);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> documents(Object documents) {
+        return (List<Document>) documents;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, RepositoryMethod handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "InMemory" + type.getSimpleName();
+                }
+            }
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                        + " is not simulated by the in-memory job store");
+            }
+            return result;
+        });
+    }
+
+    @FunctionalInterface
+    private interface RepositoryMethod {
+        Object invoke(String method, Object[] args);
+    }
+}
@@ -0,0 +1,274 @@
+package com.bank.reportservice.load;
+
+import com.bank.reportservice.ReportServiceApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Open-model load test of the {@code /api/reports} endpoints. The application is booted in process against
+ * {@link SimulatedUpstreams}, then requests are issued at a fixed rate, spread round robin over the endpoints, and
+ * their latencies recorded in HdrHistograms. Latency is measured from the moment a request was due, not from when
+ * it was sent, so a stalled service shows up in the percentiles instead of lowering the offered load.
+ *
+ * <p>Run with {@code mvn -P benchmark test-compile exec:java@load -Dexec.args="rps=200 duration=60s"}. Options:
+ * <ul>
+ *     <li>{@code rps} (100), {@code duration} (60s), {@code warmup} (10s), {@code max-in-flight} (2000),
+ *     {@code timeout} (30s) and {@code endpoints} (comma separated, all by default);</li>
+ *     <li>{@code customers} (1000), {@code products} per family (2) and {@code transactions} per product (50) of
+ *     the synthetic bank;</li>
+ *     <li>{@code upstream.median} (20ms), {@code upstream.p99} (120ms) and {@code upstream.errors} (0) for every
+ *     stand-in, overridable per service, e.g. {@code credit.p99=2s} or {@code transaction.errors=0.05};</li>
+ *     <li>{@code mongo} (a local {@code report-load} database), used by the balance summary and snapshot
+ *     fallbacks; without a reachable Mongo those requests are reported as errors.</li>
+ * </ul>
+ * Arguments starting with {@code --} are passed to the application, e.g. {@code --report.hedging.services...}.
+ */
+public final class ReportLoadHarness {
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final LocalDate SUMMARY_START = LocalDate.of(2024, 3, 4);
+
+    private final WebClient webClient;
+    private final List<Endpoint> endpoints;
+    private final int customers;
+    private final int rps;
+    private final int maxInFlight;
+    private final Duration timeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private ReportLoadHarness(WebClient webClient, List<Endpoint> endpoints, int customers, int rps,
+                              int maxInFlight, Duration timeout) {
+        this.webClient = webClient;
+        this.endpoints = endpoints;
+        this.customers = customers;
+        this.rps = rps;
+        this.maxInFlight = maxInFlight;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HarnessOptions.parse(args);
+        int rps = HarnessOptions.integer(options, "rps", 100);
+        Duration duration = HarnessOptions.duration(options, "duration", Duration.ofSeconds(60));
+        Duration warmup = HarnessOptions.duration(options, "warmup", Duration.ofSeconds(10));
+        int maxInFlight = HarnessOptions.integer(options, "max-in-flight", 2000);
+        int customers = HarnessOptions.integer(options, "customers", 1000);
+        Map<String, UpstreamProfile> profiles = SimulatedUpstreams.profiles(options);
+
+        try (SimulatedUpstreams upstreams = new SimulatedUpstreams(customers,
+                HarnessOptions.integer(options, "products", 2),
+                HarnessOptions.integer(options, "transactions", 50), profiles)) {
+            upstreams.start();
+            applicationProperties(upstreams, options).forEach(System::setProperty);
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(ReportServiceApplication.class)
+                    .run(HarnessOptions.springArguments(args))) {
+                String baseUrl = "http://localhost:" + app.getEnvironment().getRequiredProperty("local.server.port");
+                ConnectionProvider connections = ConnectionProvider.builder("load-harness")
+                        .maxConnections(maxInFlight)
+                        .pendingAcquireMaxCount(-1)
+                        .build();
+                WebClient webClient = WebClient.builder()
+                        .baseUrl(baseUrl)
+                        .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                        .build();
+                ReportLoadHarness harness = new ReportLoadHarness(webClient,
+                        endpoints(options.get("endpoints")), customers, rps, maxInFlight,
+                        HarnessOptions.duration(options, "timeout", Duration.ofSeconds(30)));
+                PrintStream out = System.out;
+                out.printf("Upstreams: %s%n", profiles);
+                out.printf("Warming up for %ss at %d req/s...%n", warmup.toSeconds(), rps);
+                harness.drive(warmup);
+                out.printf("Measuring for %ss at %d req/s...%n", duration.toSeconds(), rps);
+                Result result = harness.drive(duration);
+                result.print(out);
+                connections.dispose();
+            }
+        }
+    }
+
+    /**
+     * Points the application at the stand-ins and switches off everything the harness does not simulate: the
+     * config server, Eureka, the Redis response cache and the Mongo cache of the transaction summary. Explicit
+     * system properties and {@code --} arguments win.
+     */
+    static Map<String, String> applicationProperties(SimulatedUpstreams upstreams,
+                                                      Map<String, String> options) {
+        Map<String, String> properties = new LinkedHashMap<>(upstreams.serviceUrls());
+        properties.put("spring.cloud.bootstrap.enabled", "false");
+        properties.put("spring.cloud.config.enabled", "false");
+        properties.put("eureka.client.enabled", "false");
+        properties.put("server.port", "0");
+        properties.put("report.cache.enabled", "false");
+        properties.put("report.transaction-summary.cache-enabled", "false");
+        properties.put("spring.data.mongodb.uri", options.getOrDefault("mongo",
+                "mongodb://localhost:27017/report-load?serverSelectionTimeoutMS=500"));
+        properties.keySet().removeIf(key -> System.getProperty(key) != null);
+        return properties;
+    }
+
+    private static List<Endpoint> endpoints(String selected) {
+        String transactionSummary = "/api/reports/transactions/summary?startDate=" + SUMMARY_START
+                + "&endDate=" + SUMMARY_START.plusDays(6) + "&groupBy=CATEGORY";
+        List<Endpoint> all = List.of(
+                new Endpoint("balances", c -> "/api/reports/balances/customer/" + c, MediaType.APPLICATION_JSON),
+                new Endpoint("resume", c -> "/api/reports/resume/customer/" + c
+                        + "?typeProduct=ACCOUNT&startDate=2023-01-01&endDate=2024-12-31", MediaType.APPLICATION_JSON),
+                new Endpoint("movements", c -> "/api/reports/movements/customer/" + c + "/product/"
+                        + SimulatedUpstreams.accountId(c, 0), MediaType.APPLICATION_JSON),
+                new Endpoint("movements-stream", c -> "/api/reports/movements/customer/" + c + "/product/"
+                        + SimulatedUpstreams.accountId(c, 0) + "/stream", MediaType.APPLICATION_NDJSON),
+                new Endpoint("recent", c -> "/api/reports/movements/customer/" + c + "/card/"
+                        + SimulatedUpstreams.debitCardId(c, 0) + "/recent?limit=10", MediaType.APPLICATION_JSON),
+                new Endpoint("recent-stream", c -> "/api/reports/movements/customer/" + c + "/card/"
+                        + SimulatedUpstreams.debitCardId(c, 0) + "/recent/stream?limit=10",
+                        MediaType.APPLICATION_NDJSON),
+                new Endpoint("balance-summary", c -> "/api/reports/" + c + "/summary", MediaType.APPLICATION_JSON),
+                new Endpoint("transaction-summary", c -> transactionSummary, MediaType.APPLICATION_JSON));
+        List<Endpoint> endpoints = all.stream()
+                .filter(endpoint -> selected == null || List.of(selected.split(",")).contains(endpoint.name))
+                .collect(Collectors.toList());
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("No endpoint matches " + selected + ", known: "
+                    + all.stream().map(endpoint -> endpoint.name).collect(Collectors.joining(",")));
+        }
+        return endpoints;
+    }
+
+    private Result drive(Duration duration) throws InterruptedException {
+        Result result = new Result(endpoints);
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) rps;
+        long[] sent = {0};
+        ticker.scheduleAtFixedRate(() -> {
+            long now = Math.min(System.nanoTime(), end);
+            long due = (long) ((now - start) / intervalNanos);
+            for (; sent[0] < due; sent[0]++) {
+                fire(result, endpoints.get((int) (sent[0] % endpoints.size())),
+                        start + (long) (sent[0] * intervalNanos));
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        TimeUnit.NANOSECONDS.sleep(end - System.nanoTime());
+        ticker.shutdown();
+        ticker.awaitTermination(1, TimeUnit.SECONDS);
+        long drainDeadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private void fire(Result result, Endpoint endpoint, long intendedStart) {
+        Stats stats = result.stats.get(endpoint.name);
+        if (inFlight.get() >= maxInFlight) {
+            stats.dropped.increment();
+            return;
+        }
+        inFlight.incrementAndGet();
+        String customerId = SimulatedUpstreams.customerId(ThreadLocalRandom.current().nextInt(customers));
+        webClient.get()
+                .uri(endpoint.uri.apply(customerId))
+                .accept(endpoint.accept)
+                .exchangeToMono(response -> response.bodyToFlux(DataBuffer.class)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.just(response.rawStatusCode())))
+                .timeout(timeout)
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(status -> stats.record(intendedStart, status >= 400),
+                        error -> stats.record(intendedStart, true));
+    }
+
+    private static final class Endpoint {
+        private final String name;
+        private final Function<String, String> uri;
+        private final MediaType accept;
+
+        private Endpoint(String name, Function<String, String> uri, MediaType accept) {
+            this.name = name;
+            this.uri = uri;
+            this.accept = accept;
+        }
+    }
+
+    private static final class Stats {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private void record(long intendedStart, boolean failed) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+            latencies.recordValue(Math.min(Math.max(micros, 1), HIGHEST_LATENCY_MICROS));
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+
+    private static final class Result {
+        private final Map<String, Stats> stats = new LinkedHashMap<>();
+        private long elapsedNanos;
+
+        private Result(List<Endpoint> endpoints) {
+            endpoints.forEach(endpoint -> stats.put(endpoint.name, new Stats()));
+        }
+
+        private void print(PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            out.printf("%-20s %9s %8s %7s %9s %9s %9s %9s %9s %8s%n", "endpoint", "requests", "errors", "error%",
+                    "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "dropped");
+            Histogram total = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+            long errors = 0;
+            long dropped = 0;
+            List<String> rows = new ArrayList<>();
+            for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+                Stats endpoint = entry.getValue();
+                total.add(endpoint.latencies);
+                errors += endpoint.errors.sum();
+                dropped += endpoint.dropped.sum();
+                rows.add(row(entry.getKey(), endpoint.latencies, endpoint.errors.sum(), endpoint.dropped.sum(),
+                        seconds));
+            }
+            rows.forEach(out::print);
+            out.print(row("total", total, errors, dropped, seconds));
+        }
+
+        private static String row(String name, Histogram latencies, long errors, long dropped, double seconds) {
+            long requests = latencies.getTotalCount();
+            return String.format("%-20s %9d %8d %6.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f %8d%n", name, requests, errors,
+                    requests == 0 ? 0.0 : 100.0 * errors / requests, requests / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()), dropped);
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.bank.reportservice.load;
+
+import com.bank.reportservice.dto.BaseResponse;
+import com.bank.reportservice.model.account.Account;
+import com.bank.reportservice.model.account.AccountType;
+import com.bank.reportservice.model.credit.Credit;
+import com.bank.reportservice.model.credit.CreditType;
+import com.bank.reportservice.model.creditcard.CreditCard;
+import com.bank.reportservice.model.creditcard.CreditCardType;
+import com.bank.reportservice.model.customer.Customer;
+import com.bank.reportservice.model.customer.CustomerType;
+import com.bank.reportservice.model.debitcard.DebitCard;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import com.bank.reportservice.model.transaction.Transaction;
+import com.bank.reportservice.model.transaction.TransactionType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Local stand-ins for the account, credit, debit card, customer and transaction services, backed by
+ * {@link MockWebServer}s that answer from a synthetic bank of {@code customers} customers. Every response is delayed
+ * and failed according to the {@link UpstreamProfile} of its service; debit cards are served by the account server,
+ * as in production, but keep a profile of their own. Data is derived from the IDs, so nothing is held per customer.
+ */
+public final class SimulatedUpstreams implements AutoCloseable {
+    public static final List<String> SERVICES = List.of("account", "credit", "debit-card", "customer", "transaction");
+    private static final String NDJSON = "application/x-ndjson";
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final int customers;
+    private final int productsPerFamily;
+    private final int transactionsPerProduct;
+    private final Map<String, UpstreamProfile> profiles;
+    private final Map<String, LongAdder> calls = new LinkedHashMap<>();
+    private final Map<String, MockWebServer> servers = new LinkedHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public SimulatedUpstreams(int customers, int productsPerFamily, int transactionsPerProduct,
+                              Map<String, UpstreamProfile> profiles) {
+        this.customers = customers;
+        this.productsPerFamily = productsPerFamily;
+        this.transactionsPerProduct = transactionsPerProduct;
+        this.profiles = profiles;
+        SERVICES.forEach(service -> calls.put(service, new LongAdder()));
+    }
+
+    /**
+     * Profiles of every service from the harness options; {@code upstream.median}, {@code upstream.p99} and
+     * {@code upstream.errors} set the defaults the per-service options override.
+     */
+    public static Map<String, UpstreamProfile> profiles(Map<String, String> options) {
+        UpstreamProfile defaults = UpstreamProfile.of("upstream", options,
+                new UpstreamProfile(Duration.ofMillis(20), Duration.ofMillis(120), 0));
+        Map<String, UpstreamProfile> profiles = new LinkedHashMap<>();
+        SERVICES.forEach(service -> profiles.put(service, UpstreamProfile.of(service, options, defaults)));
+        return profiles;
+    }
+
+    public void start() throws IOException {
+        for (String server : List.of("account", "credit", "customer", "transaction")) {
+            MockWebServer mockWebServer = new MockWebServer();
+            mockWebServer.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    return respond(request);
+                }
+            });
+            mockWebServer.start();
+            servers.put(server, mockWebServer);
+        }
+    }
+
+    /**
+     * The {@code services.*-url} properties pointing the clients at the stand-ins.
+     */
+    public Map<String, String> serviceUrls() {
+        Map<String, String> urls = new LinkedHashMap<>();
+        servers.forEach((name, server) -> urls.put("services." + name + "-url", baseUrl(server)));
+        return urls;
+    }
+
+    public long calls(String service) {
+        return calls.get(service).sum();
+    }
+
+    public long totalCalls() {
+        return calls.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public static String customerId(int index) {
+        return "customer-" + index;
+    }
+
+    public static String accountId(String customerId, int index) {
+        return "account-" + customerId + "-" + index;
+    }
+
+    public static String debitCardId(String customerId, int index) {
+        return "debit-card-" + customerId + "-" + index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MockWebServer server : servers.values()) {
+            server.shutdown();
+        }
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        HttpUrl url = request.getRequestUrl();
+        List<String> path = url.pathSegments();
+        String service = serviceOf(path);
+        calls.get(service).increment();
+        UpstreamProfile profile = profiles.get(service);
+        Duration latency = profile.nextLatency();
+        if (profile.nextFails()) {
+            return new MockResponse().setResponseCode(503).setHeadersDelay(latency.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        try {
+            MockResponse response = route(path, url, NDJSON.equals(request.getHeader("Accept")));
+            return response.setHeadersDelay(latency.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (JsonProcessingException e) {
+            return new MockResponse().setResponseCode(500).setBody(e.getMessage());
+        }
+    }
+
+    private static String serviceOf(List<String> path) {
+        String root = path.get(0);
+        switch (root) {
+            case "accounts":
+                return "account";
+            case "debit-cards":
+                return "debit-card";
+            case "credits":
+            case "credit-cards":
+                return "credit";
+            case "transactions":
+                return "transaction";
+            default:
+                return "customer";
+        }
+    }
+
+    private MockResponse route(List<String> path, HttpUrl url, boolean ndjson) throws JsonProcessingException {
+        String root = path.get(0);
+        if (path.size() == 1 && root.isEmpty()) {
+            return customersPage(url);
+        }
+        if (path.size() == 3 && "customer".equals(path.get(1))) {
+            String customerId = path.get(2);
+            switch (root) {
+                case "accounts":
+                    return json(perFamily(i -> account(customerId, i)));
+                case "credit-cards":
+                    return json(perFamily(i -> creditCard(customerId, i)));
+                case "credits":
+                    return json(perFamily(i -> credit(customerId, i)));
+                case "debit-cards":
+                    return json(perFamily(i -> debitCard(customerId, i)));
+                default:
+                    break;
+            }
+        }
+        if ("accounts".equals(root) && path.size() == 1) {
+            List<Account> accounts = new ArrayList<>();
+            url.queryParameterValues("ids").forEach(id -> accounts.add(accountOf(id)));
+            return json(accounts);
+        }
+        if ("accounts".equals(root) && path.size() == 2) {
+            return json(accountOf(path.get(1)));
+        }
+        if ("debit-cards".equals(root) && path.size() == 2) {
+            return json(debitCardOf(path.get(1)));
+        }
+        if ("transactions".equals(root) && path.size() == 5) {
+            return items(transactions(path.get(2), path.get(4)), ndjson);
+        }
+        if ("transactions".equals(root) && path.size() == 2 && "by-date".equals(path.get(1))) {
+            LocalDate start = LocalDate.parse(url.queryParameter("startDate"));
+            LocalDate end = LocalDate.parse(url.queryParameter("endDate"));
+            return items(transactionsBetween(start, end), ndjson);
+        }
+        return new MockResponse().setResponseCode(404);
+    }
+
+    private MockResponse customersPage(HttpUrl url) throws JsonProcessingException {
+        String size = url.queryParameter("size");
+        int pageSize = size != null ? Integer.parseInt(size) : customers;
+        String after = url.queryParameter("after");
+        long first = after != null ? Long.parseLong(after.substring(after.lastIndexOf('-') + 1)) + 1 : 0;
+        List<Customer> list = new ArrayList<>();
+        for (long i = first; i < Math.min(first + pageSize, customers); i++) {
+            list.add(Customer.builder()
+                    .id(customerId((int) i))
+                    .fullName("Customer " + i)
+                    .customerType(i % 10 == 0 ? CustomerType.BUSINESS : CustomerType.PERSONAL)
+                    .status("ACTIVE")
+                    .build());
+        }
+        return json(list);
+    }
+
+    private <T> List<T> perFamily(IntFunction<T> product) {
+        List<T> products = new ArrayList<>(productsPerFamily);
+        for (int i = 0; i < productsPerFamily; i++) {
+            products.add(product.apply(i));
+        }
+        return products;
+    }
+
+    private Account account(String customerId, int index) {
+        Random random = random(customerId, index);
+        return Account.builder()
+                .id(accountId(customerId, index))
+                .customerId(customerId)
+                .accountType(AccountType.values()[index % AccountType.values().length])
+                .balance(random.nextInt(10_000_000) / 100.0)
+                .holders(List.of(customerId))
+                .signers(List.of())
+                .createdAt(ORIGIN.minusDays(random.nextInt(365)))
+                .build();
+    }
+
+    private Account accountOf(String accountId) {
+        int separator = accountId.lastIndexOf('-');
+        return account(accountId.substring("account-".length(), separator),
+                Integer.parseInt(accountId.substring(separator + 1)));
+    }
+
+    private CreditCard creditCard(String customerId, int index) {
+        Random random = random(customerId, index + 1_000);
+        return CreditCard.builder()
+                .id("credit-card-" + customerId + "-" + index)
+                .customerId(customerId)
+                .cardType(CreditCardType.values()[index % CreditCardType.values().length])
+                .creditLimit(BigDecimal.valueOf(500_000, 2))
+                .availableBalance(BigDecimal.valueOf(random.nextInt(500_000), 2))
+                .createdAt(ORIGIN.minusDays(random.nextInt(365)))
+                .build();
+    }
+
+    private Credit credit(String customerId, int index) {
+        Random random = random(customerId, index + 2_000);
+        return Credit.builder()
+                .id("credit-" + customerId + "-" + index)
+                .customerId(customerId)
+                .creditType(CreditType.values()[index % CreditType.values().length])
+                .amount(BigDecimal.valueOf(2_000_000, 2))
+                .remainingBalance(BigDecimal.valueOf(random.nextInt(2_000_000), 2))
+                .createdAt(ORIGIN.minusDays(random.nextInt(365)))
+                .build();
+    }
+
+    private DebitCard debitCard(String customerId, int index) {
+        return DebitCard.builder()
+                .id(debitCardId(customerId, index))
+                .customerId(customerId)
+                .status("ACTIVE")
+                .primaryAccountId(accountId(customerId, index))
+                .associatedAccountIds(List.of(accountId(customerId, index)))
+                .createdAt(ORIGIN)
+                .build();
+    }
+
+    private DebitCard debitCardOf(String cardId) {
+        int separator = cardId.lastIndexOf('-');
+        return debitCard(cardId.substring("debit-card-".length(), separator),
+                Integer.parseInt(cardId.substring(separator + 1)));
+    }
+
+    private List<Transaction> transactions(String customerId, String productId) {
+        Random random = new Random(productId.hashCode());
+        List<Transaction> transactions = new ArrayList<>(transactionsPerProduct);
+        for (int i = 0; i < transactionsPerProduct; i++) {
+            transactions.add(transaction(random, customerId, productId, ORIGIN.plusMinutes(random.nextInt(525_600)),
+                    productId + "-" + i));
+        }
+        return transactions;
+    }
+
+    /**
+     * {@code transactionsPerProduct} transactions per day of the range, spread over random customers.
+     */
+    private List<Transaction> transactionsBetween(LocalDate start, LocalDate end) {
+        Random random = new Random(start.hashCode() * 31L + end.hashCode());
+        int days = (int) ChronoUnit.DAYS.between(start, end) + 1;
+        List<Transaction> transactions = new ArrayList<>(days * transactionsPerProduct);
+        for (int day = 0; day < days; day++) {
+            LocalDateTime midnight = start.plusDays(day).atStartOfDay();
+            for (int i = 0; i < transactionsPerProduct; i++) {
+                String customerId = customerId(random.nextInt(Math.max(customers, 1)));
+                transactions.add(transaction(random, customerId, accountId(customerId, 0),
+                        midnight.plusMinutes(random.nextInt(1_440)), "tx-" + midnight.toLocalDate() + "-" + i));
+            }
+        }
+        return transactions;
+    }
+
+    private static Transaction transaction(Random random, String customerId, String productId,
+                                           LocalDateTime date, String id) {
+        return Transaction.builder()
+                .id(id)
+                .customerId(customerId)
+                .productId(productId)
+                .productCategory(ProductCategory.values()[random.nextInt(ProductCategory.values().length)])
+                .productSubType(ProductSubType.values()[random.nextInt(ProductSubType.values().length)])
+                .transactionType(TransactionType.values()[random.nextInt(TransactionType.values().length)])
+                .amount(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                .commissions(BigDecimal.valueOf(random.nextInt(500), 2))
+                .merchantName("merchant-" + random.nextInt(200))
+                .transactionDate(date)
+                .build();
+    }
+
+    private MockResponse json(Object data) throws JsonProcessingException {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(objectMapper.writeValueAsString(wrap(data)));
+    }
+
+    private MockResponse items(List<?> items, boolean ndjson) throws JsonProcessingException {
+        if (!ndjson) {
+            return json(items);
+        }
+        StringBuilder body = new StringBuilder();
+        for (Object item : items) {
+            body.append(objectMapper.writeValueAsString(item)).append('\n');
+        }
+        return new MockResponse().setHeader("Content-Type", NDJSON).setBody(body.toString());
+    }
+
+    private static <T> BaseResponse<T> wrap(T data) {
+        return BaseResponse.<T>builder().status(200).message("OK").data(data).build();
+    }
+
+    private static Random random(String customerId, int index) {
+        return new Random(customerId.hashCode() * 31L + index);
+    }
+
+    private static String baseUrl(MockWebServer server) {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bank.reportservice.load;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency distribution and error rate of one simulated downstream service. Latencies follow a log-normal
+ * distribution fitted to the configured median and 99th percentile, which matches the long right tail of real
+ * service calls better than a uniform or normal spread.
+ */
+public final class UpstreamProfile {
+    private static final double Z_99 = 2.326;
+
+    private final Duration median;
+    private final Duration p99;
+    private final double errorRate;
+    private final double mu;
+    private final double sigma;
+
+    public UpstreamProfile(Duration median, Duration p99, double errorRate) {
+        if (p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("p99 " + p99 + " is below the median " + median);
+        }
+        this.median = median;
+        this.p99 = p99;
+        this.errorRate = errorRate;
+        double medianNanos = Math.max(median.toNanos(), 1);
+        this.mu = Math.log(medianNanos);
+        this.sigma = (Math.log(Math.max(p99.toNanos(), 1)) - Math.log(medianNanos)) / Z_99;
+    }
+
+    /**
+     * Reads {@code <service>.median}, {@code <service>.p99} and {@code <service>.errors} from the harness options,
+     * falling back to {@code defaults} for the ones not given.
+     */
+    public static UpstreamProfile of(String service, Map<String, String> options, UpstreamProfile defaults) {
+        return new UpstreamProfile(
+                HarnessOptions.duration(options, service + ".median", defaults.median),
+                HarnessOptions.duration(options, service + ".p99", defaults.p99),
+                HarnessOptions.decimal(options, service + ".errors", defaults.errorRate));
+    }
+
+    public Duration nextLatency() {
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        return Duration.ofNanos((long) Math.exp(mu + sigma * gaussian));
+    }
+
+    public boolean nextFails() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    @Override
+    public String toString() {
+        return "median=" + median.toMillis() + "ms p99=" + p99.toMillis() + "ms errors=" + errorRate;
+    }
+}
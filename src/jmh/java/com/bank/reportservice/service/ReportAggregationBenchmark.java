@@ -0,0 +1,202 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.dto.CategorySummary;
+import com.bank.reportservice.dto.CustomerBalances;
+import com.bank.reportservice.dto.DailyBalanceSummary;
+import com.bank.reportservice.metrics.ReportMetrics;
+import com.bank.reportservice.model.account.Account;
+import com.bank.reportservice.model.account.AccountType;
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.credit.Credit;
+import com.bank.reportservice.model.credit.CreditType;
+import com.bank.reportservice.model.creditcard.CreditCard;
+import com.bank.reportservice.model.creditcard.CreditCardType;
+import com.bank.reportservice.model.debitcard.DebitCard;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import com.bank.reportservice.model.transaction.Transaction;
+import com.bank.reportservice.model.transaction.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.util.function.Tuple4;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the in-memory aggregation steps behind the report endpoints, over synthetic data sets of 10 to
+ * 10^6 records: the snapshot averaging fallback of the balance summary, the per-group fold of the transaction
+ * summary, the product mapping of the customer balances and the type/date filter of the resume. Run with
+ * {@code -prof gc} to read the allocation rate next to the throughput, e.g.
+ * {@code mvn -P benchmark test-compile exec:java -Dexec.args="ReportAggregationBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ReportAggregationBenchmark {
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @State(Scope.Benchmark)
+    public static class Snapshots {
+        @Param({"10", "1000", "100000", "1000000"})
+        int records;
+        /**
+         * Snapshots per product, i.e. days of the period being averaged.
+         */
+        @Param({"30"})
+        int snapshotsPerProduct;
+        ReportService reportService;
+        List<DailyBalance> snapshots;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42);
+            reportService = reportService();
+            int productCount = Math.max(1, records / snapshotsPerProduct);
+            snapshots = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                int product = i % productCount;
+                snapshots.add(DailyBalance.builder()
+                        .customerId("customer-1")
+                        .productId("product-" + product)
+                        .productType(ProductCategory.values()[product % ProductCategory.values().length].name())
+                        .balance(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+                        .date(ORIGIN.plusDays(i / productCount))
+                        .build());
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Transactions {
+        @Param({"10", "1000", "100000", "1000000"})
+        int records;
+        @Param({"CATEGORY", "MERCHANT"})
+        TransactionGrouping grouping;
+        List<Transaction> transactions;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42);
+            transactions = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                transactions.add(Transaction.builder()
+                        .id("transaction-" + i)
+                        .productCategory(pick(random, ProductCategory.values()))
+                        .productSubType(pick(random, ProductSubType.values()))
+                        .transactionType(pick(random, TransactionType.values()))
+                        .amount(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                        .commissions(BigDecimal.valueOf(random.nextInt(500), 2))
+                        .merchantName("merchant-" + random.nextInt(200))
+                        .transactionDate(ORIGIN.plusMinutes(i))
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * A customer holding {@code records} products, spread evenly over the four families.
+     */
+    @State(Scope.Benchmark)
+    public static class Products {
+        @Param({"10", "1000", "100000", "1000000"})
+        int records;
+        ReportService reportService;
+        Tuple4<List<Account>, List<CreditCard>, List<Credit>, List<DebitCard>> products;
+        CustomerBalances balances;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42);
+            reportService = reportService();
+            int perFamily = Math.max(1, records / 4);
+            List<Account> accounts = new ArrayList<>(perFamily);
+            List<CreditCard> creditCards = new ArrayList<>(perFamily);
+            List<Credit> credits = new ArrayList<>(perFamily);
+            List<DebitCard> debitCards = new ArrayList<>(perFamily);
+            for (int i = 0; i < perFamily; i++) {
+                LocalDateTime createdAt = ORIGIN.plusDays(random.nextInt(365));
+                accounts.add(Account.builder()
+                        .id("account-" + i)
+                        .accountType(pick(random, AccountType.values()))
+                        .balance(random.nextInt(1_000_000) / 100.0)
+                        .createdAt(createdAt)
+                        .build());
+                creditCards.add(CreditCard.builder()
+                        .id("credit-card-" + i)
+                        .cardType(pick(random, CreditCardType.values()))
+                        .availableBalance(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+                        .createdAt(createdAt)
+                        .build());
+                credits.add(Credit.builder()
+                        .id("credit-" + i)
+                        .creditType(pick(random, CreditType.values()))
+                        .remainingBalance(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+                        .createdAt(createdAt)
+                        .build());
+                debitCards.add(DebitCard.builder()
+                        .id("debit-card-" + i)
+                        .primaryAccountId("account-" + random.nextInt(perFamily))
+                        .createdAt(createdAt)
+                        .build());
+            }
+            products = Tuples.of(accounts, creditCards, credits, debitCards);
+            balances = reportService.mapToCustomerBalances("customer-1", products).block();
+        }
+    }
+
+    /**
+     * The aggregation steps only touch the account client, to resolve debit card accounts missing from the
+     * fetched accounts. Every synthetic debit card points at a fetched account, so no collaborator is called.
+     */
+    private static ReportService reportService() {
+        return new ReportService(null, null, null, null, null, null, null, null, null, null,
+                new ReportMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static <E> E pick(Random random, E[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    @Benchmark
+    public List<DailyBalanceSummary> calculateAverageBalances(Snapshots data) {
+        return data.reportService.calculateAverageBalances(data.snapshots);
+    }
+
+    @Benchmark
+    public List<CategorySummary> summarizeTransactions(Transactions data) {
+        TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator(data.grouping);
+        data.transactions.forEach(accumulator::add);
+        return accumulator.toSummaries();
+    }
+
+    @Benchmark
+    public CustomerBalances mapToCustomerBalances(Products data) {
+        return data.reportService.mapToCustomerBalances("customer-1", data.products).block();
+    }
+
+    @Benchmark
+    public CustomerBalances filterBalancesByTypeAndDates(Products data) {
+        return data.reportService.filterBalancesByTypeAndDates(data.balances, "ACCOUNT",
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 9, 30));
+    }
+}
@@ -1,9 +1,11 @@
 package com.bank.reportservice.client;
 
+import com.bank.reportservice.client.cache.UpstreamCache;
 import com.bank.reportservice.dto.BaseResponse;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.account.Account;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -12,29 +14,44 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.List;
 @Service
 @Slf4j
 public class AccountClientService {
+    private static final TypeReference<List<Account>> ACCOUNT_LIST = new TypeReference<List<Account>>() { };
+    private static final TypeReference<Account> ACCOUNT = new TypeReference<Account>() { };
+
     private final WebClient webClient;
-    private final io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker;
+    private final UpstreamResponseLogger responseLogger;
+    private final UpstreamResilience resilience;
+    private final ReportMetrics metrics;
+    private final UpstreamCache upstreamCache;
 
-    public AccountClientService(WebClient.Builder builder,
+    public AccountClientService(UpstreamWebClientFactory webClientFactory,
                                 @Value("${services.account-url}") String baseUrl,
-                                CircuitBreakerRegistry circuitBreakerRegistry) {
-        this.webClient = builder.baseUrl(baseUrl).build();
-        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("accountService");
-        log.info("Circuit breaker '{}' initialized with state: {}",
-                circuitBreaker.getName(), circuitBreaker.getState());
+                                UpstreamResilience resilience,
+                                UpstreamResponseLogger responseLogger,
+                                UpstreamCache upstreamCache,
+                                ReportMetrics metrics) {
+        this.webClient = webClientFactory.create("account", baseUrl);
+        this.upstreamCache = upstreamCache;
+        this.responseLogger = responseLogger;
+        this.resilience = resilience;
+        this.metrics = metrics;
     }
 
     public Mono<List<Account>> getAccountsByCustomer(String customerId) {
+        return upstreamCache.getOrLoad("accounts", customerId, ACCOUNT_LIST, () -> fetchAccountsByCustomer(customerId));
+    }
+
+    private Mono<List<Account>> fetchAccountsByCustomer(String customerId) {
         return webClient.get()
                 .uri("/accounts/customer/{customerId}", customerId)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -42,10 +59,11 @@ public class AccountClientService {
                 })
                 .bodyToMono(new ParameterizedTypeReference<BaseResponse<List<Account>>>() { })
                 .map(BaseResponse::getData)
-                .doOnNext(result -> log.info("Customer API response: {}", result))
+                .transform(responseLogger.log("account", "getAccountsByCustomer"))
                 .doOnError(error -> log.error("Error fetching accounts for customer {}: {}",
                         customerId, error.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(resilience.mono("accountService"))
+                .transform(metrics.upstream("accountService", "getAccountsByCustomer", ProductCategory.ACCOUNT))
                 .onErrorResume(throwable -> {
                     log.error("FALLBACK TRIGGERED: Unable to fetch accounts for customer {}. Reason: {}",
                             customerId, throwable.getMessage());
@@ -56,13 +74,49 @@ public class AccountClientService {
                 });
     }
 
+    public Mono<List<Account>> getAccountsByIds(Collection<String> accountIds) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/accounts")
+                        .queryParam("ids", accountIds)
+                        .build())
+                .retrieve()
+                .onStatus(HttpStatus::is4xxClientError, response -> {
+                    log.error("Client error: {}", response.statusCode());
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
+                })
+                .onStatus(HttpStatus::is5xxServerError, response -> {
+                    log.error("Server error: {}", response.statusCode());
+                    return Mono.error(new RuntimeException("Server error: " + response.statusCode()));
+                })
+                .bodyToMono(new ParameterizedTypeReference<BaseResponse<List<Account>>>() { })
+                .map(BaseResponse::getData)
+                .transform(responseLogger.log("account", "getAccountsByIds"))
+                .doOnError(error -> log.error("Error fetching accounts with IDs {}: {}",
+                        accountIds, error.getMessage()))
+                .transform(resilience.mono("accountService"))
+                .transform(metrics.upstream("accountService", "getAccountsByIds", ProductCategory.ACCOUNT))
+                .onErrorResume(throwable -> {
+                    log.error("FALLBACK TRIGGERED: Unable to fetch accounts with IDs {}. Reason: {}",
+                            accountIds, throwable.getMessage());
+                    log.error("Exception type: {}", throwable.getClass().getName());
+                    return Mono.error(new RuntimeException(
+                            "Account service is unavailable for retrieving accounts by ID. " +
+                                    "Cannot proceed with the operation."));
+                });
+    }
+
     public Mono<Account> getAccountById(String accountId) {
+        return upstreamCache.getOrLoad("account", accountId, ACCOUNT, () -> fetchAccountById(accountId));
+    }
+
+    private Mono<Account> fetchAccountById(String accountId) {
         return webClient.get()
                 .uri("/accounts/{accountId}", accountId)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -70,9 +124,10 @@ public class AccountClientService {
                 })
                 .bodyToMono(new ParameterizedTypeReference<BaseResponse<Account>>() { })
                 .map(BaseResponse::getData)
-                .doOnNext(result -> log.info("Customer API response: {}", result))
+                .transform(responseLogger.log("account", "getAccountById"))
                 .doOnError(error -> log.error("Error fetching account with ID {}: {}", accountId, error.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(resilience.mono("accountService"))
+                .transform(metrics.upstream("accountService", "getAccountById", ProductCategory.ACCOUNT))
                 .onErrorResume(throwable -> {
                     log.error("FALLBACK TRIGGERED: Unable to fetch account with ID {}. Reason: {}",
                             accountId, throwable.getMessage());
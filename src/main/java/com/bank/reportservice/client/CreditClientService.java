@@ -1,10 +1,12 @@
 package com.bank.reportservice.client;
 
+import com.bank.reportservice.client.cache.UpstreamCache;
 import com.bank.reportservice.dto.BaseResponse;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.credit.Credit;
 import com.bank.reportservice.model.creditcard.CreditCard;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
@@ -18,25 +20,41 @@ import java.util.List;
 @Service
 @Slf4j
 public class CreditClientService {
+    private static final TypeReference<List<CreditCard>> CREDIT_CARD_LIST =
+            new TypeReference<List<CreditCard>>() { };
+    private static final TypeReference<List<Credit>> CREDIT_LIST = new TypeReference<List<Credit>>() { };
+
     private final WebClient webClient;
-    private final io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker;
+    private final UpstreamResponseLogger responseLogger;
+    private final UpstreamResilience resilience;
+    private final ReportMetrics metrics;
+    private final UpstreamCache upstreamCache;
 
-    public CreditClientService(WebClient.Builder builder,
+    public CreditClientService(UpstreamWebClientFactory webClientFactory,
                                @Value("${services.credit-url}") String baseUrl,
-                               CircuitBreakerRegistry circuitBreakerRegistry) {
-        this.webClient = builder.baseUrl(baseUrl).build();
-        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("creditService");
-        log.info("Circuit breaker '{}' initialized with state: {}",
-                circuitBreaker.getName(), circuitBreaker.getState());
+                               UpstreamResilience resilience,
+                               UpstreamResponseLogger responseLogger,
+                               UpstreamCache upstreamCache,
+                               ReportMetrics metrics) {
+        this.webClient = webClientFactory.create("credit", baseUrl);
+        this.upstreamCache = upstreamCache;
+        this.responseLogger = responseLogger;
+        this.resilience = resilience;
+        this.metrics = metrics;
     }
 
     public Mono<List<CreditCard>> getCreditCardsByCustomer(String customerId) {
+        return upstreamCache.getOrLoad("credit-cards", customerId, CREDIT_CARD_LIST, () ->
+                fetchCreditCardsByCustomer(customerId));
+    }
+
+    private Mono<List<CreditCard>> fetchCreditCardsByCustomer(String customerId) {
         return webClient.get()
                 .uri("/credit-cards/customer/{customerId}", customerId)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -44,10 +62,11 @@ public class CreditClientService {
                 })
                 .bodyToMono(new ParameterizedTypeReference<BaseResponse<List<CreditCard>>>() { })
                 .map(BaseResponse::getData)
-                .doOnNext(result -> log.info("Customer API response: {}", result))
+                .transform(responseLogger.log("credit", "getCreditCardsByCustomer"))
                 .doOnError(error -> log.error("Error fetching credit cards for customer {}: {}",
                         customerId, error.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(resilience.mono("creditService"))
+                .transform(metrics.upstream("creditService", "getCreditCardsByCustomer", ProductCategory.CREDIT_CARD))
                 .onErrorResume(throwable -> {
                     log.error("FALLBACK TRIGGERED: Unable to fetch credit cards for customer {}. Reason: {}",
                             customerId, throwable.getMessage());
@@ -59,12 +78,16 @@ public class CreditClientService {
     }
 
     public Mono<List<Credit>> getCreditsByCustomer(String customerId) {
+        return upstreamCache.getOrLoad("credits", customerId, CREDIT_LIST, () -> fetchCreditsByCustomer(customerId));
+    }
+
+    private Mono<List<Credit>> fetchCreditsByCustomer(String customerId) {
         return webClient.get()
                 .uri("/credits/customer/{customerId}", customerId)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -72,10 +95,11 @@ public class CreditClientService {
                 })
                 .bodyToMono(new ParameterizedTypeReference<BaseResponse<List<Credit>>>() { })
                 .map(BaseResponse::getData)
-                .doOnNext(result -> log.info("Customer API response: {}", result))
+                .transform(responseLogger.log("credit", "getCreditsByCustomer"))
                 .doOnError(error -> log.error("Error fetching credits for customer {}: {}",
                         customerId, error.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(resilience.mono("creditService"))
+                .transform(metrics.upstream("creditService", "getCreditsByCustomer", ProductCategory.CREDIT))
                 .onErrorResume(throwable -> {
                     log.error("FALLBACK TRIGGERED: Unable to fetch credits for customer {}. Reason: {}",
                             customerId, throwable.getMessage());
@@ -1,44 +1,83 @@
 package com.bank.reportservice.client;
 
 import com.bank.reportservice.dto.BaseResponse;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.customer.Customer;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
 public class CustomerClientService {
     private final WebClient webClient;
+    private final UpstreamResponseLogger responseLogger;
     private final String customerServiceUrl;
-    private final io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker;
+    private final UpstreamResilience resilience;
+    private final ReportMetrics metrics;
 
-    public CustomerClientService(WebClient.Builder webClientBuilder,
+    public CustomerClientService(UpstreamWebClientFactory webClientFactory,
                                  @Value("${services.customer-url}") String customerServiceUrl,
-                                 CircuitBreakerRegistry circuitBreakerRegistry) {
+                                 UpstreamResilience resilience,
+                                 UpstreamResponseLogger responseLogger,
+                                 ReportMetrics metrics) {
         this.customerServiceUrl = customerServiceUrl;
-        this.webClient = webClientBuilder.baseUrl(customerServiceUrl).build();
-        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("customerService");
-        log.info("Circuit breaker '{}' initialized with state: {}",
-                circuitBreaker.getName(), circuitBreaker.getState());
+        this.webClient = webClientFactory.create("customer", customerServiceUrl);
+        this.responseLogger = responseLogger;
+        this.resilience = resilience;
+        this.metrics = metrics;
     }
 
-    public Mono<List<Customer>> getAllCustomers() {
-        log.info("Sending request to Customer Service API: {}", customerServiceUrl);
+    /**
+     * Every customer, fetched page by page from the Customer Service with a cursor: each page is requested after the
+     * last id of the previous one, so customers added or removed during the iteration do not shift later pages. The
+     * next page is only requested once the previous one has been emitted downstream, so at most two pages are held
+     * at any time whatever the size of the customer base. The iteration stops at the first empty or short page, and
+     * after a page larger than requested, which comes from a service that does not page and has returned every
+     * customer at once. It fails when a page comes back holding the cursor itself, which means the service ignored it
+     * and would otherwise be asked for the same page forever.
+     */
+    public Flux<Customer> getAllCustomers(int pageSize) {
+        return fetchPage(null, pageSize)
+                .expand(page -> page.isLast(pageSize) ? Mono.empty() : fetchPage(page.lastId(), pageSize))
+                .flatMapIterable(page -> page.customers, 1);
+    }
+
+    private Mono<CustomerPage> fetchPage(String after, int size) {
+        return getCustomersPage(after, size)
+                .handle((customers, sink) -> {
+                    if (after != null && customers.stream().anyMatch(customer -> after.equals(customer.getId()))) {
+                        sink.error(new IllegalStateException(
+                                "Customer service returned the customer " + after + " again; paging stopped"));
+                        return;
+                    }
+                    sink.next(new CustomerPage(customers));
+                });
+    }
+
+    /**
+     * Up to {@code size} customers ordered by id, starting after the customer {@code after}, or from the first one
+     * when it is null.
+     */
+    public Mono<List<Customer>> getCustomersPage(String after, int size) {
+        log.debug("Sending request to Customer Service API: {} after {} of size {}", customerServiceUrl, after, size);
         return webClient.get()
-                .uri("/")
+                .uri(uriBuilder -> uriBuilder.path("/")
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .queryParam("size", size)
+                        .build())
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -52,17 +91,34 @@ public class CustomerClientService {
                         return Mono.empty();
                     }
                 })
-                .doOnNext(result -> log.info("Customer API response: {}", result))
-                .doOnError(e -> log.error("Error while fetching all customers: {}", e.getMessage()))
-                .doOnTerminate(() -> log.info("Request to get all customers from Customer API completed"))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(responseLogger.log("customer", "getCustomersPage"))
+                .doOnError(e -> log.error("Error while fetching customers after {}: {}", after, e.getMessage()))
+                .doOnTerminate(() -> log.debug("Request to get customers after {} from Customer API completed", after))
+                .transform(resilience.mono("customerService"))
+                .transform(metrics.upstream("customerService", "getCustomersPage"))
                 .onErrorResume(throwable -> {
-                    log.error("FALLBACK TRIGGERED: Unable to fetch all customers. Reason: {}",
-                            throwable.getMessage());
+                    log.error("FALLBACK TRIGGERED: Unable to fetch customers after {}. Reason: {}",
+                            after, throwable.getMessage());
                     log.error("Exception type: {}", throwable.getClass().getName());
                     return Mono.error(new RuntimeException(
                             "Customer service is unavailable for retrieving customers. " +
                                     "Cannot proceed with the operation."));
                 });
     }
+
+    private static final class CustomerPage {
+        private final List<Customer> customers;
+
+        private CustomerPage(List<Customer> customers) {
+            this.customers = customers;
+        }
+
+        private String lastId() {
+            return customers.get(customers.size() - 1).getId();
+        }
+
+        private boolean isLast(int pageSize) {
+            return customers.size() != pageSize || lastId() == null;
+        }
+    }
 }
@@ -1,9 +1,11 @@
 package com.bank.reportservice.client;
 
+import com.bank.reportservice.client.cache.UpstreamCache;
 import com.bank.reportservice.dto.BaseResponse;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.debitcard.DebitCard;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -18,27 +20,41 @@ import java.util.List;
 @Slf4j
 @Service
 public class DebitCardClientService {
+    private static final TypeReference<List<DebitCard>> DEBIT_CARD_LIST = new TypeReference<List<DebitCard>>() { };
+    private static final TypeReference<DebitCard> DEBIT_CARD = new TypeReference<DebitCard>() { };
+
     private final WebClient webClient;
-    private final io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker;
+    private final UpstreamResponseLogger responseLogger;
+    private final UpstreamResilience resilience;
+    private final ReportMetrics metrics;
+    private final UpstreamCache upstreamCache;
 
     @Autowired
-    public DebitCardClientService(@Value("${services.account-url}") String accountServiceUrl,
-                                  CircuitBreakerRegistry circuitBreakerRegistry) {
-        this.webClient = WebClient.builder()
-                .baseUrl(accountServiceUrl)
-                .build();
-        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("debitCardService");
-        log.info("Circuit breaker '{}' initialized with state: {}",
-                circuitBreaker.getName(), circuitBreaker.getState());
+    public DebitCardClientService(UpstreamWebClientFactory webClientFactory,
+                                  @Value("${services.account-url}") String accountServiceUrl,
+                                  UpstreamResilience resilience,
+                                  UpstreamResponseLogger responseLogger,
+                                  UpstreamCache upstreamCache,
+                                  ReportMetrics metrics) {
+        // Debit cards are served by the account service, so they share its connection pool.
+        this.webClient = webClientFactory.create("account", accountServiceUrl);
+        this.upstreamCache = upstreamCache;
+        this.responseLogger = responseLogger;
+        this.resilience = resilience;
+        this.metrics = metrics;
     }
 
     public Mono<DebitCard> getDebitCardById(String cardId) {
+        return upstreamCache.getOrLoad("debit-card", cardId, DEBIT_CARD, () -> fetchDebitCardById(cardId));
+    }
+
+    private Mono<DebitCard> fetchDebitCardById(String cardId) {
         return webClient.get()
                 .uri("/debit-cards/{cardId}", cardId)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -53,9 +69,10 @@ public class DebitCardClientService {
                             "found or error: " + response.getMessage()));
                     }
                 })
-                .doOnNext(result -> log.info("Customer API response: {}", result))
+                .transform(responseLogger.log("debit-card", "getDebitCardById"))
                 .doOnError(e -> log.error("Error retrieving debit card with ID {}: {}", cardId, e.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(resilience.mono("debitCardService"))
+                .transform(metrics.upstream("debitCardService", "getDebitCardById", ProductCategory.DEBIT_CARD))
                 .onErrorResume(throwable -> {
                     log.error("FALLBACK TRIGGERED: Unable to fetch debit card with ID {}. Reason: {}",
                             cardId, throwable.getMessage());
@@ -67,12 +84,17 @@ public class DebitCardClientService {
     }
 
     public Mono<List<DebitCard>> getDebitCardsByCustomer(String customerId) {
+        return upstreamCache.getOrLoad("debit-cards", customerId, DEBIT_CARD_LIST, () ->
+                fetchDebitCardsByCustomer(customerId));
+    }
+
+    private Mono<List<DebitCard>> fetchDebitCardsByCustomer(String customerId) {
         return webClient.get()
                 .uri("/debit-cards/customer/{customerId}", customerId)
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -80,10 +102,11 @@ public class DebitCardClientService {
                 })
                 .bodyToMono(new ParameterizedTypeReference<BaseResponse<List<DebitCard>>>() { })
                 .map(BaseResponse::getData)
-                .doOnNext(result -> log.info("Customer API response: {}", result))
+                .transform(responseLogger.log("debit-card", "getDebitCardsByCustomer"))
                 .doOnError(e -> log.error("Error retrieving debit cards" +
                     " for customer {}: {}", customerId, e.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(resilience.mono("debitCardService"))
+                .transform(metrics.upstream("debitCardService", "getDebitCardsByCustomer", ProductCategory.DEBIT_CARD))
                 .onErrorResume(throwable -> {
                     log.error("FALLBACK TRIGGERED: Unable to fetch debit cards for customer {}. Reason: {}",
                             customerId, throwable.getMessage());
@@ -1,15 +1,17 @@
 package com.bank.reportservice.client;
 
 import com.bank.reportservice.dto.BaseResponse;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.transaction.Transaction;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
@@ -19,17 +21,21 @@ import java.util.List;
 @Slf4j
 public class TransactionClientService {
     private final WebClient webClient;
+    private final UpstreamResponseLogger responseLogger;
     private final String baseUrl;
-    private final io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker;
+    private final UpstreamResilience resilience;
+    private final ReportMetrics metrics;
 
-    public TransactionClientService(WebClient.Builder builder,
+    public TransactionClientService(UpstreamWebClientFactory webClientFactory,
                                     @Value("${services.transaction-url}") String baseUrl,
-                                    CircuitBreakerRegistry circuitBreakerRegistry) {
+                                    UpstreamResilience resilience,
+                                    UpstreamResponseLogger responseLogger,
+                                    ReportMetrics metrics) {
         this.baseUrl = baseUrl;
-        this.webClient = builder.baseUrl(baseUrl).build();
-        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("transactionService");
-        log.info("Circuit breaker '{}' initialized with state: {}",
-                circuitBreaker.getName(), circuitBreaker.getState());
+        this.webClient = webClientFactory.create("transaction", baseUrl);
+        this.responseLogger = responseLogger;
+        this.resilience = resilience;
+        this.metrics = metrics;
     }
 
     public Mono<List<Transaction>> getTransactionsByCustomerAndProduct(String customerId, String productId) {
@@ -39,7 +45,7 @@ public class TransactionClientService {
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, response -> {
                     log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
+                    return Mono.error(new UpstreamClientErrorException("Client error: " + response.statusCode()));
                 })
                 .onStatus(HttpStatus::is5xxServerError, response -> {
                     log.error("Server error: {}", response.statusCode());
@@ -47,10 +53,11 @@ public class TransactionClientService {
                 })
                 .bodyToMono(new ParameterizedTypeReference<BaseResponse<List<Transaction>>>() { })
                 .map(BaseResponse::getData)
-                .doOnNext(result -> log.info("Customer API response: {}", result))
+                .transform(responseLogger.log("transaction", "getTransactionsByCustomerAndProduct"))
                 .doOnError(error -> log.error("Error fetching transactions for customer {} and product {}: {}",
                         customerId, productId, error.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .transform(resilience.mono("transactionService"))
+                .transform(metrics.upstream("transactionService", "getTransactionsByCustomerAndProduct"))
                 .onErrorResume(throwable -> {
                     log.error("FALLBACK TRIGGERED: Unable to fetch transactions" +
                         " for customer {} and product {}. Reason: {}",
@@ -62,34 +69,83 @@ public class TransactionClientService {
                 });
     }
 
-    public Mono<List<Transaction>> getTransactionsByDate(LocalDate startDate, LocalDate endDate) {
+    /**
+     * Streams the product's transactions as the upstream service writes them. The service is asked for
+     * newline-delimited JSON, so each transaction is decoded on its own instead of buffering the whole history;
+     * a service that still answers with the wrapped JSON list is decoded as a whole.
+     */
+    public Flux<Transaction> streamTransactionsByCustomerAndProduct(String customerId, String productId) {
+        return webClient.get()
+                .uri("/transactions/customer/{customerId}/product/{productId}",
+                        customerId, productId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchangeToFlux(this::decodeTransactions)
+                .doOnError(error -> log.error("Error streaming transactions for customer {} and product {}: {}",
+                        customerId, productId, error.getMessage()))
+                .transform(resilience.flux("transactionService"))
+                .transform(metrics.upstreamStream("transactionService", "streamTransactionsByCustomerAndProduct"))
+                .onErrorResume(throwable -> {
+                    log.error("FALLBACK TRIGGERED: Unable to stream transactions" +
+                        " for customer {} and product {}. Reason: {}",
+                        customerId, productId, throwable.getMessage());
+                    log.error("Exception type: {}", throwable.getClass().getName());
+                    return Flux.error(new RuntimeException(
+                            "Transaction service is unavailable for streaming transactions. " +
+                                    "Cannot proceed with the operation."));
+                });
+    }
+
+    /**
+     * Streams the transactions of a date range as newline-delimited JSON, one decoded transaction at a time, or as
+     * a whole from a service that still answers with the wrapped JSON list.
+     */
+    public Flux<Transaction> streamTransactionsByDate(LocalDate startDate, LocalDate endDate) {
         return webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/transactions/by-date")
                         .queryParam("startDate", startDate)
                         .queryParam("endDate", endDate)
                         .build())
-                .retrieve()
-                .onStatus(HttpStatus::is4xxClientError, response -> {
-                    log.error("Client error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Client error: " + response.statusCode()));
-                })
-                .onStatus(HttpStatus::is5xxServerError, response -> {
-                    log.error("Server error: {}", response.statusCode());
-                    return Mono.error(new RuntimeException("Server error: " + response.statusCode()));
-                })
-                .bodyToMono(new ParameterizedTypeReference<BaseResponse<List<Transaction>>>() { })
-                .map(BaseResponse::getData)
-                .doOnNext(result -> log.info("Customer API response: {}", result))
-                .doOnError(error -> log.error("Error fetching transactions by date: {}", error.getMessage()))
-                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchangeToFlux(this::decodeTransactions)
+                .doOnError(error -> log.error("Error streaming transactions by date: {}", error.getMessage()))
+                .transform(resilience.flux("transactionService"))
+                .transform(metrics.upstreamStream("transactionService", "streamTransactionsByDate"))
                 .onErrorResume(throwable -> {
-                    log.error("FALLBACK TRIGGERED: Unable to fetch transactions by date. Reason: {}",
+                    log.error("FALLBACK TRIGGERED: Unable to stream transactions by date. Reason: {}",
                             throwable.getMessage());
                     log.error("Exception type: {}", throwable.getClass().getName());
-                    return Mono.error(new RuntimeException(
-                            "Transaction service is unavailable for retrieving transactions by date. " +
+                    return Flux.error(new RuntimeException(
+                            "Transaction service is unavailable for streaming transactions by date. " +
                                     "Cannot proceed with the operation."));
                 });
     }
+
+    // The body is only decoded as NDJSON when the service says it is: decoding a wrapped JSON list as a stream of
+    // transactions would emit a single empty transaction instead of failing.
+    private Flux<Transaction> decodeTransactions(ClientResponse response) {
+        if (response.statusCode().is4xxClientError()) {
+            log.error("Client error: {}", response.statusCode());
+            return response.releaseBody()
+                    .thenMany(Flux.error(new UpstreamClientErrorException("Client error: " + response.statusCode())));
+        }
+        if (response.statusCode().is5xxServerError()) {
+            log.error("Server error: {}", response.statusCode());
+            return response.releaseBody()
+                    .thenMany(Flux.error(new RuntimeException("Server error: " + response.statusCode())));
+        }
+        MediaType contentType = response.headers().contentType().orElse(MediaType.APPLICATION_OCTET_STREAM);
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return response.bodyToFlux(Transaction.class);
+        }
+        if (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            log.warn("Transaction service answered {} instead of {}; decoding the whole list", contentType,
+                    MediaType.APPLICATION_NDJSON);
+            return response.bodyToMono(new ParameterizedTypeReference<BaseResponse<List<Transaction>>>() { })
+                    .flatMapIterable(body -> body.getData() != null ? body.getData() : List.of());
+        }
+        return response.releaseBody()
+                .thenMany(Flux.error(new UpstreamClientErrorException(
+                        "Unsupported transaction stream content type: " + contentType)));
+    }
 }
@@ -0,0 +1,10 @@
+package com.bank.reportservice.client;
+
+/**
+ * A 4xx response from an upstream service. The request itself is wrong, so it is never retried.
+ */
+public class UpstreamClientErrorException extends RuntimeException {
+    public UpstreamClientErrorException(String message) {
+        super(message);
+    }
+}
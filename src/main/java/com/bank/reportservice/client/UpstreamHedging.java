@@ -0,0 +1,131 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.HedgingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Hedges idempotent upstream calls: when a call has not answered by the configured latency percentile of recent
+ * calls, the same request is sent again and whichever returns a value first wins, cancelling the other. A token budget
+ * earned per call caps the extra load. Counts are exported as {@code report.upstream.hedging.requests
+ * {service,outcome=sent|won|skipped}} and the current delay as {@code report.upstream.hedging.delay}.
+ */
+@Component
+public class UpstreamHedging {
+    private final HedgingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HedgeState> states = new ConcurrentHashMap<>();
+
+    public UpstreamHedging(HedgingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> mono(String service) {
+        HedgingProperties.Policy policy = properties.policyFor(service);
+        if (!policy.isEnabled()) {
+            return Function.identity();
+        }
+        HedgeState state = states.computeIfAbsent(service, name -> new HedgeState(name, policy));
+        return call -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            state.earn();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.Empty<Void> primaryDone = Sinks.empty();
+            // Only the primary feeds the delay: the winner's latency would be the hedge delay plus the hedge's own
+            // time. A primary cancelled because the hedge won is recorded with the time it had run, a lower bound.
+            Mono<T> primary = call
+                    .doOnNext(result -> state.record(System.nanoTime() - start))
+                    .doOnCancel(() -> state.record(System.nanoTime() - start))
+                    .doOnError(primaryError::set)
+                    .doFinally(signal -> primaryDone.tryEmitEmpty());
+            Mono<T> hedge = Mono.delay(state.delay())
+                    .takeUntilOther(primaryDone.asMono())
+                    .flatMap(tick -> {
+                        if (!state.trySpend()) {
+                            state.skipped.increment();
+                            return Mono.<T>empty();
+                        }
+                        state.sent.increment();
+                        return call.doOnNext(result -> state.won.increment());
+                    });
+            // A failed call only loses the race; the caller sees an error once neither call produced a value, and
+            // it is the primary's own error so that the retry and the circuit breaker classify it as before.
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorResume(e -> primaryError.get() != null ? Mono.error(primaryError.get()) : Mono.empty());
+        });
+    }
+
+    private final class HedgeState {
+        private final HedgingProperties.Policy policy;
+        private final long[] samples;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter skipped;
+        private long recorded;
+        private double tokens;
+        private volatile long delayNanos;
+
+        private HedgeState(String service, HedgingProperties.Policy policy) {
+            this.policy = policy;
+            this.samples = new long[Math.max(policy.getSampleSize(), 1)];
+            this.delayNanos = policy.getInitialDelay().toNanos();
+            this.sent = counter(service, "sent");
+            this.won = counter(service, "won");
+            this.skipped = counter(service, "skipped");
+            Gauge.builder("report.upstream.hedging.delay", this, state -> state.delayNanos / 1_000_000.0)
+                    .description("Current delay in milliseconds after which a call is hedged")
+                    .tag("service", service)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+
+        private Counter counter(String service, String outcome) {
+            return Counter.builder("report.upstream.hedging.requests")
+                    .description("Hedged upstream requests by outcome")
+                    .tag("service", service)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        private Duration delay() {
+            return Duration.ofNanos(delayNanos);
+        }
+
+        private synchronized void earn() {
+            tokens = Math.min(tokens + policy.getBudgetRatio(), policy.getMaxBurst());
+        }
+
+        private synchronized boolean trySpend() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        private synchronized void record(long latencyNanos) {
+            samples[(int) (recorded % samples.length)] = latencyNanos;
+            recorded++;
+            // The percentile is refreshed every few samples instead of on every call; the window moves slowly.
+            if (recorded >= policy.getMinSamples() && recorded % 16 == 0) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(recorded, samples.length));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(policy.getPercentile() * sorted.length) - 1;
+                long percentile = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+                delayNanos = Math.max(percentile, policy.getMinDelay().toNanos());
+            }
+        }
+    }
+}
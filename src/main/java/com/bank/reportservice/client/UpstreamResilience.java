@@ -0,0 +1,78 @@
+package com.bank.reportservice.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * The operator chain every upstream call goes through: the raw call is optionally hedged, a semaphore bulkhead
+ * bounds the calls in flight, the time limiter cancels slow calls, the circuit breaker records the outcome and the
+ * retry, outermost, repeats failed attempts with jittered exponential backoff. All instances are named after the
+ * downstream service.
+ */
+@Component
+public class UpstreamResilience {
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final TimeLimiterRegistry timeLimiterRegistry;
+    private final RetryRegistry retryRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final UpstreamHedging hedging;
+
+    public UpstreamResilience(CircuitBreakerRegistry circuitBreakerRegistry,
+                              TimeLimiterRegistry timeLimiterRegistry,
+                              RetryRegistry retryRegistry,
+                              BulkheadRegistry bulkheadRegistry,
+                              UpstreamHedging hedging) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.timeLimiterRegistry = timeLimiterRegistry;
+        this.retryRegistry = retryRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.hedging = hedging;
+    }
+
+    /**
+     * Operators for a single-response GET. Only idempotent calls may use this chain, since failed attempts are
+     * repeated and, for services with hedging enabled, slow attempts are duplicated.
+     */
+    public <T> Function<Mono<T>, Mono<T>> mono(String service) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(service);
+        TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(service);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(service);
+        Retry retry = retryRegistry.retry(service);
+        Function<Mono<T>, Mono<T>> hedge = hedging.mono(service);
+        return call -> call
+                .transform(hedge)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry));
+    }
+
+    /**
+     * Operators for a streamed response. The time limiter bounds the wait for each element; streams are not
+     * retried, because elements already emitted downstream would be emitted again.
+     */
+    public <T> Function<Flux<T>, Flux<T>> flux(String service) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(service);
+        TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(service);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(service);
+        return call -> call
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.UpstreamLoggingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Logs upstream responses without rendering them: a sample of responses is logged with its size and latency, and
+ * full payloads are only written at DEBUG for the clients listed in {@code report.upstream.logging.payload-clients}.
+ */
+@Slf4j
+@Component
+public class UpstreamResponseLogger {
+    private final UpstreamLoggingProperties properties;
+
+    public UpstreamResponseLogger(UpstreamLoggingProperties properties) {
+        this.properties = properties;
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> log(String client, String operation) {
+        return response -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            return response.doOnNext(result -> logResponse(client, operation, result, start));
+        });
+    }
+
+    private void logResponse(String client, String operation, Object result, long start) {
+        if (log.isDebugEnabled() && properties.getPayloadClients().contains(client)) {
+            log.debug("upstream payload client={} operation={} body={}", client, operation, result);
+        }
+        if (log.isInfoEnabled() && sampled()) {
+            log.info("upstream response client={} operation={} items={} latencyMs={}", client, operation,
+                    sizeOf(result), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private boolean sampled() {
+        double rate = properties.getSampleRate();
+        return rate >= 1.0 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    static int sizeOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        return result != null ? 1 : 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.UpstreamHttpProperties;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the WebClients of the upstream clients on top of one named connection pool per downstream service, so
+ * clients talking to the same service share connections and every pool is bounded, evicts idle connections and
+ * exports its metrics as {@code reactor.netty.connection.provider.*{name=<service>}}.
+ */
+@Slf4j
+@Component
+public class UpstreamWebClientFactory implements DisposableBean {
+    private final WebClient.Builder webClientBuilder;
+    private final UpstreamHttpProperties properties;
+    private final Map<String, ConnectionProvider> pools = new ConcurrentHashMap<>();
+
+    public UpstreamWebClientFactory(WebClient.Builder webClientBuilder, UpstreamHttpProperties properties) {
+        this.webClientBuilder = webClientBuilder;
+        this.properties = properties;
+    }
+
+    public WebClient create(String service, String baseUrl) {
+        UpstreamHttpProperties.Service settings = properties.serviceFor(service);
+        HttpClient httpClient = HttpClient.create(pools.computeIfAbsent(service, name -> newPool(name, settings)))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .responseTimeout(settings.getResponseTimeout())
+                .compress(settings.isCompression());
+        if (settings.isH2c()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        log.info("Upstream client for '{}' at {}: maxConnections={}, responseTimeout={}, compression={}, h2c={}",
+                service, baseUrl, settings.getMaxConnections(), settings.getResponseTimeout(),
+                settings.isCompression(), settings.isH2c());
+        return webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    private ConnectionProvider newPool(String service, UpstreamHttpProperties.Service settings) {
+        return ConnectionProvider.builder(service)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictionInterval())
+                .metrics(true)
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        pools.values().forEach(ConnectionProvider::dispose);
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.reportservice.client.cache;
+
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@Component
+public class RedisUpstreamCacheStore implements UpstreamCacheStore {
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public RedisUpstreamCacheStore(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Mono<String> get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    @Override
+    public Mono<Boolean> put(String key, String value, Duration ttl) {
+        return redisTemplate.opsForValue().set(key, value, ttl);
+    }
+}
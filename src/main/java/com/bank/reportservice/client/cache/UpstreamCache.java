@@ -0,0 +1,124 @@
+package com.bank.reportservice.client.cache;
+
+import com.bank.reportservice.config.UpstreamCacheProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of the upstream clients. Concurrent misses on the same key share a single upstream
+ * call, and a failing or slow cache store only costs the lookup: the request falls through to the upstream service.
+ * Pipelines that carry {@link #BYPASS} in their context, such as the nightly job, always read the upstream service.
+ */
+@Component
+@Slf4j
+public class UpstreamCache {
+    /**
+     * Reactor context key that sends every lookup of the subscribing pipeline straight to the upstream service.
+     */
+    public static final String BYPASS = UpstreamCache.class.getName() + ".bypass";
+
+    private final UpstreamCacheStore store;
+    private final ObjectMapper objectMapper;
+    private final UpstreamCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    public UpstreamCache(UpstreamCacheStore store,
+                         ObjectMapper objectMapper,
+                         UpstreamCacheProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Mono<T> getOrLoad(String entity, String id, TypeReference<T> type, Supplier<Mono<T>> loader) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(loader);
+        }
+        String key = properties.getKeyPrefix() + entity + ":" + id;
+        return Mono.deferContextual(ctx -> {
+            if (ctx.hasKey(BYPASS)) {
+                return loader.get();
+            }
+            long start = System.nanoTime();
+            Mono<T> miss = Mono.defer(() -> coalesce(entity, key, () -> loadAndStore(entity, key, loader)))
+                    .doFinally(signal -> record(entity, "miss", start));
+            return read(entity, key, type)
+                    .doOnNext(hit -> record(entity, "hit", start))
+                    .switchIfEmpty(miss);
+        });
+    }
+
+    private <T> Mono<T> read(String entity, String key, TypeReference<T> type) {
+        return store.get(key)
+                .timeout(properties.getTimeout())
+                .flatMap(json -> Mono.fromCallable(() -> objectMapper.readValue(json, type)))
+                .onErrorResume(error -> {
+                    log.warn("Cache read failed for key {}: {}", key, error.getMessage());
+                    errors(entity, "read").increment();
+                    return Mono.empty();
+                });
+    }
+
+    private <T> Mono<T> loadAndStore(String entity, String key, Supplier<Mono<T>> loader) {
+        return loader.get()
+                .flatMap(value -> Mono.fromCallable(() -> objectMapper.writeValueAsString(value))
+                        .flatMap(json -> store.put(key, json, properties.ttlFor(entity))
+                                .timeout(properties.getTimeout()))
+                        .onErrorResume(error -> {
+                            log.warn("Cache write failed for key {}: {}", key, error.getMessage());
+                            errors(entity, "write").increment();
+                            return Mono.empty();
+                        })
+                        .thenReturn(value));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> coalesce(String entity, String key, Supplier<Mono<T>> load) {
+        Mono<?> existing = inFlight.get(key);
+        if (existing == null) {
+            Mono<T> shared = Mono.defer(load)
+                    .doFinally(signal -> inFlight.remove(key))
+                    .cache();
+            existing = inFlight.putIfAbsent(key, shared);
+            if (existing == null) {
+                return shared;
+            }
+        }
+        Counter.builder("report.upstream.cache.coalesced")
+                .description("Cache misses served by an upstream call already in flight")
+                .tag("entity", entity)
+                .register(meterRegistry)
+                .increment();
+        return (Mono<T>) existing;
+    }
+
+    private void record(String entity, String result, long start) {
+        Timer.builder("report.upstream.cache.lookups")
+                .description("Upstream cache lookups, including the upstream call on a miss")
+                .tag("entity", entity)
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter errors(String entity, String operation) {
+        return Counter.builder("report.upstream.cache.errors")
+                .tag("entity", entity)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.reportservice.client.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Key/value storage behind {@link UpstreamCache}. Values are the serialized upstream payloads.
+ */
+public interface UpstreamCacheStore {
+    /**
+     * Emits the stored value, or completes empty when the key is absent or expired.
+     */
+    Mono<String> get(String key);
+
+    Mono<Boolean> put(String key, String value, Duration ttl);
+}
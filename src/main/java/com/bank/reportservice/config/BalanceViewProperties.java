@@ -0,0 +1,41 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.balance-view")
+public class BalanceViewProperties {
+    /**
+     * Consumes balance change events into the materialized view and serves customer balances from it.
+     */
+    private boolean enabled = false;
+    /**
+     * Topics carrying balance change events. Transaction events carry the movement rather than the balance after
+     * it, so they cannot be folded into the view and are left to the product services' own change events.
+     */
+    private List<String> topics = Arrays.asList("account-events", "credit-events", "card-events");
+    /**
+     * Consumer group of the view materializer. Offsets are committed per batch once the batch is applied.
+     */
+    private String groupId = "report-service-balance-view";
+    /**
+     * Listener threads; each one owns a share of the topic partitions.
+     */
+    private int concurrency = 1;
+    /**
+     * Events from the same batch applied to Mongo at the same time.
+     */
+    private int applyConcurrency = 16;
+    /**
+     * Longest a customer's view is served after its last full fan-out. Past it the next read fetches the products
+     * live and seeds the view again, which bounds the drift left by lost events.
+     */
+    private Duration maxAge = Duration.ofMinutes(15);
+}
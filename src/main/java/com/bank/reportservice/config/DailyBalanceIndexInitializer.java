@@ -0,0 +1,107 @@
+package com.bank.reportservice.config;
+
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.balance.DailyBalanceCheckpoint;
+import com.bank.reportservice.model.balance.DailyBalancePartition;
+import com.bank.reportservice.model.balance.MonthlyBalanceRollup;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@Component
+@Slf4j
+public class DailyBalanceIndexInitializer {
+    static final String SNAPSHOT_INDEX = "customer_date_product";
+    static final String RETENTION_INDEX = "date_ttl";
+    static final String ROLLUP_INDEX = "customer_month";
+    static final String PARTITION_INDEX = "run";
+    static final String CHECKPOINT_INDEX = "run";
+    static final String CHECKPOINT_RETENTION_INDEX = "completedAt_ttl";
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DailyBalanceJobProperties properties;
+
+    public DailyBalanceIndexInitializer(ReactiveMongoTemplate mongoTemplate,
+                                        DailyBalanceJobProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        ensureIndexes()
+                .doOnError(error -> log.error("Error creating daily balance indexes: {}", error.getMessage()))
+                .subscribe(name -> log.info("Index '{}' ensured", name), error -> { });
+    }
+
+    public Flux<String> ensureIndexes() {
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(DailyBalance.class);
+        // customerId/date/productId drive the lookups; the trailing keys make the summary projection covered.
+        Index snapshotIndex = new Index()
+                .on("customerId", Sort.Direction.ASC)
+                .on("date", Sort.Direction.ASC)
+                .on("productId", Sort.Direction.ASC)
+                .on("productType", Sort.Direction.ASC)
+                .on("subType", Sort.Direction.ASC)
+                .on("balance", Sort.Direction.ASC)
+                .named(SNAPSHOT_INDEX);
+        Mono<String> retentionIndex = properties.getRetention() == null
+                ? Mono.empty()
+                : ensureRetention(DailyBalance.class, RETENTION_INDEX, "date", properties.getRetention());
+        Mono<String> rollupIndex = mongoTemplate.indexOps(MonthlyBalanceRollup.class)
+                .ensureIndex(new Index()
+                        .on("customerId", Sort.Direction.ASC)
+                        .on("month", Sort.Direction.ASC)
+                        .named(ROLLUP_INDEX));
+        Mono<String> partitionIndex = mongoTemplate.indexOps(DailyBalancePartition.class)
+                .ensureIndex(new Index()
+                        .on("runId", Sort.Direction.ASC)
+                        .named(PARTITION_INDEX));
+        Mono<String> checkpointIndex = mongoTemplate.indexOps(DailyBalanceCheckpoint.class)
+                .ensureIndex(new Index()
+                        .on("runId", Sort.Direction.ASC)
+                        .named(CHECKPOINT_INDEX));
+        Mono<String> checkpointRetentionIndex = properties.getCheckpointRetention() == null
+                ? Mono.empty()
+                : ensureRetention(DailyBalanceCheckpoint.class, CHECKPOINT_RETENTION_INDEX, "completedAt",
+                        properties.getCheckpointRetention());
+        return Flux.concat(indexOps.ensureIndex(snapshotIndex), retentionIndex, rollupIndex, partitionIndex,
+                checkpointIndex, checkpointRetentionIndex);
+    }
+
+    /**
+     * Creates the TTL index, or changes its expiry in place with {@code collMod} when the retention was changed:
+     * {@code createIndexes} refuses to redefine an existing index with different options.
+     */
+    private Mono<String> ensureRetention(Class<?> entityClass, String name, String field, Duration retention) {
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(entityClass);
+        return indexOps.getIndexInfo()
+                .filter(index -> name.equals(index.getName()))
+                .next()
+                .flatMap(index -> index.getExpireAfter().filter(retention::equals).isPresent()
+                        ? Mono.just(name)
+                        : changeExpiry(entityClass, name, retention))
+                .switchIfEmpty(Mono.defer(() -> indexOps.ensureIndex(new Index()
+                        .on(field, Sort.Direction.ASC)
+                        .expire(retention)
+                        .named(name))));
+    }
+
+    private Mono<String> changeExpiry(Class<?> entityClass, String name, Duration retention) {
+        Document command = new Document("collMod", mongoTemplate.getCollectionName(entityClass))
+                .append("index", new Document("name", name)
+                        .append("expireAfterSeconds", retention.getSeconds()));
+        return mongoTemplate.executeCommand(command)
+                .doOnNext(result -> log.info("Retention of index '{}' changed to {}", name, retention))
+                .thenReturn(name);
+    }
+}
@@ -0,0 +1,80 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.daily-balance")
+public class DailyBalanceJobProperties {
+    /**
+     * Customers processed at the same time by the nightly job.
+     */
+    private int customerConcurrency = 8;
+    /**
+     * Customers requested per page from the Customer Service; processing starts as soon as the first page arrives.
+     */
+    private int customerPageSize = 500;
+    /**
+     * Partitions a run splits the customers into, by hash of the customer ID. Every instance claims partitions one
+     * at a time, so this caps how many instances can share a run. Changes only apply to runs opened afterwards.
+     */
+    private int partitions = 16;
+    /**
+     * Partitions an instance claims at once. The customers are listed once per claim and routed to the claimed
+     * partitions, so a run lists them about partitions / partitions-per-claim times in all, and that many instances
+     * can work on it at the same time.
+     */
+    private int partitionsPerClaim = 4;
+    /**
+     * Times an instance takes its partitions back after processing them failed, backing off one more renew interval
+     * each time, before it leaves the run to the other instances and to the next resume.
+     */
+    private int partitionRetries = 2;
+    /**
+     * How long a partition claim holds without renewal before another instance may take the partition over.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(2);
+    /**
+     * How often a claimed partition renews its lease, and how often an idle instance looks for partitions to take
+     * over while others are still running. Must be well below the lease duration.
+     */
+    private Duration leaseRenewInterval = Duration.ofSeconds(30);
+    /**
+     * How often each instance looks for an unfinished run to resume, starting right after startup. Skipped while the
+     * instance is already working on a run.
+     */
+    private Duration resumeInterval = Duration.ofMinutes(15);
+    /**
+     * Products of a single family saved at the same time for one customer.
+     */
+    private int productConcurrency = 4;
+    /**
+     * Number of processed customers between two progress updates of the run document.
+     */
+    private int progressInterval = 100;
+    /**
+     * Maximum number of snapshots sent to Mongo in a single unordered bulk insert.
+     */
+    private int writeBatchSize = 500;
+    /**
+     * Maximum time a snapshot waits in the write buffer before a partial batch is flushed.
+     */
+    private Duration writeMaxDelay = Duration.ofMillis(200);
+    /**
+     * Bulk inserts allowed in flight at the same time.
+     */
+    private int writeConcurrency = 2;
+    /**
+     * How long snapshots are kept before Mongo expires them. Unset keeps them forever.
+     */
+    private Duration retention;
+    /**
+     * How long customer checkpoints are kept before Mongo expires them. A run deletes its own checkpoints once it
+     * completes, so this only clears runs that were never completed; it must outlast any run that may still resume.
+     */
+    private Duration checkpointRetention = Duration.ofDays(7);
+}
@@ -0,0 +1,54 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.hedging")
+public class HedgingProperties {
+    /**
+     * Hedging policy per downstream service, keyed by the circuit breaker name. Hedging is opt-in: services without
+     * an enabled entry never send a second request.
+     */
+    private Map<String, Policy> services = new HashMap<>();
+
+    public Policy policyFor(String name) {
+        return services.getOrDefault(name, new Policy());
+    }
+
+    @Data
+    public static class Policy {
+        private boolean enabled = false;
+        /**
+         * Latency percentile of recent successful calls after which a second request is sent.
+         */
+        private double percentile = 0.95;
+        /**
+         * Hedge delay used until {@link #minSamples} calls have been observed.
+         */
+        private Duration initialDelay = Duration.ofMillis(200);
+        /**
+         * Lower bound of the hedge delay, so a fast service is not hedged on every call.
+         */
+        private Duration minDelay = Duration.ofMillis(20);
+        /**
+         * Successful calls kept to compute the percentile.
+         */
+        private int sampleSize = 256;
+        private int minSamples = 50;
+        /**
+         * Hedges allowed per call, e.g. 0.05 caps the extra load at 5% of the calls.
+         */
+        private double budgetRatio = 0.05;
+        /**
+         * Hedges that can be sent back to back once budget has accumulated.
+         */
+        private int maxBurst = 10;
+    }
+}
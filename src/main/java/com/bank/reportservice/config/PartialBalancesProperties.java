@@ -0,0 +1,40 @@
+package com.bank.reportservice.config;
+
+import com.bank.reportservice.model.transaction.ProductCategory;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.balances.partial")
+public class PartialBalancesProperties {
+    /**
+     * Serves partial balances when a request does not choose with the {@code partial} parameter.
+     */
+    private boolean enabled = false;
+    /**
+     * Time a product family may take in partial mode before it is reported as missing or stale.
+     */
+    private Duration defaultDeadline = Duration.ofSeconds(2);
+    /**
+     * Deadline per product family (ACCOUNT, CREDIT, CREDIT_CARD, DEBIT_CARD), overriding the default.
+     */
+    private Map<ProductCategory, Duration> deadlines = new EnumMap<>(ProductCategory.class);
+    /**
+     * Serves a family that missed its deadline from the latest daily balance snapshot, marked as stale.
+     */
+    private boolean snapshotFallback = true;
+    /**
+     * Oldest snapshot that may still be served as stale data.
+     */
+    private Duration snapshotMaxAge = Duration.ofDays(3);
+
+    public Duration deadlineFor(ProductCategory family) {
+        return deadlines.getOrDefault(family, defaultDeadline);
+    }
+}
@@ -1,8 +1,18 @@
 package com.bank.reportservice.config;
 
+import com.bank.reportservice.client.UpstreamClientErrorException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,20 +21,84 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 import java.io.IOException;
 import java.net.ConnectException;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 @Configuration
 @Slf4j
 public class Resilience4jConfig {
+    public static final List<String> SERVICES = List.of(
+            "customerService", "accountService", "creditService", "debitCardService", "transactionService");
+
     @Bean
-    public CircuitBreakerRegistry circuitBreakerRegistry() {
+    public CircuitBreakerRegistry circuitBreakerRegistry(ResilienceProperties properties) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(
+                circuitBreakerConfig(new ResilienceProperties.Service()));
+
+        for (String service : SERVICES) {
+            io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker = registry.circuitBreaker(service,
+                    circuitBreakerConfig(properties.serviceFor(service)));
+            log.info("Circuit breaker '{}' created with state: {}",
+                    circuitBreaker.getName(), circuitBreaker.getState());
+
+            circuitBreaker.getEventPublisher()
+                    .onStateTransition(this::logStateTransition)
+                    .onError(event -> log.error("Circuit breaker '{}' recorded an error: {}",
+                            event.getCircuitBreakerName(), event.getThrowable().getMessage()))
+                    .onSuccess(event -> log.debug("Circuit breaker '{}' recorded a success",
+                            event.getCircuitBreakerName()));
+        }
 
-        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+        return registry;
+    }
+
+    @Bean
+    public TimeLimiterRegistry timeLimiterRegistry(ResilienceProperties properties) {
+        TimeLimiterRegistry registry = TimeLimiterRegistry.of(timeLimiterConfig(new ResilienceProperties.Service()));
+        for (String service : SERVICES) {
+            registry.timeLimiter(service, timeLimiterConfig(properties.serviceFor(service)))
+                    .getEventPublisher()
+                    .onTimeout(event -> log.warn("Time limiter '{}' cancelled a call", event.getTimeLimiterName()));
+        }
+        return registry;
+    }
+
+    @Bean
+    public RetryRegistry retryRegistry(ResilienceProperties properties) {
+        RetryRegistry registry = RetryRegistry.of(retryConfig(new ResilienceProperties.Service()));
+        for (String service : SERVICES) {
+            registry.retry(service, retryConfig(properties.serviceFor(service)))
+                    .getEventPublisher()
+                    .onRetry(event -> log.warn("Retry '{}' attempt {} after {}: {}", event.getName(),
+                            event.getNumberOfRetryAttempts(), event.getWaitInterval(),
+                            event.getLastThrowable().getMessage()));
+        }
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(ResilienceProperties properties) {
+        BulkheadRegistry registry = BulkheadRegistry.of(bulkheadConfig(new ResilienceProperties.Service()));
+        for (String service : SERVICES) {
+            registry.bulkhead(service, bulkheadConfig(properties.serviceFor(service)))
+                    .getEventPublisher()
+                    .onCallRejected(event -> log.warn("Bulkhead '{}' rejected a call", event.getBulkheadName()));
+        }
+        return registry;
+    }
+
+    private CircuitBreakerConfig circuitBreakerConfig(ResilienceProperties.Service settings) {
+        return CircuitBreakerConfig.custom()
                 .slidingWindowSize(10)
                 .failureRateThreshold(50)
                 .waitDurationInOpenState(Duration.ofSeconds(10))
+                // Reads served from snapshots make no calls while a breaker is open, so it has to half-open on
+                // its own for the background refresh to probe the service.
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
                 .permittedNumberOfCallsInHalfOpenState(3)
-                .slowCallDurationThreshold(Duration.ofSeconds(5))
+                // The time limiter cancels a call at the timeout, so a call is slow well before that, once it has
+                // used two thirds of its time.
+                .slowCallDurationThreshold(settings.getTimeout().multipliedBy(2).dividedBy(3))
                 .slowCallRateThreshold(50)
                 .recordExceptions(
                         IOException.class,
@@ -33,72 +107,37 @@ public class Resilience4jConfig {
                         TimeoutException.class,
                         RuntimeException.class
                 )
+                // A 4xx is the caller's fault and says nothing about the health of the service.
+                .ignoreExceptions(UpstreamClientErrorException.class)
                 .build();
+    }
 
-        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(circuitBreakerConfig);
-
-        io.github.resilience4j.circuitbreaker.CircuitBreaker customerCircuitBreaker =
-                registry.circuitBreaker("customerService");
-        log.info("Circuit breaker '{}' created with state: {}",
-                customerCircuitBreaker.getName(), customerCircuitBreaker.getState());
-
-        customerCircuitBreaker.getEventPublisher()
-                .onStateTransition(this::logStateTransition)
-                .onError(event -> log.error("Circuit breaker '{}' recorded an error: {}",
-                        event.getCircuitBreakerName(), event.getThrowable().getMessage()))
-                .onSuccess(event -> log.debug("Circuit breaker '{}' recorded a success",
-                        event.getCircuitBreakerName()));
-
-        io.github.resilience4j.circuitbreaker.CircuitBreaker accountCircuitBreaker =
-                registry.circuitBreaker("accountService");
-        log.info("Circuit breaker '{}' created with state: {}",
-                accountCircuitBreaker.getName(), accountCircuitBreaker.getState());
-
-        accountCircuitBreaker.getEventPublisher()
-                .onStateTransition(this::logStateTransition)
-                .onError(event -> log.error("Circuit breaker '{}' recorded an error: {}",
-                        event.getCircuitBreakerName(), event.getThrowable().getMessage()))
-                .onSuccess(event -> log.debug("Circuit breaker '{}' recorded a success",
-                        event.getCircuitBreakerName()));
-
-        io.github.resilience4j.circuitbreaker.CircuitBreaker creditCircuitBreaker =
-                registry.circuitBreaker("creditService");
-        log.info("Circuit breaker '{}' created with state: {}",
-                creditCircuitBreaker.getName(), creditCircuitBreaker.getState());
-
-        creditCircuitBreaker.getEventPublisher()
-                .onStateTransition(this::logStateTransition)
-                .onError(event -> log.error("Circuit breaker '{}' recorded an error: {}",
-                        event.getCircuitBreakerName(), event.getThrowable().getMessage()))
-                .onSuccess(event -> log.debug("Circuit breaker '{}' recorded a success",
-                        event.getCircuitBreakerName()));
-
-        io.github.resilience4j.circuitbreaker.CircuitBreaker debitCardCircuitBreaker =
-                registry.circuitBreaker("debitCardService");
-        log.info("Circuit breaker '{}' created with state: {}",
-                debitCardCircuitBreaker.getName(), debitCardCircuitBreaker.getState());
-
-        debitCardCircuitBreaker.getEventPublisher()
-                .onStateTransition(this::logStateTransition)
-                .onError(event -> log.error("Circuit breaker '{}' recorded an error: {}",
-                        event.getCircuitBreakerName(), event.getThrowable().getMessage()))
-                .onSuccess(event -> log.debug("Circuit breaker '{}' recorded a success",
-                        event.getCircuitBreakerName()));
-
-        io.github.resilience4j.circuitbreaker.CircuitBreaker transactionCircuitBreaker =
-                registry.circuitBreaker("transactionService");
-        log.info("Circuit breaker '{}' created with state: {}",
-                transactionCircuitBreaker.getName(), transactionCircuitBreaker.getState());
+    private TimeLimiterConfig timeLimiterConfig(ResilienceProperties.Service settings) {
+        return TimeLimiterConfig.custom()
+                .timeoutDuration(settings.getTimeout())
+                .cancelRunningFuture(true)
+                .build();
+    }
 
-        transactionCircuitBreaker.getEventPublisher()
-                .onStateTransition(this::logStateTransition)
-                .onError(event -> log.error("Circuit breaker '{}' recorded an error: {}",
-                        event.getCircuitBreakerName(), event.getThrowable().getMessage()))
-                .onSuccess(event -> log.debug("Circuit breaker '{}' recorded a success",
-                        event.getCircuitBreakerName()));
+    private RetryConfig retryConfig(ResilienceProperties.Service settings) {
+        return RetryConfig.custom()
+                .maxAttempts(Math.max(settings.getMaxAttempts(), 1))
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(settings.getInitialBackoff(),
+                        settings.getBackoffMultiplier(), settings.getJitter()))
+                // A 4xx will not change on a second attempt, and an open breaker or a full bulkhead must shed
+                // load instead of adding to it.
+                .ignoreExceptions(UpstreamClientErrorException.class, CallNotPermittedException.class,
+                        BulkheadFullException.class)
+                .build();
+    }
 
-        return registry;
+    private BulkheadConfig bulkheadConfig(ResilienceProperties.Service settings) {
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(settings.getMaxConcurrentCalls())
+                .maxWaitDuration(settings.getMaxWait())
+                .build();
     }
+
     private void logStateTransition(CircuitBreakerOnStateTransitionEvent event) {
         log.info("CircuitBreaker '{}' transitioned from {} to {}",
                 event.getCircuitBreakerName(),
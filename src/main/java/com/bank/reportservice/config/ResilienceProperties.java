@@ -0,0 +1,54 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.resilience")
+public class ResilienceProperties {
+    /**
+     * Time limiter, retry and bulkhead settings per downstream service, keyed by the circuit breaker name
+     * (customerService, accountService, creditService, debitCardService, transactionService). Services without an
+     * entry use the defaults of {@link Service}.
+     */
+    private Map<String, Service> services = new HashMap<>();
+
+    public Service serviceFor(String name) {
+        return services.getOrDefault(name, new Service());
+    }
+
+    @Data
+    public static class Service {
+        /**
+         * Time a single call may take before it is cancelled.
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+        /**
+         * Calls made at most for one request, the first one included. 1 disables retries.
+         */
+        private int maxAttempts = 3;
+        /**
+         * Wait before the first retry; later waits grow by {@link #backoffMultiplier}.
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private double backoffMultiplier = 2.0;
+        /**
+         * Random spread applied to every wait, as a fraction of it, so retries of many requests do not line up.
+         */
+        private double jitter = 0.5;
+        /**
+         * Calls to the service in flight at the same time.
+         */
+        private int maxConcurrentCalls = 25;
+        /**
+         * Time a call waits for a free slot before it is rejected.
+         */
+        private Duration maxWait = Duration.ZERO;
+    }
+}
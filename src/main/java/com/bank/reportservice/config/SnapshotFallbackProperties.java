@@ -0,0 +1,29 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.balances.snapshot-fallback")
+public class SnapshotFallbackProperties {
+    /**
+     * Serves customer balances from the latest daily balance snapshots while a balance circuit breaker is open.
+     */
+    private boolean enabled = true;
+    /**
+     * Oldest snapshot that may still be served.
+     */
+    private Duration maxAge = Duration.ofDays(3);
+    /**
+     * Customers served from snapshots that are remembered for a background refresh once the breaker half-opens.
+     */
+    private int maxPendingRefreshes = 1000;
+    /**
+     * Background refreshes run at the same time.
+     */
+    private int refreshConcurrency = 2;
+}
@@ -0,0 +1,28 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.transaction-summary")
+public class TransactionSummaryProperties {
+    /**
+     * Days covered by one upstream request. Longer ranges are split into windows of this size; 0 fetches the whole
+     * range at once.
+     */
+    private int windowDays = 7;
+    /**
+     * Windows fetched from the transaction service at the same time.
+     */
+    private int windowConcurrency = 4;
+    /**
+     * Keeps per-day partial summaries of closed days in Mongo and only fetches uncached or still-open days.
+     */
+    private boolean cacheEnabled = true;
+    /**
+     * Most recent days, today included, whose transactions can still change and are never cached.
+     */
+    private int openDays = 1;
+}
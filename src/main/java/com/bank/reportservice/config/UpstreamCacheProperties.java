@@ -0,0 +1,41 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.cache")
+public class UpstreamCacheProperties {
+    /**
+     * Turns the read-through cache in front of the upstream clients on or off. Off by default, so Redis is only
+     * needed where it was deliberately configured.
+     */
+    private boolean enabled = false;
+    /**
+     * Longest a cache read or write may take before the lookup gives up on Redis and calls the upstream service.
+     */
+    private Duration timeout = Duration.ofMillis(100);
+    /**
+     * Prefix of every key this service writes to Redis.
+     */
+    private String keyPrefix = "report-service:";
+    /**
+     * Time to live of cached entities that have no entry in {@link #ttl}.
+     */
+    private Duration defaultTtl = Duration.ofSeconds(30);
+    /**
+     * Time to live per cached entity, keyed by entity name (accounts, account, credits, credit-cards,
+     * debit-cards, debit-card).
+     */
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    public Duration ttlFor(String entity) {
+        return ttl.getOrDefault(entity, defaultTtl);
+    }
+}
@@ -0,0 +1,65 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.upstream")
+public class UpstreamHttpProperties {
+    /**
+     * Connection pool and HTTP settings per downstream service, keyed by service name (account, credit, customer,
+     * transaction). Services without an entry use the defaults of {@link Service}.
+     */
+    private Map<String, Service> services = new HashMap<>();
+
+    public Service serviceFor(String name) {
+        return services.getOrDefault(name, new Service());
+    }
+
+    @Data
+    public static class Service {
+        /**
+         * Connections kept open to the service at most.
+         */
+        private int maxConnections = 50;
+        /**
+         * Requests allowed to wait for a free connection before new ones are rejected.
+         */
+        private int pendingAcquireMaxCount = 200;
+        /**
+         * Time a request waits for a free connection.
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        /**
+         * Idle time after which a pooled connection is closed.
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        /**
+         * Age after which a pooled connection is closed, so load balancers can rebalance.
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        /**
+         * Interval of the background task that evicts idle and expired connections.
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        /**
+         * Maximum time between sending a request and receiving the response headers.
+         */
+        private Duration responseTimeout = Duration.ofSeconds(5);
+        /**
+         * Asks for gzip-compressed responses.
+         */
+        private boolean compression = true;
+        /**
+         * Speaks cleartext HTTP/2 (h2c) to the service, falling back to HTTP/1.1 when it is not supported.
+         */
+        private boolean h2c = false;
+    }
+}
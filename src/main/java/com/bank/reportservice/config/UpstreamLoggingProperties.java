@@ -0,0 +1,23 @@
+package com.bank.reportservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report.upstream.logging")
+public class UpstreamLoggingProperties {
+    /**
+     * Fraction of upstream responses, between 0 and 1, whose size and latency are logged at INFO.
+     */
+    private double sampleRate = 0.01;
+    /**
+     * Clients (account, credit, customer, debit-card, transaction) whose full response payloads are logged at DEBUG.
+     * Payloads are only rendered when DEBUG is enabled for {@code com.bank.reportservice.client} as well.
+     */
+    private Set<String> payloadClients = new HashSet<>();
+}
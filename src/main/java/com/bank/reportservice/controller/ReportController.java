@@ -2,15 +2,19 @@ package com.bank.reportservice.controller;
 
 import com.bank.reportservice.dto.*;
 import com.bank.reportservice.service.ReportService;
+import com.bank.reportservice.service.TransactionGrouping;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
@@ -22,8 +26,9 @@ public class ReportController {
     private final ReportService reportService;
     @GetMapping("/balances/customer/{customerId}")
     public Mono<ResponseEntity<BaseResponse<CustomerBalances>>> getCustomerBalances(
-            @PathVariable String customerId) {
-        return reportService.getCustomerBalances(customerId)
+            @PathVariable String customerId,
+            @RequestParam(required = false) Boolean partial) {
+        return reportService.getCustomerBalances(customerId, partial)
                 .map(balances -> ResponseEntity.ok(BaseResponse.<CustomerBalances>builder()
                         .status(HttpStatus.OK.value())
                         .message("Customer balances retrieved successfully")
@@ -91,12 +96,22 @@ public class ReportController {
                                     .build()));
                 });
     }
+    @GetMapping(value = "/movements/customer/{customerId}/product/{productId}/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<ProductMovement> streamProductMovements(
+            @PathVariable String customerId,
+            @PathVariable String productId) {
+        return reportService.streamProductMovements(customerId, productId)
+                .doOnError(e -> log.error("Error streaming product movements", e));
+    }
     @GetMapping("/movements/customer/{customerId}/card/{cardId}/recent")
     public Mono<ResponseEntity<BaseResponse<List<ProductMovement>>>> getRecentCardMovements(
             @PathVariable String customerId,
             @PathVariable String cardId,
-            @RequestParam(defaultValue = "10") int limit) {
-        return reportService.getRecentCardMovements(customerId, cardId, limit)
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId) {
+        return reportService.getRecentCardMovements(customerId, cardId, limit, before, beforeId)
                 .map(movements -> ResponseEntity.ok(BaseResponse.<List<ProductMovement>>builder()
                         .status(HttpStatus.OK.value())
                         .message("Recent " + cardId + " card movements retrieved successfully")
@@ -116,17 +131,42 @@ public class ReportController {
                                     .build()));
                 });
     }
+    @GetMapping(value = "/movements/customer/{customerId}/card/{cardId}/recent/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<ProductMovement> streamRecentCardMovements(
+            @PathVariable String customerId,
+            @PathVariable String cardId,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(required = false) String beforeId) {
+        return reportService.streamRecentCardMovements(customerId, cardId, limit, before, beforeId)
+                .doOnError(e -> log.error("Error streaming recent card movements", e));
+    }
     @GetMapping("/{customerId}/summary")
-    public Mono<ResponseEntity<List<DailyBalanceSummary>>> getMonthlyBalanceSummary(@PathVariable String customerId) {
-        return reportService.getMonthlyBalanceSummary(customerId)
+    public Mono<ResponseEntity<List<DailyBalanceSummary>>> getMonthlyBalanceSummary(
+            @PathVariable String customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        if (startDate == null && endDate == null) {
+            return reportService.getMonthlyBalanceSummary(customerId)
+                    .map(ResponseEntity::ok)
+                    .defaultIfEmpty(ResponseEntity.notFound().build());
+        }
+        LocalDate last = endDate != null ? endDate : LocalDate.now();
+        LocalDate first = startDate != null ? startDate : last.withDayOfMonth(1);
+        if (first.isAfter(last)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return reportService.getBalanceSummary(customerId, first, last)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     @GetMapping("/transactions/summary")
     public Mono<ResponseEntity<BaseResponse<List<CategorySummary>>>> getTransactionSummary(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        return reportService.fetchTransactionSummaryByDate(startDate, endDate)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "CATEGORY") TransactionGrouping groupBy) {
+        return reportService.fetchTransactionSummaryByDate(startDate, endDate, groupBy)
                 .map(ResponseEntity::ok);
     }
 }
@@ -0,0 +1,34 @@
+package com.bank.reportservice.dto;
+
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Change event published by the account, credit and card services. It carries the product's balance after the
+ * change, so applying it is an overwrite and replaying it is harmless.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceChangeEvent {
+    private String customerId;
+    private String productId;
+    private ProductCategory type;
+    private ProductSubType subType;
+    private BigDecimal availableBalance;
+    private LocalDateTime createdAt;
+    private LocalDateTime occurredAt;
+    private boolean closed;
+    /**
+     * Account a debit card draws on. Only debit card changes carry it; when absent the stored link is kept.
+     */
+    private String linkedAccountId;
+}
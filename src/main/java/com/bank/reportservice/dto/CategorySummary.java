@@ -1,10 +1,13 @@
 package com.bank.reportservice.dto;
 import lombok.*;
 
+import java.math.BigDecimal;
+
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class CategorySummary {
     private String category;
-    private int quantity;
-    private double commissions;
+    private long quantity;
+    private BigDecimal commissions;
 }
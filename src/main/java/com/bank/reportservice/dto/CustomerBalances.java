@@ -1,8 +1,11 @@
 package com.bank.reportservice.dto;
 
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -10,4 +13,12 @@ import java.util.List;
 public class CustomerBalances {
     private String customerId;
     private List<ProductBalance> products;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean partial; //Only set for partial-mode responses
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ProductCategory> missingFamilies; //Families that missed their deadline and have no snapshot
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ProductCategory> staleFamilies; //Families served from the last daily balance snapshot
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime asOf; //When the balances were read; the oldest snapshot date for snapshot responses
 }
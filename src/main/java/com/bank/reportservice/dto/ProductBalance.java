@@ -2,6 +2,8 @@ package com.bank.reportservice.dto;
 
 import com.bank.reportservice.model.transaction.ProductCategory;
 import com.bank.reportservice.model.transaction.ProductSubType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -16,4 +18,8 @@ public class ProductBalance {
     private ProductSubType subType;
     private LocalDateTime createdAt;
     private BigDecimal availableBalance;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime asOf; //Only set when the balance comes from a daily balance snapshot
+    @JsonIgnore
+    private String linkedAccountId; //Account a debit card draws on, kept for the balance view
 }
@@ -0,0 +1,73 @@
+package com.bank.reportservice.listener;
+
+import com.bank.reportservice.config.BalanceViewProperties;
+import com.bank.reportservice.dto.BalanceChangeEvent;
+import com.bank.reportservice.service.CustomerBalanceViewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies balance change events to the materialized customer view. A batch is acknowledged only after every event
+ * in it reached Mongo; a failed batch is left uncommitted and redelivered, which the view absorbs because applying
+ * an event twice, or after a newer one, changes nothing.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "report.balance-view", name = "enabled", havingValue = "true")
+public class BalanceChangeListener {
+    private final CustomerBalanceViewService viewService;
+    private final ObjectMapper objectMapper;
+    private final BalanceViewProperties properties;
+
+    public BalanceChangeListener(CustomerBalanceViewService viewService,
+                                 ObjectMapper objectMapper,
+                                 BalanceViewProperties properties) {
+        this.viewService = viewService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @KafkaListener(topics = "#{@balanceViewProperties.topics}",
+            containerFactory = "balanceViewListenerContainerFactory")
+    public void onBalanceChanges(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        List<BalanceChangeEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            BalanceChangeEvent event = parse(record);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        Flux.fromIterable(events)
+                .flatMap(viewService::apply, properties.getApplyConcurrency())
+                .then()
+                .block();
+        acknowledgment.acknowledge();
+        log.debug("Applied {} balance change events out of {} records", events.size(), records.size());
+    }
+
+    private BalanceChangeEvent parse(ConsumerRecord<String, String> record) {
+        try {
+            BalanceChangeEvent event = objectMapper.readValue(record.value(), BalanceChangeEvent.class);
+            if (event.getCustomerId() == null || event.getProductId() == null || event.getOccurredAt() == null) {
+                log.warn("Skipping incomplete balance change event at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                return null;
+            }
+            return event;
+        } catch (Exception e) {
+            // A record that can never be parsed would otherwise block its partition forever.
+            log.error("Skipping unreadable balance change event at {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return null;
+        }
+    }
+}
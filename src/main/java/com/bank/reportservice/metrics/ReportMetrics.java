@@ -0,0 +1,180 @@
+package com.bank.reportservice.metrics;
+
+import com.bank.reportservice.model.transaction.ProductCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Latency, error and concurrency meters for the report pipelines, so the time spent per downstream service and
+ * product category can be read from the metrics backend instead of a profiler. Every timer publishes a percentile
+ * histogram and is tagged with {@code outcome=success|error|cancelled}; every family has an {@code .in_flight}
+ * gauge.
+ * <ul>
+ *     <li>{@code report.upstream.requests}: each client call, tagged with {@code service}, {@code operation} and
+ *     {@code category}, plus the {@code report.upstream.fallbacks} counter when a client gives up on the
+ *     service;</li>
+ *     <li>{@code report.operations}: the public report operations, tagged with {@code operation}, plus the
+ *     {@code .errors} counter by exception type and the {@code .fallbacks} counter when a result is served from a
+ *     secondary source;</li>
+ *     <li>{@code report.job.stage}: the daily balance job stages, tagged with {@code stage} and {@code category},
+ *     plus the {@code .errors} counter by exception type.</li>
+ * </ul>
+ */
+@Component
+public class ReportMetrics {
+    /**
+     * Tag value for meters that do not belong to a single product category, e.g. customer or transaction calls.
+     */
+    public static final String NO_CATEGORY = "none";
+
+    private static final String UPSTREAM = "report.upstream.requests";
+    private static final String OPERATIONS = "report.operations";
+    private static final String JOB_STAGE = "report.job.stage";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public ReportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> upstream(String service, String operation) {
+        return upstream(service, operation, null);
+    }
+
+    /**
+     * Times a client call end to end, retries and hedges included. Any error reaching this point makes the client
+     * fall back, so it is also counted in {@code report.upstream.fallbacks}.
+     */
+    public <T> Function<Mono<T>, Mono<T>> upstream(String service, String operation, ProductCategory category) {
+        Tags tags = Tags.of("service", service, "operation", operation, "category", categoryOf(category));
+        AtomicInteger gauge = inFlight(UPSTREAM, Tags.of("service", service));
+        return call -> Mono.defer(() -> {
+            Timer.Sample sample = start(gauge);
+            return call.doOnError(error -> fallback(service, operation, category, error))
+                    .doFinally(signal -> stop(sample, gauge, UPSTREAM, tags, signal));
+        });
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> upstreamStream(String service, String operation) {
+        return upstreamStream(service, operation, null);
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> upstreamStream(String service, String operation,
+                                                         ProductCategory category) {
+        Tags tags = Tags.of("service", service, "operation", operation, "category", categoryOf(category));
+        AtomicInteger gauge = inFlight(UPSTREAM, Tags.of("service", service));
+        return call -> Flux.defer(() -> {
+            Timer.Sample sample = start(gauge);
+            return call.doOnError(error -> fallback(service, operation, category, error))
+                    .doFinally(signal -> stop(sample, gauge, UPSTREAM, tags, signal));
+        });
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> operation(String operation) {
+        Tags tags = Tags.of("operation", operation);
+        AtomicInteger gauge = inFlight(OPERATIONS, tags);
+        return call -> Mono.defer(() -> {
+            Timer.Sample sample = start(gauge);
+            return call.doOnError(error -> error(OPERATIONS, tags, error))
+                    .doFinally(signal -> stop(sample, gauge, OPERATIONS, tags, signal));
+        });
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> operationStream(String operation) {
+        Tags tags = Tags.of("operation", operation);
+        AtomicInteger gauge = inFlight(OPERATIONS, tags);
+        return call -> Flux.defer(() -> {
+            Timer.Sample sample = start(gauge);
+            return call.doOnError(error -> error(OPERATIONS, tags, error))
+                    .doFinally(signal -> stop(sample, gauge, OPERATIONS, tags, signal));
+        });
+    }
+
+    /**
+     * Records that an operation answered without the live data of a product category, e.g. from balance snapshots
+     * while a breaker is open; {@code category} is {@code null} when the whole answer came from {@code source}.
+     */
+    public void operationFallback(String operation, String source, ProductCategory category) {
+        Counter.builder(OPERATIONS + ".fallbacks")
+                .description("Report operations served from a secondary source")
+                .tags("operation", operation, "source", source, "category", categoryOf(category))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> jobStage(String stage) {
+        return jobStage(stage, null);
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> jobStage(String stage, ProductCategory category) {
+        Tags tags = Tags.of("stage", stage, "category", categoryOf(category));
+        AtomicInteger gauge = inFlight(JOB_STAGE, Tags.of("stage", stage));
+        return call -> Mono.defer(() -> {
+            Timer.Sample sample = start(gauge);
+            return call.doOnError(error -> error(JOB_STAGE, tags, error))
+                    .doFinally(signal -> stop(sample, gauge, JOB_STAGE, tags, signal));
+        });
+    }
+
+    private Timer.Sample start(AtomicInteger gauge) {
+        gauge.incrementAndGet();
+        return Timer.start(meterRegistry);
+    }
+
+    private void stop(Timer.Sample sample, AtomicInteger gauge, String name, Tags tags, SignalType signal) {
+        gauge.decrementAndGet();
+        sample.stop(Timer.builder(name)
+                .tags(tags.and("outcome", outcomeOf(signal)))
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private void fallback(String service, String operation, ProductCategory category, Throwable error) {
+        Counter.builder("report.upstream.fallbacks")
+                .description("Client calls that failed after resilience and fell back")
+                .tags("service", service, "operation", operation, "category", categoryOf(category),
+                        "exception", error.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void error(String name, Tags tags, Throwable error) {
+        Counter.builder(name + ".errors")
+                .tags(tags.and("exception", error.getClass().getSimpleName()))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private AtomicInteger inFlight(String name, Tags tags) {
+        String key = name + tags;
+        return inFlight.computeIfAbsent(key, ignored ->
+                meterRegistry.gauge(name + ".in_flight", tags, new AtomicInteger()));
+    }
+
+    private static String categoryOf(ProductCategory category) {
+        return category == null ? NO_CATEGORY : category.name();
+    }
+
+    private static String outcomeOf(SignalType signal) {
+        switch (signal) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancelled";
+        }
+    }
+}
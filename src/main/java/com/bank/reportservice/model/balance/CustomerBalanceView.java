@@ -0,0 +1,25 @@
+package com.bank.reportservice.model.balance;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "customer_balance_views")
+public class CustomerBalanceView {
+    @Id
+    private String id; //customerId
+    @Builder.Default
+    private Map<String, MaterializedProductBalance> products = new HashMap<>(); //keyed by productId
+    private LocalDateTime seededAt; //Set once a full fan-out has been folded in; the view is only served after that
+    private LocalDateTime updatedAt;
+    private Long version; //Bumped by every write, so a seed only writes back the products it read
+}
@@ -22,4 +22,5 @@ public class DailyBalance {
     private String subType;
     private BigDecimal balance;
     private LocalDateTime date;
+    private LocalDateTime productCreatedAt; //Creation time of the product, so snapshot-served balances carry it
 }
@@ -0,0 +1,27 @@
+package com.bank.reportservice.model.balance;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "daily_balance_checkpoints")
+public class DailyBalanceCheckpoint {
+    @Id
+    private String id; //runId:customerId
+    private String runId;
+    private String customerId;
+    private long productsSaved;
+    private long failures;
+    private LocalDateTime completedAt;
+
+    public static String idOf(String runId, String customerId) {
+        return runId + ":" + customerId;
+    }
+}
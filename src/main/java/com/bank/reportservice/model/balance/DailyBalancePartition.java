@@ -0,0 +1,32 @@
+package com.bank.reportservice.model.balance;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "daily_balance_partitions")
+public class DailyBalancePartition {
+    @Id
+    private String id; //runId:partition
+    private String runId;
+    private int partition;
+    private DailyBalanceRunStatus status;
+    private String owner; //Instance holding the lease
+    private LocalDateTime leaseUntil; //Another instance may take the partition over once this has passed
+    private int attempts; //Times the partition has been claimed, above one it resumes from checkpoints
+    private long customersProcessed;
+    private long productsSaved;
+    private long failures;
+    private LocalDateTime completedAt;
+
+    public static String idOf(String runId, int partition) {
+        return runId + ":" + partition;
+    }
+}
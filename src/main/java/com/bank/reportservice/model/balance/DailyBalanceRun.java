@@ -0,0 +1,27 @@
+package com.bank.reportservice.model.balance;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "daily_balance_runs")
+public class DailyBalanceRun {
+    @Id
+    private String id; //Date of the scheduled fire (yyyy-MM-dd), one run per day
+    private DailyBalanceRunStatus status;
+    private LocalDateTime snapshotTime; //Scheduled fire time, stamped on every snapshot of the run
+    private int partitions; //Customer partitions the run is split into, fixed when the run is opened
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long customersProcessed;
+    private long productsSaved;
+    private long failures;
+    private long wallTimeMillis;
+}
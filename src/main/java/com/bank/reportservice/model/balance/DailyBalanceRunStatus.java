@@ -0,0 +1,5 @@
+package com.bank.reportservice.model.balance;
+
+public enum DailyBalanceRunStatus {
+    RUNNING, COMPLETED, FAILED
+}
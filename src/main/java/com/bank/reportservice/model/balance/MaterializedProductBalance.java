@@ -0,0 +1,27 @@
+package com.bank.reportservice.model.balance;
+
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import lombok.*;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaterializedProductBalance {
+    private String productId;
+    private ProductCategory type;
+    private ProductSubType subType;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal availableBalance;
+    private LocalDateTime createdAt;
+    private LocalDateTime asOf; //Time of the change this entry reflects; older changes are ignored
+    private boolean closed;
+    private String linkedAccountId; //Account whose balance a debit card shows; null for other products
+}
@@ -0,0 +1,39 @@
+package com.bank.reportservice.model.balance;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "monthly_balance_rollups")
+public class MonthlyBalanceRollup {
+    @Id
+    private String id; //customerId:productId:yyyy-MM
+    private String customerId;
+    private String productId;
+    private String productType;
+    private String subType;
+    private String month; //yyyy-MM
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal sum;
+    private long count;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal min;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal max;
+    private LocalDateTime lastSnapshotDate; //Guards against applying the same daily snapshot twice
+    private LocalDateTime updatedAt;
+
+    public static String idOf(String customerId, String productId, String month) {
+        return customerId + ":" + productId + ":" + month;
+    }
+}
@@ -0,0 +1,29 @@
+package com.bank.reportservice.model.transaction;
+
+import com.bank.reportservice.dto.CategorySummary;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "daily_transaction_summaries")
+public class DailyTransactionSummary {
+    @Id
+    private String id; //grouping:yyyy-MM-dd, so a range of days is a range of _id values
+    private String grouping;
+    private LocalDate date;
+    private List<CategorySummary> entries;
+    private LocalDateTime computedAt;
+
+    public static String idOf(String grouping, LocalDate date) {
+        return grouping + ":" + date;
+    }
+}
@@ -0,0 +1,7 @@
+package com.bank.reportservice.repository;
+
+import com.bank.reportservice.model.balance.CustomerBalanceView;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface CustomerBalanceViewRepository extends ReactiveMongoRepository<CustomerBalanceView, String> {
+}
@@ -0,0 +1,9 @@
+package com.bank.reportservice.repository;
+
+import com.bank.reportservice.model.balance.DailyBalanceCheckpoint;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface DailyBalanceCheckpointRepository extends ReactiveMongoRepository<DailyBalanceCheckpoint, String> {
+    Mono<Long> deleteByRunId(String runId);
+}
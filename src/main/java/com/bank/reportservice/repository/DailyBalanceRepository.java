@@ -1,11 +1,22 @@
 package com.bank.reportservice.repository;
 
 import com.bank.reportservice.model.balance.DailyBalance;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 
-public interface DailyBalanceRepository extends ReactiveMongoRepository <DailyBalance, String> {
+public interface DailyBalanceRepository extends ReactiveMongoRepository <DailyBalance, String>,
+        DailyBalanceRepositoryCustom {
     Flux<DailyBalance> findByCustomerIdAndDateBetween(String customerId, LocalDateTime first, LocalDateTime last);
+    /**
+     * Projection-only read of a customer's snapshots, answered from the covering
+     * customer/date/product index without touching the documents.
+     */
+    @Query(value = "{ 'customerId': ?0, 'date': { $gte: ?1, $lte: ?2 } }",
+            fields = "{ '_id': 0, 'productId': 1, 'productType': 1, 'subType': 1, 'balance': 1 }")
+    Flux<DailyBalance> findBalanceSnapshots(String customerId, LocalDateTime first, LocalDateTime last);
+    Mono<Long> deleteByCustomerIdAndDate(String customerId, LocalDateTime date);
 }
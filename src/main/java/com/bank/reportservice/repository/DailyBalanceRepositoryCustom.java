@@ -0,0 +1,13 @@
+package com.bank.reportservice.repository;
+
+import com.bank.reportservice.dto.DailyBalanceSummary;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+public interface DailyBalanceRepositoryCustom {
+    /**
+     * Averages a customer's snapshots per product inside Mongo, so only one summary row per product is returned.
+     */
+    Flux<DailyBalanceSummary> summarizeBalances(String customerId, LocalDateTime first, LocalDateTime last);
+}
@@ -0,0 +1,36 @@
+package com.bank.reportservice.repository;
+
+import com.bank.reportservice.dto.DailyBalanceSummary;
+import com.bank.reportservice.model.balance.DailyBalance;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+public class DailyBalanceRepositoryCustomImpl implements DailyBalanceRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public DailyBalanceRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<DailyBalanceSummary> summarizeBalances(String customerId, LocalDateTime first, LocalDateTime last) {
+        // Snapshots store balance as a string; averaging on Decimal128 keeps the result exact.
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("customerId").is(customerId)
+                        .and("date").gte(first).lte(last)),
+                Aggregation.group("productId")
+                        .first("productType").as("productType")
+                        .first("subType").as("subType")
+                        .avg(ConvertOperators.valueOf(ConditionalOperators.ifNull("balance").then("0"))
+                                .convertToDecimal()).as("averageBalance"),
+                Aggregation.project("productType", "subType", "averageBalance")
+                        .and("productId").previousOperation());
+        return mongoTemplate.aggregate(aggregation, DailyBalance.class, DailyBalanceSummary.class);
+    }
+}
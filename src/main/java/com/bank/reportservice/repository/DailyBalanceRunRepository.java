@@ -0,0 +1,10 @@
+package com.bank.reportservice.repository;
+
+import com.bank.reportservice.model.balance.DailyBalanceRun;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface DailyBalanceRunRepository extends ReactiveMongoRepository<DailyBalanceRun, String> {
+    // Run ids are ISO dates, so they sort by day.
+    Mono<DailyBalanceRun> findFirstByOrderByIdDesc();
+}
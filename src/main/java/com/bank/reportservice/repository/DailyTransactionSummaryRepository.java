@@ -0,0 +1,11 @@
+package com.bank.reportservice.repository;
+
+import com.bank.reportservice.model.transaction.DailyTransactionSummary;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface DailyTransactionSummaryRepository extends ReactiveMongoRepository<DailyTransactionSummary, String> {
+    @Query("{ '_id': { $gte: ?0, $lte: ?1 } }")
+    Flux<DailyTransactionSummary> findByIdRange(String firstId, String lastId);
+}
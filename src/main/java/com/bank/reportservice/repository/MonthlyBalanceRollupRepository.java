@@ -0,0 +1,9 @@
+package com.bank.reportservice.repository;
+
+import com.bank.reportservice.model.balance.MonthlyBalanceRollup;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface MonthlyBalanceRollupRepository extends ReactiveMongoRepository<MonthlyBalanceRollup, String> {
+    Flux<MonthlyBalanceRollup> findByCustomerIdAndMonth(String customerId, String month);
+}
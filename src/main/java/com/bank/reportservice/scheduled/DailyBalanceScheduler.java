@@ -3,21 +3,49 @@ package com.bank.reportservice.scheduled;
 import com.bank.reportservice.service.DailyBalanceService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
 @Component
 @Slf4j
 public class DailyBalanceScheduler {
+    private static final String DAILY_BALANCE_CRON = "59 59 23 * * ?";
     private final DailyBalanceService dailyBalanceService;
+    private final AtomicInteger activeJobs = new AtomicInteger();
 
     public DailyBalanceScheduler(DailyBalanceService dailyBalanceService) {
         this.dailyBalanceService = dailyBalanceService;
     }
 
-    @Scheduled(cron = "59 59 23 * * ?")
+    // Fires on every instance; the instances share the run by leasing its customer partitions.
+    @Scheduled(cron = DAILY_BALANCE_CRON)
     public void executeDailyBalanceJob() {
         log.info("Starting the scheduled process of daily balances...");
-        dailyBalanceService.processDailyBalances()
+        activeJobs.incrementAndGet();
+        dailyBalanceService.processDailyBalances(scheduledFireTime(LocalDateTime.now()))
                 .doOnSuccess(unused -> log.info("Daily balances process completed correctly."))
+                .doFinally(signal -> activeJobs.decrementAndGet())
                 .subscribe();
     }
-}
\ No newline at end of file
+
+    // Also fires right after startup, so a run interrupted by the restart of every instance does not wait a day.
+    @Scheduled(fixedDelayString = "${report.daily-balance.resume-interval:PT15M}")
+    public void resumeDailyBalanceJob() {
+        if (!activeJobs.compareAndSet(0, 1)) {
+            return;
+        }
+        Mono.defer(dailyBalanceService::resumeUnfinishedRun)
+                .doOnNext(run -> log.info("Daily balance run {} resumed and completed.", run.getId()))
+                .doFinally(signal -> activeJobs.decrementAndGet())
+                .subscribe(run -> { }, e -> log.error("Unable to resume the daily balance run: {}", e.getMessage()));
+    }
+
+    // The fire closest to now: an instance whose scheduler runs late, past midnight, still gets the day it was
+    // scheduled for rather than the next one.
+    static LocalDateTime scheduledFireTime(LocalDateTime now) {
+        return CronExpression.parse(DAILY_BALANCE_CRON).next(now.minusHours(12));
+    }
+}
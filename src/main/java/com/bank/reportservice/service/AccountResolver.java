@@ -0,0 +1,59 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.client.AccountClientService;
+import com.bank.reportservice.model.account.Account;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves accounts by ID for the duration of a single request. Accounts the caller already fetched are answered
+ * locally and every miss is batched into one multi-ID lookup, so a customer with many debit cards costs a
+ * constant number of upstream calls.
+ */
+public class AccountResolver {
+    private final AccountClientService accountClient;
+    private final Map<String, Account> accounts = new HashMap<>();
+
+    public AccountResolver(AccountClientService accountClient, Collection<Account> knownAccounts) {
+        this.accountClient = accountClient;
+        if (knownAccounts != null) {
+            knownAccounts.forEach(account -> accounts.put(account.getId(), account));
+        }
+    }
+
+    /**
+     * Emits the requested accounts keyed by ID. IDs the account service does not know are left out of the map.
+     */
+    public Mono<Map<String, Account>> resolve(Collection<String> accountIds) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String accountId : accountIds) {
+            if (accountId != null && !accounts.containsKey(accountId)) {
+                missing.add(accountId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(select(accountIds));
+        }
+        return accountClient.getAccountsByIds(missing)
+                .map(fetched -> {
+                    fetched.forEach(account -> accounts.put(account.getId(), account));
+                    return select(accountIds);
+                });
+    }
+
+    private Map<String, Account> select(Collection<String> accountIds) {
+        Map<String, Account> selected = new HashMap<>();
+        for (String accountId : accountIds) {
+            Account account = accountId != null ? accounts.get(accountId) : null;
+            if (account != null) {
+                selected.put(accountId, account);
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.SnapshotFallbackProperties;
+import com.bank.reportservice.dto.ProductBalance;
+import com.bank.reportservice.model.account.AccountType;
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.credit.CreditType;
+import com.bank.reportservice.model.creditcard.CreditCardType;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import com.bank.reportservice.repository.DailyBalanceRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Stale-while-revalidate for customer balances: while a circuit breaker behind the balance fan-out is open, the
+ * product families behind it are served from the latest daily balance snapshot of each product, and the customer is
+ * remembered. The other families, and every family once its breaker half-opens, are fetched live. When a breaker
+ * half-opens, the remembered customers are also refreshed in the background.
+ */
+@Service
+@Slf4j
+public class BalanceSnapshotFallback {
+    // Debit card balances are the balances of their primary accounts, so they also depend on the account service.
+    static final Map<String, List<ProductCategory>> FAMILIES_BY_SERVICE = Map.of(
+            "accountService", List.of(ProductCategory.ACCOUNT, ProductCategory.DEBIT_CARD),
+            "creditService", List.of(ProductCategory.CREDIT, ProductCategory.CREDIT_CARD),
+            "debitCardService", List.of(ProductCategory.DEBIT_CARD));
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final SnapshotFallbackProperties properties;
+    private final Map<String, Supplier<Mono<Void>>> pendingRefreshes = new ConcurrentHashMap<>();
+
+    public BalanceSnapshotFallback(CircuitBreakerRegistry circuitBreakerRegistry,
+                                   DailyBalanceRepository dailyBalanceRepository,
+                                   SnapshotFallbackProperties properties) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.properties = properties;
+        FAMILIES_BY_SERVICE.keySet().forEach(service -> circuitBreakerRegistry.circuitBreaker(service)
+                .getEventPublisher()
+                .onStateTransition(event -> {
+                    if (event.getStateTransition().getToState() == CircuitBreaker.State.HALF_OPEN) {
+                        refreshPending();
+                    }
+                }));
+    }
+
+    /**
+     * The product families whose circuit breaker rejects every call. A half-open breaker is left out, so that live
+     * traffic probes the recovering service.
+     */
+    public Set<ProductCategory> openFamilies() {
+        Set<ProductCategory> open = EnumSet.noneOf(ProductCategory.class);
+        if (!properties.isEnabled()) {
+            return open;
+        }
+        FAMILIES_BY_SERVICE.forEach((service, families) -> {
+            CircuitBreaker.State state = circuitBreakerRegistry.circuitBreaker(service).getState();
+            if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN) {
+                open.addAll(families);
+            }
+        });
+        return open;
+    }
+
+    /**
+     * Emits the products of the given families built from the latest snapshot of each product, or completes empty
+     * when the customer has no snapshot recent enough. A family with no product in the snapshots had none as of the
+     * run. {@code refresh} is run in the background once a breaker half-opens.
+     */
+    public Mono<List<ProductBalance>> serve(String customerId, Set<ProductCategory> families,
+                                            Supplier<Mono<Void>> refresh) {
+        if (pendingRefreshes.size() < properties.getMaxPendingRefreshes()) {
+            pendingRefreshes.putIfAbsent(customerId, refresh);
+        }
+        Set<String> served = families.stream().map(Enum::name).collect(Collectors.toSet());
+        LocalDateTime now = LocalDateTime.now();
+        return dailyBalanceRepository.findByCustomerIdAndDateBetween(customerId,
+                        now.minus(properties.getMaxAge()), now)
+                .filter(snapshot -> snapshot.getDate() != null && snapshot.getProductType() != null)
+                .collect(LinkedHashMap<String, DailyBalance>::new, (latest, snapshot) -> latest.merge(
+                        snapshot.getProductId(), snapshot, (a, b) -> a.getDate().isAfter(b.getDate()) ? a : b))
+                .filter(latest -> !latest.isEmpty())
+                .map(latest -> latest.values().stream()
+                        .filter(snapshot -> served.contains(snapshot.getProductType()))
+                        .map(BalanceSnapshotFallback::toProductBalance)
+                        .collect(Collectors.toList()))
+                .doOnNext(products -> log.warn("Serving {} of customer {} from snapshots", families, customerId));
+    }
+
+    static ProductBalance toProductBalance(DailyBalance snapshot) {
+        ProductCategory type = ProductCategory.valueOf(snapshot.getProductType());
+        return ProductBalance.builder()
+                .productId(snapshot.getProductId())
+                .type(type)
+                .subType(parseSubType(type, snapshot.getSubType()))
+                .availableBalance(snapshot.getBalance())
+                .createdAt(snapshot.getProductCreatedAt())
+                .asOf(snapshot.getDate())
+                .build();
+    }
+
+    /**
+     * Snapshots store the upstream type of each family (AccountType, CreditType, CreditCardType names), which is
+     * mapped the same way the live fan-out maps it. Debit cards have no subtype, as in the live response.
+     */
+    private static ProductSubType parseSubType(ProductCategory type, String subType) {
+        if (subType == null) {
+            return null;
+        }
+        try {
+            switch (type) {
+                case ACCOUNT:
+                    return ReportService.mapAccountType(AccountType.valueOf(subType));
+                case CREDIT:
+                    return ReportService.mapCreditType(CreditType.valueOf(subType));
+                case CREDIT_CARD:
+                    return ReportService.mapCreditCardType(CreditCardType.valueOf(subType));
+                default:
+                    return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    void refreshPending() {
+        List<String> customers = new ArrayList<>(pendingRefreshes.keySet());
+        if (customers.isEmpty()) {
+            return;
+        }
+        log.info("Refreshing balances of {} customers served from snapshots", customers.size());
+        Flux.fromIterable(customers)
+                .flatMap(customerId -> {
+                    Supplier<Mono<Void>> refresh = pendingRefreshes.remove(customerId);
+                    if (refresh == null) {
+                        return Mono.empty();
+                    }
+                    return Mono.defer(refresh)
+                            .onErrorResume(error -> {
+                                log.warn("Background refresh of customer {} failed: {}", customerId,
+                                        error.getMessage());
+                                return Mono.empty();
+                            });
+                }, Math.max(properties.getRefreshConcurrency(), 1))
+                .subscribe();
+    }
+}
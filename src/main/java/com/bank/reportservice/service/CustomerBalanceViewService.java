@@ -0,0 +1,185 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.BalanceViewProperties;
+import com.bank.reportservice.dto.BalanceChangeEvent;
+import com.bank.reportservice.dto.CustomerBalances;
+import com.bank.reportservice.dto.ProductBalance;
+import com.bank.reportservice.model.balance.CustomerBalanceView;
+import com.bank.reportservice.model.balance.MaterializedProductBalance;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.repository.CustomerBalanceViewRepository;
+import org.bson.types.Decimal128;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains one document per customer holding the latest known balance of each product. Change events are folded in
+ * with a conditional write: a product entry only moves forward in time, so replays after a rebalance and events
+ * arriving out of order leave the view unchanged. HTTP fan-out results replace the products under the same rule.
+ * A debit card shows the balance of the account it draws on, so an account change is carried over to the cards
+ * linked to it.
+ */
+@Service
+public class CustomerBalanceViewService {
+    private static final int SEED_RETRIES = 3;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CustomerBalanceViewRepository viewRepository;
+    private final BalanceViewProperties properties;
+
+    public CustomerBalanceViewService(ReactiveMongoTemplate mongoTemplate,
+                                      CustomerBalanceViewRepository viewRepository,
+                                      BalanceViewProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.viewRepository = viewRepository;
+        this.properties = properties;
+    }
+
+    public Mono<Void> apply(BalanceChangeEvent event) {
+        Mono<Void> applied = applyProduct(event);
+        return event.getType() == ProductCategory.ACCOUNT
+                ? applied.then(Mono.defer(() -> applyToLinkedDebitCards(event)))
+                : applied;
+    }
+
+    private Mono<Void> applyProduct(BalanceChangeEvent event) {
+        String path = "products." + event.getProductId();
+        Query query = Query.query(Criteria.where("_id").is(event.getCustomerId())
+                .orOperator(Criteria.where(path + ".asOf").exists(false),
+                        Criteria.where(path + ".asOf").lt(event.getOccurredAt())));
+        Update update = new Update()
+                .set(path + ".productId", event.getProductId())
+                .set(path + ".type", event.getType())
+                .set(path + ".subType", event.getSubType())
+                .set(path + ".availableBalance", event.getAvailableBalance() != null
+                        ? new Decimal128(event.getAvailableBalance()) : null)
+                .set(path + ".createdAt", event.getCreatedAt())
+                .set(path + ".asOf", event.getOccurredAt())
+                .set(path + ".closed", event.isClosed())
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+        if (event.getLinkedAccountId() != null) {
+            update.set(path + ".linkedAccountId", event.getLinkedAccountId());
+        }
+        return mongoTemplate.upsert(query, update, CustomerBalanceView.class)
+                .then()
+                // A duplicate key means the document exists but did not match: either this change is not newer
+                // than the stored one, or another writer created the document first. Retrying as a plain update
+                // settles both cases.
+                .onErrorResume(DuplicateKeyException.class, e ->
+                        mongoTemplate.updateFirst(query, update, CustomerBalanceView.class).then());
+    }
+
+    private Mono<Void> applyToLinkedDebitCards(BalanceChangeEvent event) {
+        return viewRepository.findById(event.getCustomerId())
+                .flatMapMany(view -> Flux.fromIterable(view.getProducts().values()))
+                .filter(product -> product.getType() == ProductCategory.DEBIT_CARD
+                        && event.getProductId().equals(product.getLinkedAccountId()))
+                .concatMap(card -> applyProduct(BalanceChangeEvent.builder()
+                        .customerId(event.getCustomerId())
+                        .productId(card.getProductId())
+                        .type(ProductCategory.DEBIT_CARD)
+                        .subType(card.getSubType())
+                        .availableBalance(event.getAvailableBalance())
+                        .createdAt(card.getCreatedAt())
+                        .occurredAt(event.getOccurredAt())
+                        .closed(card.isClosed())
+                        .linkedAccountId(card.getLinkedAccountId())
+                        .build()))
+                .then();
+    }
+
+    /**
+     * Replaces the products of the view with a full fan-out result and marks it as complete, making it eligible to
+     * be served. Products missing from the result are dropped, so deleted products do not linger. Entries changed
+     * after {@code asOf} are newer than the fan-out and kept as they are, and a seed older than the last one is
+     * ignored. The view is written back on the version it was read at; a concurrent change reads and merges again.
+     */
+    public Mono<Void> seed(CustomerBalances balances, LocalDateTime asOf) {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        String customerId = balances.getCustomerId();
+        return Mono.defer(() -> viewRepository.findById(customerId)
+                        .defaultIfEmpty(CustomerBalanceView.builder().id(customerId).build())
+                        .filter(view -> view.getSeededAt() == null || view.getSeededAt().isBefore(asOf))
+                        .flatMap(view -> replaceProducts(view, seededProducts(balances, asOf, view), asOf)))
+                // Another writer changed the view between the read and the write.
+                .retryWhen(Retry.max(SEED_RETRIES).filter(DuplicateKeyException.class::isInstance));
+    }
+
+    private Map<String, MaterializedProductBalance> seededProducts(CustomerBalances balances, LocalDateTime asOf,
+                                                                   CustomerBalanceView view) {
+        Map<String, MaterializedProductBalance> products = new HashMap<>();
+        balances.getProducts().forEach(product -> products.put(product.getProductId(),
+                MaterializedProductBalance.builder()
+                        .productId(product.getProductId())
+                        .type(product.getType())
+                        .subType(product.getSubType())
+                        .availableBalance(product.getAvailableBalance())
+                        .createdAt(product.getCreatedAt())
+                        .asOf(asOf)
+                        .linkedAccountId(product.getLinkedAccountId())
+                        .build()));
+        view.getProducts().forEach((productId, stored) -> {
+            if (stored.getAsOf() != null && stored.getAsOf().isAfter(asOf)) {
+                products.put(productId, stored);
+            }
+        });
+        return products;
+    }
+
+    // A version that moved on, or a document another writer created first, makes the upsert collide on _id.
+    private Mono<Void> replaceProducts(CustomerBalanceView view, Map<String, MaterializedProductBalance> products,
+                                       LocalDateTime asOf) {
+        Query query = Query.query(Criteria.where("_id").is(view.getId()).and("version").is(view.getVersion()));
+        Update update = new Update()
+                .set("products", products)
+                .set("seededAt", asOf)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("version", 1);
+        return mongoTemplate.upsert(query, update, CustomerBalanceView.class).then();
+    }
+
+    /**
+     * Emits the customer's balances from the view, or completes empty when the view is disabled, has not been
+     * seeded for this customer yet or was last seeded longer than {@code maxAge} ago, so the caller fetches live.
+     */
+    public Mono<CustomerBalances> findCustomerBalances(String customerId) {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        return viewRepository.findById(customerId)
+                .filter(view -> view.getSeededAt() != null
+                        && !view.getSeededAt().isBefore(LocalDateTime.now().minus(properties.getMaxAge())))
+                .map(view -> CustomerBalances.builder()
+                        .customerId(customerId)
+                        .products(view.getProducts().values().stream()
+                                .filter(product -> !product.isClosed())
+                                .sorted(Comparator.comparing(MaterializedProductBalance::getType,
+                                        Comparator.nullsLast(Comparator.naturalOrder())))
+                                .map(product -> ProductBalance.builder()
+                                        .productId(product.getProductId())
+                                        .type(product.getType())
+                                        .subType(product.getSubType())
+                                        .availableBalance(product.getAvailableBalance())
+                                        .createdAt(product.getCreatedAt())
+                                        .linkedAccountId(product.getLinkedAccountId())
+                                        .build())
+                                .collect(Collectors.toList()))
+                        .asOf(view.getUpdatedAt())
+                        .build());
+    }
+}
@@ -0,0 +1,138 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.DailyBalanceJobProperties;
+import com.bank.reportservice.model.balance.DailyBalancePartition;
+import com.bank.reportservice.model.balance.DailyBalanceRunStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mongo-backed leases over the customer partitions of a daily balance run. A partition is claimed with a conditional
+ * upsert that only matches while the partition is unknown or its lease has expired, so one instance holds it at a
+ * time. The holder renews the lease while it works; a partition whose holder stops renewing, because the instance
+ * died, is taken over by the next instance that asks. Lease expiry is compared against each instance's own clock,
+ * so clock skew between instances must stay well below the lease duration.
+ */
+@Service
+@Slf4j
+public class DailyBalancePartitionLeases {
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DailyBalanceJobProperties properties;
+    private final String owner;
+
+    public DailyBalancePartitionLeases(ReactiveMongoTemplate mongoTemplate,
+                                       DailyBalanceJobProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String owner() {
+        return owner;
+    }
+
+    /**
+     * Claims up to {@code max} unknown or expired partitions of the run, starting from a random one so that instances
+     * scheduled at the same second do not all contend for partition 0. Completes empty when every partition is
+     * either completed or held by a live instance.
+     */
+    public Flux<DailyBalancePartition> claim(String runId, int partitions, int max) {
+        int offset = ThreadLocalRandom.current().nextInt(partitions);
+        return Flux.range(0, partitions)
+                .concatMap(i -> tryClaim(runId, (offset + i) % partitions))
+                .take(max);
+    }
+
+    private Mono<DailyBalancePartition> tryClaim(String runId, int partition) {
+        LocalDateTime now = LocalDateTime.now();
+        // A partition nobody has claimed yet is inserted by the upsert; a completed or live one makes the upsert
+        // collide on _id instead, and the duplicate key is the signal that the partition is not available.
+        Query query = Query.query(Criteria.where("_id").is(DailyBalancePartition.idOf(runId, partition))
+                .and("status").ne(DailyBalanceRunStatus.COMPLETED)
+                .and("leaseUntil").lt(now));
+        Update update = new Update()
+                .setOnInsert("runId", runId)
+                .setOnInsert("partition", partition)
+                .set("status", DailyBalanceRunStatus.RUNNING)
+                .set("owner", owner)
+                .set("leaseUntil", now.plus(properties.getLeaseDuration()))
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        DailyBalancePartition.class)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.empty());
+    }
+
+    /**
+     * Extends the lease and records the progress of the partition. Emits false once the lease has been lost, that
+     * is it expired and another instance claimed the partition.
+     */
+    public Mono<Boolean> renew(DailyBalancePartition progress) {
+        Update update = withProgress(progress)
+                .set("leaseUntil", LocalDateTime.now().plus(properties.getLeaseDuration()));
+        return mongoTemplate.updateFirst(held(progress), update, DailyBalancePartition.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    /**
+     * Marks the partition completed with its final counts. Emits false when the lease had already been lost, in
+     * which case the instance that took the partition over completes it instead.
+     */
+    public Mono<Boolean> complete(DailyBalancePartition progress) {
+        Update update = withProgress(progress)
+                .set("status", DailyBalanceRunStatus.COMPLETED)
+                .set("completedAt", LocalDateTime.now());
+        return mongoTemplate.updateFirst(held(progress), update, DailyBalancePartition.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    /**
+     * Expires the lease right away, so a partition this instance gave up on is claimable without waiting.
+     */
+    public Mono<Void> release(DailyBalancePartition partition) {
+        return mongoTemplate.updateFirst(held(partition), new Update().set("leaseUntil", LocalDateTime.now()),
+                        DailyBalancePartition.class)
+                .then();
+    }
+
+    public Flux<DailyBalancePartition> partitions(String runId) {
+        return mongoTemplate.find(Query.query(Criteria.where("runId").is(runId)), DailyBalancePartition.class);
+    }
+
+    // Matching on attempts too keeps a stale holder away from any later claim of the partition, even its own.
+    private Query held(DailyBalancePartition partition) {
+        return Query.query(Criteria.where("_id").is(partition.getId())
+                .and("owner").is(owner)
+                .and("attempts").is(partition.getAttempts())
+                .and("status").is(DailyBalanceRunStatus.RUNNING));
+    }
+
+    private static Update withProgress(DailyBalancePartition progress) {
+        return new Update()
+                .set("customersProcessed", progress.getCustomersProcessed())
+                .set("productsSaved", progress.getProductsSaved())
+                .set("failures", progress.getFailures());
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("Unable to resolve the host name for the daily balance lease owner: {}", e.getMessage());
+            return "report-service";
+        }
+    }
+}
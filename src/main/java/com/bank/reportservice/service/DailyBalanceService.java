@@ -3,14 +3,37 @@ import com.bank.reportservice.client.AccountClientService;
 import com.bank.reportservice.client.CreditClientService;
 import com.bank.reportservice.client.CustomerClientService;
 import com.bank.reportservice.client.DebitCardClientService;
+import com.bank.reportservice.client.cache.UpstreamCache;
+import com.bank.reportservice.config.DailyBalanceJobProperties;
+import com.bank.reportservice.metrics.ReportMetrics;
+import com.bank.reportservice.model.account.Account;
 import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.balance.DailyBalanceCheckpoint;
+import com.bank.reportservice.model.balance.DailyBalancePartition;
+import com.bank.reportservice.model.balance.DailyBalanceRun;
+import com.bank.reportservice.model.balance.DailyBalanceRunStatus;
+import com.bank.reportservice.model.debitcard.DebitCard;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.repository.DailyBalanceCheckpointRepository;
 import com.bank.reportservice.repository.DailyBalanceRepository;
+import com.bank.reportservice.repository.DailyBalanceRunRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -20,114 +43,468 @@ public class DailyBalanceService {
     private final CustomerClientService customerClientService;
     private final DailyBalanceRepository dailyBalanceRepository;
     private final DebitCardClientService debitCardClientService;
+    private final DailyBalanceRunRepository dailyBalanceRunRepository;
+    private final DailyBalanceCheckpointRepository dailyBalanceCheckpointRepository;
+    private final DailyBalanceJobProperties properties;
+    private final DailyBalanceWriter dailyBalanceWriter;
+    private final DailyBalancePartitionLeases partitionLeases;
+    private final ReportMetrics metrics;
     public DailyBalanceService(AccountClientService accountService,
                                CreditClientService creditService,
                                DailyBalanceRepository dailyBalanceRepository,
                                CustomerClientService customerClientService,
-                               DebitCardClientService debitCardClientService) {
+                               DebitCardClientService debitCardClientService,
+                               DailyBalanceRunRepository dailyBalanceRunRepository,
+                               DailyBalanceCheckpointRepository dailyBalanceCheckpointRepository,
+                               DailyBalanceJobProperties properties,
+                               DailyBalanceWriter dailyBalanceWriter,
+                               DailyBalancePartitionLeases partitionLeases,
+                               ReportMetrics metrics) {
         this.accountService = accountService;
         this.creditService = creditService;
         this.dailyBalanceRepository = dailyBalanceRepository;
         this.customerClientService = customerClientService;
         this.debitCardClientService = debitCardClientService;
+        this.dailyBalanceRunRepository = dailyBalanceRunRepository;
+        this.dailyBalanceCheckpointRepository = dailyBalanceCheckpointRepository;
+        this.properties = properties;
+        this.dailyBalanceWriter = dailyBalanceWriter;
+        this.partitionLeases = partitionLeases;
+        this.metrics = metrics;
     }
 
-    public Mono<Void> processDailyBalances() {
+    public Mono<Void> processDailyBalances(LocalDateTime scheduledAt) {
         log.info("Starting calculation of daily balances...");
-        return customerClientService.getAllCustomers()
-                .flatMapMany(Flux::fromIterable)
-                .flatMap(customer -> saveBalancesForCustomer(customer.getId()))
+        return runDailyBalances(scheduledAt).then();
+    }
+
+    public Mono<DailyBalanceRun> runDailyBalances() {
+        return runDailyBalances(LocalDateTime.now());
+    }
+
+    /**
+     * Joins the snapshot run of the given scheduled fire, opening it if this is the first instance to get there, and
+     * emits the run summary once every partition of it has been completed. Every instance fires this at the same
+     * time: each claims a few of the customer partitions nobody holds, lists the customers once for them, and takes
+     * over those whose holder stopped renewing its lease. The run is keyed by the fire time rather than the clock, so
+     * an instance that fires a second late still joins the same run. A partition claimed for the second time skips
+     * the customers a previous attempt checkpointed.
+     */
+    public Mono<DailyBalanceRun> runDailyBalances(LocalDateTime scheduledAt) {
+        String runId = scheduledAt.toLocalDate().toString();
+        return dailyBalanceRunRepository.findById(runId)
+                .switchIfEmpty(Mono.defer(() -> openRun(runId, scheduledAt)))
+                .flatMap(run -> {
+                    if (run.getStatus() == DailyBalanceRunStatus.COMPLETED) {
+                        log.info("Daily balance run {} already completed, skipping.", runId);
+                        return Mono.just(run);
+                    }
+                    log.info("Instance {} joining daily balance run {} of {} partitions.", partitionLeases.owner(),
+                            runId, partitionsOf(run));
+                    return drainPartitions(run, 0);
+                });
+    }
+
+    /**
+     * Resumes the latest run when it was left unfinished, because every instance working on it went down or gave up
+     * on its partitions, and completes empty otherwise. Customers the interrupted attempts checkpointed are counted
+     * from their checkpoints and not processed again.
+     */
+    public Mono<DailyBalanceRun> resumeUnfinishedRun() {
+        return dailyBalanceRunRepository.findFirstByOrderByIdDesc()
+                .filter(run -> run.getStatus() != DailyBalanceRunStatus.COMPLETED)
+                .flatMap(run -> {
+                    log.info("Instance {} resuming unfinished daily balance run {}.", partitionLeases.owner(),
+                            run.getId());
+                    return drainPartitions(run, 0);
+                });
+    }
+
+    // Instances race to open the run; the loser reads the winner's, so every snapshot carries the same date.
+    private Mono<DailyBalanceRun> openRun(String runId, LocalDateTime scheduledAt) {
+        DailyBalanceRun run = DailyBalanceRun.builder()
+                .id(runId)
+                .status(DailyBalanceRunStatus.RUNNING)
+                .snapshotTime(scheduledAt)
+                .startedAt(LocalDateTime.now())
+                .partitions(properties.getPartitions())
+                .build();
+        return dailyBalanceRunRepository.insert(run)
+                .onErrorResume(DuplicateKeyException.class, e -> dailyBalanceRunRepository.findById(runId));
+    }
+
+    private Mono<DailyBalanceRun> drainPartitions(DailyBalanceRun run, int failedPasses) {
+        return partitionLeases.claim(run.getId(), partitionsOf(run), Math.max(properties.getPartitionsPerClaim(), 1))
+                .collectList()
+                .flatMap(claimed -> {
+                    if (claimed.isEmpty()) {
+                        return awaitPartitions(run, failedPasses);
+                    }
+                    return processPartitions(run, claimed)
+                            .thenReturn(0)
+                            .onErrorResume(e -> giveBack(run, claimed, failedPasses + 1, e))
+                            .flatMap(failed -> drainPartitions(run, failed));
+                });
+    }
+
+    private Mono<DailyBalanceRun> awaitPartitions(DailyBalanceRun run, int failedPasses) {
+        return partitionLeases.partitions(run.getId()).collectList().flatMap(partitions -> {
+            if (partitions.size() == partitionsOf(run) && partitions.stream()
+                    .allMatch(partition -> partition.getStatus() == DailyBalanceRunStatus.COMPLETED)) {
+                return finishRun(run, partitions);
+            }
+            // The rest are held by other instances; keep watching so that a dead instance's partitions are taken
+            // over once their leases expire.
+            return Mono.delay(properties.getLeaseRenewInterval())
+                    .then(Mono.defer(() -> drainPartitions(run, failedPasses)));
+        });
+    }
+
+    /**
+     * Releases the partitions of a failed pass so that any instance can take them over right away, and emits the
+     * number of consecutive failed passes once the backoff is over. Past the retry budget this instance marks the run
+     * failed and leaves it with the error; a failed run is still joined and resumed like a running one, and completed
+     * by whichever instance finishes its last partition.
+     */
+    private Mono<Integer> giveBack(DailyBalanceRun run, List<DailyBalancePartition> claimed, int failedPasses,
+                                   Throwable e) {
+        log.error("Daily balance run {} partitions {} failed (pass {} of {}): {}", run.getId(),
+                partitionNumbers(claimed), failedPasses, properties.getPartitionRetries() + 1, e.getMessage());
+        Mono<Void> released = Flux.fromIterable(claimed)
+                // A lease that cannot be released still expires on its own.
+                .concatMap(partition -> partitionLeases.release(partition).onErrorResume(releaseError -> Mono.empty()))
+                .then();
+        if (failedPasses > properties.getPartitionRetries()) {
+            return released.then(markFailed(run)).then(Mono.error(e));
+        }
+        return released
+                .then(Mono.delay(properties.getLeaseRenewInterval().multipliedBy(failedPasses)))
+                .thenReturn(failedPasses);
+    }
+
+    // Saving over a run another instance completed meanwhile is harmless: the next resume finds every partition
+    // completed and finishes the run again.
+    private Mono<Void> markFailed(DailyBalanceRun run) {
+        run.setStatus(DailyBalanceRunStatus.FAILED);
+        return dailyBalanceRunRepository.save(run)
+                .doOnNext(saved -> log.warn("Daily balance run {} marked {} by instance {}.", saved.getId(),
+                        saved.getStatus(), partitionLeases.owner()))
+                .onErrorResume(error -> {
+                    log.error("Error marking daily balance run {} failed: {}", run.getId(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> processPartitions(DailyBalanceRun run, List<DailyBalancePartition> claimed) {
+        int partitions = partitionsOf(run);
+        Map<Integer, RunTracker> trackers = new HashMap<>();
+        claimed.forEach(partition -> trackers.put(partition.getPartition(), new RunTracker(run, partition)));
+        log.info("Daily balance run {} partitions {} of {} claimed (attempts {}).", run.getId(),
+                partitionNumbers(claimed), partitions,
+                claimed.stream().map(DailyBalancePartition::getAttempts).collect(Collectors.toList()));
+        Mono<Void> completed = customerClientService.getAllCustomers(properties.getCustomerPageSize())
+                .flatMap(customer -> {
+                    RunTracker tracker = trackers.get(partitionOf(customer.getId(), partitions));
+                    return tracker == null || tracker.lost
+                            ? Mono.<Void>empty()
+                            : processCustomer(tracker, customer.getId());
+                }, properties.getCustomerConcurrency())
+                .then(Mono.defer(() -> Flux.fromIterable(trackers.values())
+                        .filter(tracker -> !tracker.lost)
+                        .concatMap(tracker -> partitionLeases.complete(tracker.snapshot())
+                                .doOnNext(held -> leaseHeld(tracker, held)))
+                        .then()));
+        // Partitions whose lease is lost are left to their new holder; the pass stops once it has none left.
+        Mono<Void> leasesLost = Flux.interval(properties.getLeaseRenewInterval())
+                .concatMap(tick -> Flux.fromIterable(trackers.values())
+                        .filter(tracker -> !tracker.lost)
+                        .concatMap(tracker -> partitionLeases.renew(tracker.snapshot())
+                                .onErrorResume(e -> {
+                                    // A failed renewal is not a lost lease; the next tick tries again.
+                                    log.warn("Unable to renew the lease on daily balance partition {}: {}",
+                                            tracker.partition.getId(), e.getMessage());
+                                    return Mono.just(true);
+                                })
+                                .doOnNext(held -> leaseHeld(tracker, held)))
+                        .then(Mono.fromSupplier(() -> trackers.values().stream().allMatch(tracker -> tracker.lost))))
+                .filter(allLost -> allLost)
+                .next()
                 .then();
+        return Mono.firstWithSignal(completed, leasesLost)
+                .transform(metrics.jobStage("partition"));
+    }
+
+    private void leaseHeld(RunTracker tracker, boolean held) {
+        if (!held && !tracker.lost) {
+            tracker.lost = true;
+            log.warn("Daily balance run {} lost the lease on partition {}, leaving it to its new holder.",
+                    tracker.run.getId(), tracker.partition.getPartition());
+        }
+    }
+
+    private static List<Integer> partitionNumbers(List<DailyBalancePartition> partitions) {
+        return partitions.stream().map(DailyBalancePartition::getPartition).collect(Collectors.toList());
+    }
+
+    static int partitionOf(String customerId, int partitions) {
+        return Math.floorMod(customerId.hashCode(), partitions);
+    }
+
+    // Runs opened before partitioning carry no partition count and are finished as a single partition.
+    private static int partitionsOf(DailyBalanceRun run) {
+        return Math.max(run.getPartitions(), 1);
+    }
+
+    private Mono<Void> processCustomer(RunTracker tracker, String customerId) {
+        String runId = tracker.run.getId();
+        Mono<Optional<DailyBalanceCheckpoint>> checkpointed = tracker.resuming
+                ? dailyBalanceCheckpointRepository.findById(DailyBalanceCheckpoint.idOf(runId, customerId))
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.empty());
+        return checkpointed.flatMap(done -> {
+            if (done.isPresent()) {
+                // Counted from its checkpoint, so the totals of a resumed partition do not depend on how recently
+                // the previous attempt saved its progress.
+                tracker.customerCompleted(done.get());
+                return Mono.empty();
+            }
+            CustomerProgress progress = new CustomerProgress(tracker.run.getSnapshotTime());
+            // A resumed customer may have been interrupted half way, so drop its partial snapshots first.
+            Mono<Long> cleanup = tracker.resuming
+                    ? dailyBalanceRepository.deleteByCustomerIdAndDate(customerId, tracker.run.getSnapshotTime())
+                    : Mono.just(0L);
+            return cleanup
+                    .thenMany(saveBalancesForCustomer(customerId)
+                            // The run reads every product once, so caching it would only churn Redis.
+                            .contextWrite(Context.of(CustomerProgress.class, progress, UpstreamCache.BYPASS, true)))
+                    .then(Mono.defer(() -> dailyBalanceCheckpointRepository.save(DailyBalanceCheckpoint.builder()
+                            .id(DailyBalanceCheckpoint.idOf(runId, customerId))
+                            .runId(runId)
+                            .customerId(customerId)
+                            .productsSaved(progress.productsSaved.get())
+                            .failures(progress.failures.get())
+                            .completedAt(LocalDateTime.now())
+                            .build())))
+                    .flatMap(checkpoint -> tracker.customerCompleted(checkpoint)
+                            % properties.getProgressInterval() == 0 ? saveProgress(tracker) : Mono.<Void>empty())
+                    .then();
+        }).onErrorResume(e -> {
+            log.error("Error processing daily balances for customer {}: {}", customerId, e.getMessage());
+            tracker.failures.incrementAndGet();
+            return Mono.empty();
+        });
+    }
+
+    private Mono<Void> saveProgress(RunTracker tracker) {
+        DailyBalancePartition progress = tracker.snapshot();
+        return partitionLeases.renew(progress)
+                .doOnNext(renewed -> {
+                    leaseHeld(tracker, renewed);
+                    log.info("Daily balance run {} partition {} progress: {} customers, {} products, {} failures",
+                            progress.getRunId(), progress.getPartition(), progress.getCustomersProcessed(),
+                            progress.getProductsSaved(), progress.getFailures());
+                })
+                .then();
+    }
+
+    private Mono<DailyBalanceRun> finishRun(DailyBalanceRun run, List<DailyBalancePartition> partitions) {
+        LocalDateTime finishedAt = LocalDateTime.now();
+        run.setStatus(DailyBalanceRunStatus.COMPLETED);
+        run.setFinishedAt(finishedAt);
+        run.setCustomersProcessed(partitions.stream().mapToLong(DailyBalancePartition::getCustomersProcessed).sum());
+        run.setProductsSaved(partitions.stream().mapToLong(DailyBalancePartition::getProductsSaved).sum());
+        run.setFailures(partitions.stream().mapToLong(DailyBalancePartition::getFailures).sum());
+        run.setWallTimeMillis(run.getStartedAt() != null
+                ? Duration.between(run.getStartedAt(), finishedAt).toMillis()
+                : 0);
+        return dailyBalanceRunRepository.save(run)
+                .doOnNext(saved -> log.info("Daily balance run {} {}: {} customers processed, {} products saved, "
+                                + "{} failures, wall time {} ms", saved.getId(), saved.getStatus(),
+                        saved.getCustomersProcessed(), saved.getProductsSaved(), saved.getFailures(),
+                        saved.getWallTimeMillis()))
+                // Checkpoints only matter while the run can be resumed; the TTL index covers a failed delete.
+                .flatMap(saved -> dailyBalanceCheckpointRepository.deleteByRunId(saved.getId())
+                        .onErrorResume(error -> {
+                            log.error("Error deleting checkpoints of daily balance run {}: {}", saved.getId(),
+                                    error.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(saved));
     }
 
     public Flux<Void> saveBalancesForCustomer(String customerId) {
+        // Accounts are fetched once and shared with the debit card family, which resolves primary accounts from them.
+        Mono<List<Account>> accounts = accountService.getAccountsByCustomer(customerId)
+                .transform(metrics.jobStage("fetch", ProductCategory.ACCOUNT))
+                .cache();
         return Flux.merge(
-                saveAccountBalances(customerId)
-                        .onErrorResume(e -> {
-                            log.warn("No accounts found for customer {}, continuing without accounts.", customerId);
-                            return Flux.empty();
-                        }),
-                saveCreditBalances(customerId)
-                        .onErrorResume(e -> {
-                            log.warn("No credits found for customer {}, continuing " +
-                                    "without credits.", customerId);
-                            return Flux.empty();
-                        }),
-                saveCreditCardBalances(customerId)
-                        .onErrorResume(e -> {
-                            log.warn("No credit cards found for customer {}, " +
-                                    "continuing without credit cards.", customerId);
-                            return Flux.empty();
-                        }),
-                saveDebitCardBalances(customerId)
-                        .onErrorResume(e -> {
-                            log.warn("No debit cards found for customer {}, " +
-                                    "continuing without debit cards.", customerId);
-                            return Flux.empty();
-                        })
+                continueWithout("accounts", customerId, saveAccountBalances(customerId, accounts)),
+                continueWithout("credits", customerId, saveCreditBalances(customerId)),
+                continueWithout("credit cards", customerId, saveCreditCardBalances(customerId)),
+                continueWithout("debit cards", customerId, saveDebitCardBalances(customerId,
+                        accounts.onErrorReturn(Collections.emptyList())))
         ).thenMany(Flux.empty());
     }
 
+    private Flux<Void> continueWithout(String family, String customerId, Flux<Void> familyBalances) {
+        return familyBalances.onErrorResume(e -> Flux.deferContextual(ctx -> {
+            log.warn("No {} found for customer {}, continuing without {}.", family, customerId, family);
+            progressOf(ctx).ifPresent(progress -> progress.failures.incrementAndGet());
+            return Flux.empty();
+        }));
+    }
+
     public Flux<Void> saveAccountBalances(String customerId) {
-        return accountService.getAccountsByCustomer(customerId)
+        return saveAccountBalances(customerId, accountService.getAccountsByCustomer(customerId)
+                .transform(metrics.jobStage("fetch", ProductCategory.ACCOUNT)));
+    }
+
+    private Flux<Void> saveAccountBalances(String customerId, Mono<List<Account>> accounts) {
+        return accounts
                 .flatMapMany(Flux::fromIterable)
                 .flatMap(account -> saveDailyBalance(customerId, account.getId(), "ACCOUNT",
-                        account.getAccountType().name(), BigDecimal.valueOf(account.getBalance())));
+                        account.getAccountType().name(), account.getCreatedAt(),
+                        BigDecimal.valueOf(account.getBalance())),
+                        properties.getProductConcurrency());
     }
 
     public Flux<Void> saveCreditBalances(String customerId) {
         return creditService.getCreditsByCustomer(customerId)
+                .transform(metrics.jobStage("fetch", ProductCategory.CREDIT))
                 .flatMapMany(Flux::fromIterable)
                 .flatMap(credit -> saveDailyBalance(customerId, credit.getId(), "CREDIT",
-                        credit.getCreditType().name(), credit.getRemainingBalance()));
+                        credit.getCreditType().name(), credit.getCreatedAt(), credit.getRemainingBalance()),
+                        properties.getProductConcurrency());
     }
 
     public Flux<Void> saveCreditCardBalances(String customerId) {
         return creditService.getCreditCardsByCustomer(customerId)
+                .transform(metrics.jobStage("fetch", ProductCategory.CREDIT_CARD))
                 .flatMapMany(Flux::fromIterable)
                 .flatMap(card -> saveDailyBalance(customerId, card.getId(), "CREDIT_CARD",
-                        card.getCardType().name(), card.getAvailableBalance()));
+                        card.getCardType().name(), card.getCreatedAt(), card.getAvailableBalance()),
+                        properties.getProductConcurrency());
     }
     public Flux<Void> saveDebitCardBalances(String customerId) {
-        return debitCardClientService.getDebitCardsByCustomer(customerId)
-                .flatMapMany(Flux::fromIterable)
-                .flatMap(debitCard -> {
-                    String primaryAccountId = debitCard.getPrimaryAccountId();
-                    return accountService.getAccountById(primaryAccountId)
-                            .flatMap(account -> {
-                                BigDecimal accountBalance = BigDecimal.valueOf(account.getBalance());
-                                return saveDailyBalance(
-                                        customerId,
-                                        debitCard.getId(),
-                                        "DEBIT_CARD",
-                                        null,
-                                        accountBalance
-                                );
-                            })
+        return saveDebitCardBalances(customerId, Mono.just(Collections.emptyList()));
+    }
+
+    private Flux<Void> saveDebitCardBalances(String customerId, Mono<List<Account>> knownAccounts) {
+        return Mono.zip(debitCardClientService.getDebitCardsByCustomer(customerId)
+                        .transform(metrics.jobStage("fetch", ProductCategory.DEBIT_CARD)), knownAccounts)
+                .flatMapMany(tuple -> {
+                    List<DebitCard> debitCards = tuple.getT1();
+                    AccountResolver accountResolver = new AccountResolver(accountService, tuple.getT2());
+                    return accountResolver.resolve(debitCards.stream()
+                                    .map(DebitCard::getPrimaryAccountId)
+                                    .collect(Collectors.toList()))
                             .onErrorResume(e -> {
-                                log.error("Error obtaining balance for debit card {}, account {}: {}",
-                                        debitCard.getId(), primaryAccountId, e.getMessage());
-                                return saveDailyBalance(
-                                        customerId,
-                                        debitCard.getId(),
-                                        "DEBIT_CARD",
-                                        "DEBIT",
-                                        BigDecimal.ZERO
-                                );
-                            });
+                                log.error("Error obtaining primary accounts of debit cards for customer {}: {}",
+                                        customerId, e.getMessage());
+                                return Mono.just(Collections.emptyMap());
+                            })
+                            .flatMapMany(primaryAccounts -> Flux.fromIterable(debitCards)
+                                    .flatMap(debitCard -> {
+                                        Account account = primaryAccounts.get(debitCard.getPrimaryAccountId());
+                                        if (account == null) {
+                                            log.error("No balance available for debit card {}, account {}",
+                                                    debitCard.getId(), debitCard.getPrimaryAccountId());
+                                            return saveDailyBalance(
+                                                    customerId,
+                                                    debitCard.getId(),
+                                                    "DEBIT_CARD",
+                                                    "DEBIT",
+                                                    debitCard.getCreatedAt(),
+                                                    BigDecimal.ZERO
+                                            );
+                                        }
+                                        return saveDailyBalance(
+                                                customerId,
+                                                debitCard.getId(),
+                                                "DEBIT_CARD",
+                                                null,
+                                                debitCard.getCreatedAt(),
+                                                BigDecimal.valueOf(account.getBalance())
+                                        );
+                                    }, properties.getProductConcurrency()));
                 });
     }
     public Mono<Void> saveDailyBalance(String customerId, String productId, String productType,
-                                        String subType, BigDecimal balance) {
-        DailyBalance dailyBalance = new DailyBalance();
-        dailyBalance.setCustomerId(customerId);
-        dailyBalance.setProductId(productId);
-        dailyBalance.setProductType(productType);
-        dailyBalance.setSubType(subType);
-        dailyBalance.setBalance(balance);
-        dailyBalance.setDate(LocalDateTime.now());
-        return dailyBalanceRepository.save(dailyBalance)
-                .doOnSuccess(db -> log.info("Daily balance saved for {} - {}", productType, productId))
-                .then();
+                                        String subType, LocalDateTime productCreatedAt, BigDecimal balance) {
+        return Mono.deferContextual(ctx -> {
+            Optional<CustomerProgress> progress = progressOf(ctx);
+            DailyBalance dailyBalance = new DailyBalance();
+            dailyBalance.setCustomerId(customerId);
+            dailyBalance.setProductId(productId);
+            dailyBalance.setProductType(productType);
+            dailyBalance.setSubType(subType);
+            dailyBalance.setBalance(balance);
+            dailyBalance.setProductCreatedAt(productCreatedAt);
+            dailyBalance.setDate(progress.map(p -> p.snapshotTime).orElseGet(LocalDateTime::now));
+            return dailyBalanceWriter.write(dailyBalance)
+                    .transform(metrics.jobStage("save", ProductCategory.valueOf(productType)))
+                    .doOnSuccess(db -> {
+                        progress.ifPresent(p -> p.productsSaved.incrementAndGet());
+                        log.info("Daily balance saved for {} - {}", productType, productId);
+                    })
+                    .then();
+        });
+    }
+
+    private static Optional<CustomerProgress> progressOf(ContextView ctx) {
+        return ctx.getOrEmpty(CustomerProgress.class);
+    }
+
+    /**
+     * Per-customer counters, carried in the Reactor context so the product-level saves can report into them.
+     */
+    private static final class CustomerProgress {
+        private final LocalDateTime snapshotTime;
+        private final AtomicLong productsSaved = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        private CustomerProgress(LocalDateTime snapshotTime) {
+            this.snapshotTime = snapshotTime;
+        }
+    }
+
+    private static final class RunTracker {
+        private final DailyBalanceRun run;
+        private final DailyBalancePartition partition;
+        private final boolean resuming;
+        // Counted from zero on every attempt; a resumed attempt counts the previous attempts' checkpoints instead.
+        private final AtomicLong customers = new AtomicLong();
+        private final AtomicLong products = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile boolean lost;
+
+        private RunTracker(DailyBalanceRun run, DailyBalancePartition partition) {
+            this.run = run;
+            this.partition = partition;
+            // A run opened before partitioning may already have checkpoints, whatever the attempt of its partition.
+            this.resuming = partition.getAttempts() > 1 || run.getPartitions() == 0;
+        }
+
+        private long customerCompleted(DailyBalanceCheckpoint checkpoint) {
+            products.addAndGet(checkpoint.getProductsSaved());
+            failures.addAndGet(checkpoint.getFailures());
+            return customers.incrementAndGet();
+        }
+
+        private DailyBalancePartition snapshot() {
+            return DailyBalancePartition.builder()
+                    .id(partition.getId())
+                    .runId(partition.getRunId())
+                    .partition(partition.getPartition())
+                    .status(partition.getStatus())
+                    .owner(partition.getOwner())
+                    .attempts(partition.getAttempts())
+                    .customersProcessed(customers.get())
+                    .productsSaved(products.get())
+                    .failures(failures.get())
+                    .build();
+        }
     }
 }
@@ -0,0 +1,248 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.DailyBalanceJobProperties;
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Buffers daily balance snapshots and writes them with unordered bulk inserts, so the nightly job pays one
+ * Mongo round trip per batch instead of one per product. The snapshots a batch wrote are then folded into their
+ * monthly rollups with one bulk upsert. Each caller still gets its own completion signal once the batch holding
+ * its snapshot has been acknowledged.
+ */
+@Component
+@Slf4j
+public class DailyBalanceWriter {
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DailyBalanceJobProperties properties;
+    private final MonthlyBalanceRollupService rollupService;
+    private volatile Pipeline pipeline;
+    private volatile boolean stopped;
+    private final Timer batchLatency;
+    private final Counter documentsWritten;
+    private final Counter documentsFailed;
+    private final Counter batchesFailed;
+
+    public DailyBalanceWriter(ReactiveMongoTemplate mongoTemplate,
+                              DailyBalanceJobProperties properties,
+                              MonthlyBalanceRollupService rollupService,
+                              MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.rollupService = rollupService;
+        this.batchLatency = Timer.builder("report.daily-balance.write.batch")
+                .description("Latency of daily balance bulk inserts")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.documentsWritten = Counter.builder("report.daily-balance.write.documents")
+                .tag("result", "written")
+                .register(meterRegistry);
+        this.documentsFailed = Counter.builder("report.daily-balance.write.documents")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.batchesFailed = Counter.builder("report.daily-balance.write.batch.failures")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stopped = false;
+        pipeline = startPipeline();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        // Completing the queue flushes whatever is still buffered before the subscription ends.
+        pipeline.queue.emitComplete((signalType, emitResult) -> emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    }
+
+    public Mono<DailyBalance> write(DailyBalance dailyBalance) {
+        return Mono.defer(() -> {
+            Pipeline current = pipeline;
+            PendingWrite pending = new PendingWrite(dailyBalance, current.pending);
+            current.pending.add(pending);
+            current.queue.emitNext(pending, (signalType, emitResult) -> {
+                if (emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                    return true;
+                }
+                fail(pending, new IllegalStateException("Daily balance writer rejected the snapshot: " + emitResult));
+                return false;
+            });
+            return pending.result.asMono();
+        });
+    }
+
+    private Pipeline startPipeline() {
+        Pipeline started = new Pipeline();
+        started.queue.asFlux()
+                .bufferTimeout(properties.getWriteBatchSize(), properties.getWriteMaxDelay())
+                // bufferTimeout emits on its timer whatever the demand, so it must not overflow while every flush
+                // slot is busy.
+                .onBackpressureBuffer()
+                .flatMap(this::flush, properties.getWriteConcurrency())
+                .subscribe(null, e -> restart(started, e));
+        return started;
+    }
+
+    /**
+     * Replaces a pipeline that terminated with an error, so later writes are not left in a queue nobody drains, and
+     * fails the writes that were still waiting in it.
+     */
+    private void restart(Pipeline failed, Throwable error) {
+        log.error("Daily balance writer failed, restarting it: {}", error.getMessage(), error);
+        if (!stopped) {
+            pipeline = startPipeline();
+        }
+        failed.pending.forEach(pending -> fail(pending, error));
+    }
+
+    private Mono<Void> flush(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        return Mono.defer(() -> insert(convert(batch)))
+                // Anything the insert path did not settle itself fails the whole batch, so that no caller is left
+                // waiting and the queue subscription outlives the failure.
+                .onErrorResume(e -> {
+                    batchesFailed.increment();
+                    log.error("Bulk insert of {} daily balances failed: {}", batch.size(), e.getMessage());
+                    batch.forEach(pending -> fail(pending, e));
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    long elapsed = System.nanoTime() - start;
+                    batchLatency.record(elapsed, TimeUnit.NANOSECONDS);
+                    log.debug("Flushed {} daily balances in {} ms", batch.size(),
+                            TimeUnit.NANOSECONDS.toMillis(elapsed));
+                });
+    }
+
+    /**
+     * Converts the snapshots of a batch, failing right away the writes whose snapshot cannot be mapped so they do
+     * not take the rest of the batch down with them.
+     */
+    private List<PendingWrite> convert(List<PendingWrite> batch) {
+        List<PendingWrite> converted = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            try {
+                Document document = new Document();
+                mongoTemplate.getConverter().write(pending.dailyBalance, document);
+                pending.document = document;
+                converted.add(pending);
+            } catch (RuntimeException e) {
+                log.error("Unable to map daily balance of product {}: {}", pending.dailyBalance.getProductId(),
+                        e.getMessage());
+                fail(pending, e);
+            }
+        }
+        return converted;
+    }
+
+    private Mono<Void> insert(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        List<Document> documents = batch.stream().map(pending -> pending.document).collect(Collectors.toList());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DailyBalance.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents,
+                        new InsertManyOptions().ordered(false))))
+                .then(Mono.defer(() -> settle(batch, Collections.emptySet(), null)))
+                .onErrorResume(MongoBulkWriteException.class, e -> settle(batch, e.getWriteErrors().stream()
+                        .map(BulkWriteError::getIndex)
+                        .collect(Collectors.toSet()), e));
+    }
+
+    private Mono<Void> settle(List<PendingWrite> batch, Set<Integer> failed, Throwable error) {
+        return rollUp(batch, failed).then(Mono.fromRunnable(() -> complete(batch, failed, error)));
+    }
+
+    /**
+     * Records the written snapshots of a batch in their monthly rollups. A failed rollup is logged and does not fail
+     * the snapshot writes, which are already acknowledged.
+     */
+    private Mono<Void> rollUp(List<PendingWrite> batch, Set<Integer> failed) {
+        List<DailyBalance> written = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failed.contains(i)) {
+                written.add(batch.get(i).dailyBalance);
+            }
+        }
+        return rollupService.record(written)
+                .onErrorResume(e -> {
+                    log.error("Error updating monthly rollups for {} daily balances: {}", written.size(),
+                            e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Signals every pending write of an acknowledged batch, failing those at the {@code failed} indexes.
+     */
+    private void complete(List<PendingWrite> batch, Set<Integer> failed, Throwable error) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite pending = batch.get(i);
+            if (failed.contains(i)) {
+                fail(pending, error);
+                continue;
+            }
+            Object id = pending.document.get("_id");
+            if (id instanceof ObjectId) {
+                pending.dailyBalance.setId(((ObjectId) id).toHexString());
+            }
+            documentsWritten.increment();
+            pending.owner.remove(pending);
+            pending.result.tryEmitValue(pending.dailyBalance);
+        }
+        if (!failed.isEmpty()) {
+            log.warn("{} of {} daily balances were rejected by the bulk insert", failed.size(), batch.size());
+        }
+    }
+
+    private void fail(PendingWrite pending, Throwable error) {
+        pending.owner.remove(pending);
+        if (pending.result.tryEmitError(error).isSuccess()) {
+            documentsFailed.increment();
+        }
+    }
+
+    /**
+     * The queue feeding one subscription of the batching pipeline, and the writes it has not settled yet.
+     */
+    private static final class Pipeline {
+        private final Sinks.Many<PendingWrite> queue = Sinks.many().unicast().onBackpressureBuffer();
+        private final Set<PendingWrite> pending = ConcurrentHashMap.newKeySet();
+    }
+
+    private static final class PendingWrite {
+        private final DailyBalance dailyBalance;
+        private final Set<PendingWrite> owner;
+        private final Sinks.One<DailyBalance> result = Sinks.one();
+        private Document document;
+
+        private PendingWrite(DailyBalance dailyBalance, Set<PendingWrite> owner) {
+            this.dailyBalance = dailyBalance;
+            this.owner = owner;
+        }
+    }
+}
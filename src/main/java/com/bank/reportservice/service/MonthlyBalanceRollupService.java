@@ -0,0 +1,119 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.dto.DailyBalanceSummary;
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.balance.MonthlyBalanceRollup;
+import com.bank.reportservice.repository.MonthlyBalanceRollupRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one running sum/count/min/max document per customer, product and month, so the monthly summary is a
+ * single indexed read instead of a scan over every daily snapshot.
+ */
+@Service
+@Slf4j
+public class MonthlyBalanceRollupService {
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MonthlyBalanceRollupRepository rollupRepository;
+
+    public MonthlyBalanceRollupService(ReactiveMongoTemplate mongoTemplate,
+                                       MonthlyBalanceRollupRepository rollupRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Folds a batch of snapshots into their rollups with a single unordered bulk write, so the rollups cost one
+     * round trip per writer batch rather than one per product.
+     */
+    public Mono<Void> record(List<DailyBalance> snapshots) {
+        if (snapshots.isEmpty()) {
+            return Mono.empty();
+        }
+        MongoConverter converter = mongoTemplate.getConverter();
+        MongoPersistentEntity<?> entity = converter.getMappingContext()
+                .getPersistentEntity(MonthlyBalanceRollup.class);
+        QueryMapper queryMapper = new QueryMapper(converter);
+        UpdateMapper updateMapper = new UpdateMapper(converter);
+        List<UpdateOneModel<Document>> upserts = snapshots.stream()
+                .map(snapshot -> new UpdateOneModel<Document>(
+                        queryMapper.getMappedObject(rollupQuery(snapshot).getQueryObject(), entity),
+                        updateMapper.getMappedObject(rollupUpdate(snapshot).getUpdateObject(), entity),
+                        new UpdateOptions().upsert(true)))
+                .collect(Collectors.toList());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(MonthlyBalanceRollup.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(upserts,
+                        new BulkWriteOptions().ordered(false))))
+                .then()
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    if (e.getWriteErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                        return Mono.error(e);
+                    }
+                    log.debug("{} of {} snapshots were already rolled up", e.getWriteErrors().size(),
+                            snapshots.size());
+                    return Mono.empty();
+                });
+    }
+
+    // Matching on lastSnapshotDate makes a replayed snapshot miss the document; the upsert then collides on _id and
+    // the duplicate key is the signal that this snapshot was already counted.
+    private static Query rollupQuery(DailyBalance snapshot) {
+        String month = YearMonth.from(snapshot.getDate()).toString();
+        return Query.query(Criteria.where("_id")
+                .is(MonthlyBalanceRollup.idOf(snapshot.getCustomerId(), snapshot.getProductId(), month))
+                .and("lastSnapshotDate").ne(snapshot.getDate()));
+    }
+
+    private static Update rollupUpdate(DailyBalance snapshot) {
+        String month = YearMonth.from(snapshot.getDate()).toString();
+        Decimal128 balance = new Decimal128(snapshot.getBalance() != null ? snapshot.getBalance() : BigDecimal.ZERO);
+        return new Update()
+                .setOnInsert("customerId", snapshot.getCustomerId())
+                .setOnInsert("productId", snapshot.getProductId())
+                .setOnInsert("month", month)
+                .set("productType", snapshot.getProductType())
+                .set("subType", snapshot.getSubType())
+                .inc("sum", balance)
+                .inc("count", 1)
+                .min("min", balance)
+                .max("max", balance)
+                .set("lastSnapshotDate", snapshot.getDate())
+                .set("updatedAt", LocalDateTime.now());
+    }
+
+    public Flux<DailyBalanceSummary> findMonthlySummary(String customerId, YearMonth month) {
+        return rollupRepository.findByCustomerIdAndMonth(customerId, month.toString())
+                .filter(rollup -> rollup.getCount() > 0 && rollup.getSum() != null)
+                .map(rollup -> new DailyBalanceSummary(
+                        rollup.getProductId(),
+                        rollup.getProductType(),
+                        rollup.getSubType(),
+                        rollup.getSum().divide(BigDecimal.valueOf(rollup.getCount()), 2, RoundingMode.HALF_UP)));
+    }
+}
@@ -0,0 +1,62 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.model.transaction.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the {@code limit} newest transactions seen so far in a min-heap, so picking the latest movements of a long
+ * history costs O(n log k) time and O(k) memory instead of sorting everything. Transactions are ordered by date
+ * and then by ID; the optional cursor skips everything at or after a previously returned position.
+ */
+class RecentTransactions {
+    private static final Comparator<Transaction> OLDEST_FIRST = Comparator
+            .comparing(Transaction::getTransactionDate)
+            .thenComparing(Transaction::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final int limit;
+    private final LocalDateTime before;
+    private final String beforeId;
+    private final PriorityQueue<Transaction> heap;
+
+    RecentTransactions(int limit, LocalDateTime before, String beforeId) {
+        this.limit = Math.max(limit, 0);
+        this.before = before;
+        this.beforeId = beforeId;
+        this.heap = new PriorityQueue<>(this.limit + 1, OLDEST_FIRST);
+    }
+
+    void offer(Transaction transaction) {
+        if (limit == 0 || transaction.getTransactionDate() == null || !isBeforeCursor(transaction)) {
+            return;
+        }
+        if (heap.size() < limit) {
+            heap.offer(transaction);
+        } else if (OLDEST_FIRST.compare(transaction, heap.peek()) > 0) {
+            heap.poll();
+            heap.offer(transaction);
+        }
+    }
+
+    List<Transaction> newestFirst() {
+        List<Transaction> recent = new ArrayList<>(heap);
+        recent.sort(Collections.reverseOrder(OLDEST_FIRST));
+        return recent;
+    }
+
+    private boolean isBeforeCursor(Transaction transaction) {
+        if (before == null) {
+            return true;
+        }
+        int byDate = transaction.getTransactionDate().compareTo(before);
+        if (byDate != 0 || beforeId == null) {
+            return byDate < 0;
+        }
+        return transaction.getId() == null || transaction.getId().compareTo(beforeId) < 0;
+    }
+}
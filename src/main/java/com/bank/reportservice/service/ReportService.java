@@ -4,7 +4,9 @@ import com.bank.reportservice.client.AccountClientService;
 import com.bank.reportservice.client.CreditClientService;
 import com.bank.reportservice.client.DebitCardClientService;
 import com.bank.reportservice.client.TransactionClientService;
+import com.bank.reportservice.config.PartialBalancesProperties;
 import com.bank.reportservice.dto.*;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.account.Account;
 import com.bank.reportservice.model.account.AccountType;
 import com.bank.reportservice.model.balance.DailyBalance;
@@ -23,12 +25,16 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple4;
+import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,16 +45,34 @@ public class ReportService {
     private final TransactionClientService transactionClient;
     private final DailyBalanceRepository dailyBalanceRepository;
     private final DebitCardClientService debitCardClientService;
+    private final MonthlyBalanceRollupService rollupService;
+    private final CustomerBalanceViewService balanceViewService;
+    private final TransactionSummaryService transactionSummaryService;
+    private final PartialBalancesProperties partialProperties;
+    private final BalanceSnapshotFallback snapshotFallback;
+    private final ReportMetrics metrics;
     public ReportService(AccountClientService accountClient,
                          CreditClientService creditClient,
                          TransactionClientService transactionClient,
                          DailyBalanceRepository dailyBalanceRepository,
-                         DebitCardClientService debitCardClientService) {
+                         DebitCardClientService debitCardClientService,
+                         MonthlyBalanceRollupService rollupService,
+                         CustomerBalanceViewService balanceViewService,
+                         TransactionSummaryService transactionSummaryService,
+                         PartialBalancesProperties partialProperties,
+                         BalanceSnapshotFallback snapshotFallback,
+                         ReportMetrics metrics) {
         this.accountClient = accountClient;
         this.creditClient = creditClient;
         this.transactionClient = transactionClient;
         this.dailyBalanceRepository = dailyBalanceRepository;
         this.debitCardClientService = debitCardClientService;
+        this.rollupService = rollupService;
+        this.balanceViewService = balanceViewService;
+        this.transactionSummaryService = transactionSummaryService;
+        this.partialProperties = partialProperties;
+        this.snapshotFallback = snapshotFallback;
+        this.metrics = metrics;
     }
     public Mono<CustomerBalances> getResumeByProductAndUserAndDates(String typeProduct,
                                                                     String customerId,
@@ -56,9 +80,94 @@ public class ReportService {
                                                                     LocalDate endDate) {
         return getCustomerBalances(customerId)
                 .map(customerBalances ->
-                    filterBalancesByTypeAndDates(customerBalances, typeProduct, startDate, endDate));
+                    filterBalancesByTypeAndDates(customerBalances, typeProduct, startDate, endDate))
+                .transform(metrics.operation("getResumeByProductAndUserAndDates"));
     }
     public Mono<CustomerBalances> getCustomerBalances(String customerId) {
+        return getCustomerBalances(customerId, null);
+    }
+
+    /**
+     * @param partial serve whatever product families answer within their deadline instead of failing the whole
+     *                response; {@code null} uses {@code report.balances.partial.enabled}
+     */
+    public Mono<CustomerBalances> getCustomerBalances(String customerId, Boolean partial) {
+        boolean partialMode = partial != null ? partial : partialProperties.isEnabled();
+        return balanceViewService.findCustomerBalances(customerId)
+                .onErrorResume(error -> {
+                    log.error("Error reading balance view for customer {}: {}", customerId, error.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    if (partialMode) {
+                        return fetchPartialCustomerBalances(customerId);
+                    }
+                    Set<ProductCategory> open = snapshotFallback.openFamilies();
+                    if (!open.isEmpty()) {
+                        return serveFromSnapshots(customerId, open)
+                                .switchIfEmpty(Mono.defer(() -> fetchAndSeedCustomerBalances(customerId)));
+                    }
+                    return fetchAndSeedCustomerBalances(customerId)
+                            .onErrorResume(error -> {
+                                // The failed call may just have opened a breaker.
+                                Set<ProductCategory> opened = snapshotFallback.openFamilies();
+                                return opened.isEmpty()
+                                        ? Mono.error(error)
+                                        : serveFromSnapshots(customerId, opened).switchIfEmpty(Mono.error(error));
+                            });
+                }))
+                .transform(metrics.operation("getCustomerBalances"));
+    }
+
+    /**
+     * Fetches the families behind closed or half-open breakers live and serves the open ones from snapshots. Completes
+     * empty when the customer has no snapshot recent enough. Mixed results never seed the balance view.
+     */
+    private Mono<CustomerBalances> serveFromSnapshots(String customerId, Set<ProductCategory> open) {
+        return snapshotFallback.serve(customerId, open, () -> fetchAndSeedCustomerBalances(customerId).then())
+                .flatMap(snapshots -> Mono.zip(
+                        liveUnlessOpen(open, ProductCategory.ACCOUNT, () ->
+                                accountClient.getAccountsByCustomer(customerId)),
+                        liveUnlessOpen(open, ProductCategory.CREDIT_CARD, () ->
+                                creditClient.getCreditCardsByCustomer(customerId)),
+                        liveUnlessOpen(open, ProductCategory.CREDIT, () ->
+                                creditClient.getCreditsByCustomer(customerId)),
+                        liveUnlessOpen(open, ProductCategory.DEBIT_CARD, () ->
+                                debitCardClientService.getDebitCardsByCustomer(customerId))
+                ).flatMap(tuple -> mapToCustomerBalances(customerId, tuple))
+                        .map(balances -> {
+                            balances.getProducts().addAll(snapshots);
+                            balances.setStaleFamilies(new ArrayList<>(open));
+                            balances.setAsOf(snapshots.stream()
+                                    .map(ProductBalance::getAsOf)
+                                    .filter(Objects::nonNull)
+                                    .min(Comparator.naturalOrder())
+                                    .orElseGet(LocalDateTime::now));
+                            open.forEach(family -> metrics.operationFallback("getCustomerBalances", "snapshot",
+                                    family));
+                            return balances;
+                        }));
+    }
+
+    private <T> Mono<List<T>> liveUnlessOpen(Set<ProductCategory> open, ProductCategory family,
+                                             Supplier<Mono<List<T>>> call) {
+        return open.contains(family) ? Mono.just(Collections.emptyList()) : call.get();
+    }
+
+    private Mono<CustomerBalances> fetchAndSeedCustomerBalances(String customerId) {
+        LocalDateTime asOf = LocalDateTime.now();
+        return fetchCustomerBalances(customerId)
+                .doOnNext(balances -> balances.setAsOf(asOf))
+                .flatMap(balances -> balanceViewService.seed(balances, asOf)
+                        .onErrorResume(error -> {
+                            log.error("Error seeding balance view for customer {}: {}",
+                                    customerId, error.getMessage());
+                            return Mono.empty();
+                        })
+                        .thenReturn(balances));
+    }
+
+    private Mono<CustomerBalances> fetchCustomerBalances(String customerId) {
         return Mono.zip(
                 accountClient.getAccountsByCustomer(customerId),
                 creditClient.getCreditCardsByCustomer(customerId),
@@ -68,11 +177,100 @@ public class ReportService {
             mapToCustomerBalances(customerId, tuple));
     }
 
-    private Mono<CustomerBalances> mapToCustomerBalances(String customerId,
-                                                         Tuple4<List<Account>,
-                                                         List<CreditCard>,
-                                                         List<Credit>,
-                                                         List<DebitCard>> tuple) {
+    /**
+     * Fans out like {@link #fetchCustomerBalances}, but every product family has its own deadline. A family that
+     * fails or misses it is served from the latest daily balance snapshot when one is recent enough and reported as
+     * stale, or left out and reported as missing. Partial results never seed the balance view.
+     */
+    private Mono<CustomerBalances> fetchPartialCustomerBalances(String customerId) {
+        LocalDateTime asOf = LocalDateTime.now();
+        return Mono.zip(
+                withinDeadline(ProductCategory.ACCOUNT, customerId, accountClient.getAccountsByCustomer(customerId)),
+                withinDeadline(ProductCategory.CREDIT_CARD, customerId,
+                        creditClient.getCreditCardsByCustomer(customerId)),
+                withinDeadline(ProductCategory.CREDIT, customerId, creditClient.getCreditsByCustomer(customerId)),
+                withinDeadline(ProductCategory.DEBIT_CARD, customerId,
+                        debitCardClientService.getDebitCardsByCustomer(customerId))
+        ).flatMap(tuple -> {
+            List<ProductCategory> missing = new ArrayList<>();
+            addIfMissing(missing, ProductCategory.ACCOUNT, tuple.getT1());
+            addIfMissing(missing, ProductCategory.CREDIT_CARD, tuple.getT2());
+            addIfMissing(missing, ProductCategory.CREDIT, tuple.getT3());
+            addIfMissing(missing, ProductCategory.DEBIT_CARD, tuple.getT4());
+            // Debit card balances are the balances of their accounts, which come from the same service.
+            if (missing.contains(ProductCategory.ACCOUNT) && !missing.contains(ProductCategory.DEBIT_CARD)) {
+                missing.add(ProductCategory.DEBIT_CARD);
+            }
+            Tuple4<List<Account>, List<CreditCard>, List<Credit>, List<DebitCard>> available = Tuples.of(
+                    tuple.getT1().orElse(Collections.emptyList()),
+                    tuple.getT2().orElse(Collections.emptyList()),
+                    tuple.getT3().orElse(Collections.emptyList()),
+                    missing.contains(ProductCategory.DEBIT_CARD)
+                            ? Collections.<DebitCard>emptyList() : tuple.getT4().get());
+            return mapToCustomerBalances(customerId, available)
+                    .doOnNext(balances -> balances.setAsOf(asOf))
+                    .flatMap(balances -> fillFromSnapshots(balances, missing));
+        });
+    }
+
+    private <T> Mono<Optional<List<T>>> withinDeadline(ProductCategory family, String customerId,
+                                                       Mono<List<T>> call) {
+        return call
+                .timeout(partialProperties.deadlineFor(family))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.of(Collections.emptyList()))
+                .onErrorResume(error -> {
+                    log.warn("Serving balances of customer {} without {}: {}", customerId, family,
+                            error.getMessage());
+                    metrics.operationFallback("getCustomerBalances", "partial", family);
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    private void addIfMissing(List<ProductCategory> missing, ProductCategory family, Optional<?> result) {
+        if (result.isEmpty()) {
+            missing.add(family);
+        }
+    }
+
+    private Mono<CustomerBalances> fillFromSnapshots(CustomerBalances balances, List<ProductCategory> missing) {
+        balances.setPartial(!missing.isEmpty());
+        balances.setMissingFamilies(missing);
+        balances.setStaleFamilies(new ArrayList<>());
+        if (missing.isEmpty() || !partialProperties.isSnapshotFallback()) {
+            return Mono.just(balances);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> families = missing.stream().map(Enum::name).collect(Collectors.toSet());
+        return dailyBalanceRepository.findByCustomerIdAndDateBetween(balances.getCustomerId(),
+                        now.minus(partialProperties.getSnapshotMaxAge()), now)
+                .filter(snapshot -> families.contains(snapshot.getProductType()))
+                .collect(LinkedHashMap<String, DailyBalance>::new, (latest, snapshot) -> latest.merge(
+                        snapshot.getProductId(), snapshot, (a, b) -> a.getDate().isAfter(b.getDate()) ? a : b))
+                .onErrorResume(error -> {
+                    log.error("Error reading balance snapshots for customer {}: {}", balances.getCustomerId(),
+                            error.getMessage());
+                    return Mono.just(new LinkedHashMap<>());
+                })
+                .map(latest -> {
+                    latest.values().forEach(snapshot -> {
+                        balances.getProducts().add(BalanceSnapshotFallback.toProductBalance(snapshot));
+                        ProductCategory family = ProductCategory.valueOf(snapshot.getProductType());
+                        if (!balances.getStaleFamilies().contains(family)) {
+                            balances.getStaleFamilies().add(family);
+                            metrics.operationFallback("getCustomerBalances", "snapshot", family);
+                        }
+                    });
+                    missing.removeAll(balances.getStaleFamilies());
+                    return balances;
+                });
+    }
+
+    Mono<CustomerBalances> mapToCustomerBalances(String customerId,
+                                                 Tuple4<List<Account>,
+                                                 List<CreditCard>,
+                                                 List<Credit>,
+                                                 List<DebitCard>> tuple) {
         List<ProductBalance> products = new ArrayList<>();
 
         tuple.getT1().forEach(account -> products.add(
@@ -105,24 +303,28 @@ public class ReportService {
                         .build()
         ));
 
-        return Flux.fromIterable(tuple.getT4())
-                .flatMap(debitCard -> accountClient.getAccountById(debitCard.getPrimaryAccountId())
-                        .map(account -> {
-                            BigDecimal accountBalance = BigDecimal.valueOf(account.getBalance());
-                            return ProductBalance.builder()
-                                    .productId(debitCard.getId())
-                                    .type(ProductCategory.DEBIT_CARD)
-                                    .subType(null)
-                                    .availableBalance(accountBalance)
-                                    .createdAt(debitCard.getCreatedAt())
-                                    .build();
-                        })
-                        .doOnError(error -> System.err.println("Error obtaining the account: " + error.getMessage()))
-                        .onErrorResume(error -> Mono.empty())
-                )
-                .collectList()
-                .map(debitCardBalances -> {
-                    products.addAll(debitCardBalances);
+        List<DebitCard> debitCards = tuple.getT4();
+        AccountResolver accountResolver = new AccountResolver(accountClient, tuple.getT1());
+        return accountResolver.resolve(debitCards.stream()
+                        .map(DebitCard::getPrimaryAccountId)
+                        .collect(Collectors.toList()))
+                .doOnError(error -> log.error("Error obtaining the accounts: {}", error.getMessage()))
+                .onErrorReturn(Collections.emptyMap())
+                .map(accounts -> {
+                    debitCards.forEach(debitCard -> {
+                        Account account = accounts.get(debitCard.getPrimaryAccountId());
+                        if (account == null) {
+                            return;
+                        }
+                        products.add(ProductBalance.builder()
+                                .productId(debitCard.getId())
+                                .type(ProductCategory.DEBIT_CARD)
+                                .subType(null)
+                                .availableBalance(BigDecimal.valueOf(account.getBalance()))
+                                .createdAt(debitCard.getCreatedAt())
+                                .linkedAccountId(debitCard.getPrimaryAccountId())
+                                .build());
+                    });
                     return CustomerBalances.builder()
                             .customerId(customerId)
                             .products(products)
@@ -130,10 +332,10 @@ public class ReportService {
                 });
     }
 
-    private CustomerBalances filterBalancesByTypeAndDates(CustomerBalances customerBalances,
-                                                          String typeProduct,
-                                                          LocalDate startDate,
-                                                          LocalDate endDate) {
+    CustomerBalances filterBalancesByTypeAndDates(CustomerBalances customerBalances,
+                                                  String typeProduct,
+                                                  LocalDate startDate,
+                                                  LocalDate endDate) {
         List<ProductBalance> filteredProducts = customerBalances.getProducts().stream()
                 .filter(product -> filterByProductType(product, typeProduct))
                 .filter(product -> filterByDateRange(product, startDate, endDate))
@@ -141,6 +343,10 @@ public class ReportService {
         return CustomerBalances.builder()
                 .customerId(customerBalances.getCustomerId())
                 .products(filteredProducts)
+                .partial(customerBalances.getPartial())
+                .missingFamilies(customerBalances.getMissingFamilies())
+                .staleFamilies(customerBalances.getStaleFamilies())
+                .asOf(customerBalances.getAsOf())
                 .build();
     }
     private boolean filterByProductType(ProductBalance product, String typeProduct) {
@@ -151,6 +357,11 @@ public class ReportService {
                 (product.getSubType() != null && product.getSubType().toString().equals(typeProduct));
     }
     private boolean filterByDateRange(ProductBalance product, LocalDate startDate, LocalDate endDate) {
+        // Products served from older snapshots may not know their creation date; they are kept rather than
+        // silently dropped, and the response already reports their family as stale.
+        if (product.getCreatedAt() == null) {
+            return true;
+        }
         LocalDate createdAt = product.getCreatedAt().toLocalDate();
         boolean afterStartDate = startDate == null || !createdAt.isBefore(startDate);
         boolean beforeEndDate = endDate == null || !createdAt.isAfter(endDate);
@@ -159,34 +370,53 @@ public class ReportService {
     public Mono<List<ProductMovement>> getProductMovements(String customerId, String productId) {
         return transactionClient.getTransactionsByCustomerAndProduct(customerId, productId)
                 .map(transactions -> transactions.stream()
-                        .map(transaction -> ProductMovement.builder()
-                                .transactionId(transaction.getId())
-                                .date(transaction.getTransactionDate())
-                                .type(transaction.getTransactionType())
-                                .amount(transaction.getAmount())
-                                .productCategory(transaction.getProductCategory())
-                                .productSubType(transaction.getProductSubType())
-                                .build())
-                        .collect(Collectors.toList()));
+                        .map(this::toProductMovement)
+                        .collect(Collectors.toList()))
+                .transform(metrics.operation("getProductMovements"));
     }
 
-    public Mono<List<ProductMovement>> getRecentCardMovements(String customerId, String cardId, int limit) {
-        return transactionClient.getTransactionsByCustomerAndProduct(customerId, cardId)
-                .map(transactions -> transactions.stream()
-                        .sorted(Comparator.comparing(Transaction::getTransactionDate).reversed())
-                        .limit(limit)
-                        .map(transaction -> ProductMovement.builder()
-                                .transactionId(transaction.getId())
-                                .date(transaction.getTransactionDate())
-                                .type(transaction.getTransactionType())
-                                .amount(transaction.getAmount())
-                                .productCategory(transaction.getProductCategory())
-                                .productSubType(transaction.getProductSubType())
-                                .build())
-                        .collect(Collectors.toList()));
+    public Flux<ProductMovement> streamProductMovements(String customerId, String productId) {
+        return transactionClient.streamTransactionsByCustomerAndProduct(customerId, productId)
+                .map(this::toProductMovement)
+                .transform(metrics.operationStream("streamProductMovements"));
+    }
+
+    public Mono<List<ProductMovement>> getRecentCardMovements(String customerId, String cardId, int limit,
+                                                              LocalDateTime before, String beforeId) {
+        return recentTransactions(customerId, cardId, limit, before, beforeId)
+                .map(recent -> recent.newestFirst().stream()
+                        .map(this::toProductMovement)
+                        .collect(Collectors.toList()))
+                .transform(metrics.operation("getRecentCardMovements"));
+    }
+
+    public Flux<ProductMovement> streamRecentCardMovements(String customerId, String cardId, int limit,
+                                                           LocalDateTime before, String beforeId) {
+        return recentTransactions(customerId, cardId, limit, before, beforeId)
+                .flatMapIterable(RecentTransactions::newestFirst)
+                .map(this::toProductMovement)
+                .transform(metrics.operationStream("streamRecentCardMovements"));
+    }
+
+    // The history is streamed into the bounded heap, so only the requested page is ever held in memory.
+    private Mono<RecentTransactions> recentTransactions(String customerId, String cardId, int limit,
+                                                        LocalDateTime before, String beforeId) {
+        return transactionClient.streamTransactionsByCustomerAndProduct(customerId, cardId)
+                .collect(() -> new RecentTransactions(limit, before, beforeId), RecentTransactions::offer);
     }
 
-    private ProductSubType mapAccountType(AccountType type) {
+    private ProductMovement toProductMovement(Transaction transaction) {
+        return ProductMovement.builder()
+                .transactionId(transaction.getId())
+                .date(transaction.getTransactionDate())
+                .type(transaction.getTransactionType())
+                .amount(transaction.getAmount())
+                .productCategory(transaction.getProductCategory())
+                .productSubType(transaction.getProductSubType())
+                .build();
+    }
+
+    static ProductSubType mapAccountType(AccountType type) {
         switch (type) {
             case SAVINGS:
                 return ProductSubType.SAVINGS;
@@ -198,7 +428,7 @@ public class ReportService {
                 throw new IllegalArgumentException("Tipo de cuenta no soportado: " + type);
         }
     }
-    private ProductSubType mapCreditCardType(CreditCardType type) {
+    static ProductSubType mapCreditCardType(CreditCardType type) {
         switch (type) {
             case PERSONAL_CREDIT_CARD:
                 return ProductSubType.PERSONAL_CREDIT_CARD;
@@ -208,7 +438,7 @@ public class ReportService {
                 throw new IllegalArgumentException("Tipo de tarjeta de crédito no soportado: " + type);
         }
     }
-    private ProductSubType mapCreditType(CreditType type) {
+    static ProductSubType mapCreditType(CreditType type) {
         switch (type) {
             case PERSONAL:
                 return ProductSubType.PERSONAL_CREDIT;
@@ -219,16 +449,40 @@ public class ReportService {
         }
     }
     public Mono<List<DailyBalanceSummary>> getMonthlyBalanceSummary(String customerId) {
-        LocalDateTime firstDayOfMonth = LocalDateTime.now().withDayOfMonth(1);
-        LocalDateTime today = LocalDateTime.now();
-        log.info("Finding balances for customer {} between {} and {}", customerId, firstDayOfMonth, today);
-        return dailyBalanceRepository.findByCustomerIdAndDateBetween(customerId, firstDayOfMonth, today)
+        LocalDate today = LocalDate.now();
+        return rollupService.findMonthlySummary(customerId, YearMonth.from(today))
+                .collectList()
+                .flatMap(summaries -> summaries.isEmpty()
+                        ? getBalanceSummary(customerId, today.withDayOfMonth(1), today)
+                        : Mono.just(summaries))
+                .transform(metrics.operation("getMonthlyBalanceSummary"));
+    }
+    public Mono<List<DailyBalanceSummary>> getBalanceSummary(String customerId,
+                                                             LocalDate startDate,
+                                                             LocalDate endDate) {
+        LocalDateTime first = startDate.atStartOfDay();
+        LocalDateTime last = endDate.atTime(LocalTime.MAX);
+        log.info("Finding balances for customer {} between {} and {}", customerId, first, last);
+        return dailyBalanceRepository.summarizeBalances(customerId, first, last)
+                .map(summary -> {
+                    if (summary.getAverageBalance() != null) {
+                        summary.setAverageBalance(summary.getAverageBalance().setScale(2, RoundingMode.HALF_UP));
+                    }
+                    return summary;
+                })
                 .collectList()
-                .map(this::calculateAverageBalances)
+                .onErrorResume(e -> {
+                    log.warn("Balance aggregation failed for customer {}, averaging snapshots in memory: {}",
+                            customerId, e.getMessage());
+                    return dailyBalanceRepository.findBalanceSnapshots(customerId, first, last)
+                            .collectList()
+                            .map(this::calculateAverageBalances);
+                })
                 .doOnNext(list -> log.info("Fetched {} balance summaries", list.size()))
-                .doOnError(e -> log.error("Error fetching balance summaries", e));
+                .doOnError(e -> log.error("Error fetching balance summaries", e))
+                .transform(metrics.operation("getBalanceSummary"));
     }
-    private List<DailyBalanceSummary> calculateAverageBalances(List<DailyBalance> balances) {
+    List<DailyBalanceSummary> calculateAverageBalances(List<DailyBalance> balances) {
         if (balances.isEmpty()) {
             return Collections.emptyList();
         }
@@ -254,42 +508,14 @@ public class ReportService {
                 .collect(Collectors.toList());
     }
     public Mono<BaseResponse<List<CategorySummary>>> fetchTransactionSummaryByDate(LocalDate startDate,
-                                                                                   LocalDate endDate) {
-        return transactionClient.getTransactionsByDate(startDate, endDate)
-                .flatMap(transactions -> {
-                    Map<ProductCategory, List<Transaction>> transactionsByCategory =
-                            Arrays.stream(ProductCategory.values())
-                            .collect(Collectors.toMap(category ->
-                                    category, category -> new ArrayList<>()));
-
-                    if (transactions != null && !transactions.isEmpty()) {
-                        transactions.stream()
-                                .filter(transaction -> transaction != null)
-                                .forEach(transaction -> {
-                                    ProductCategory category = transaction.getProductCategory();
-                                    transactionsByCategory.get(category).add(transaction);
-                                });
-                    }
-
-                    List<CategorySummary> categorySummaries =
-                            transactionsByCategory.entrySet().stream()
-                            .map(entry -> {
-                                int quantity = entry.getValue().size();
-                                double totalCommissions = entry.getValue().stream()
-                                        .filter(transaction ->
-                                                transaction != null && transaction.getCommissions() != null)
-                                        .map(Transaction::getCommissions)
-                                        .mapToDouble(BigDecimal::doubleValue)
-                                        .sum();
-                                return new CategorySummary(entry.getKey().toString(), quantity, totalCommissions);
-                            })
-                            .collect(Collectors.toList());
-
-                    return Mono.just(BaseResponse.<List<CategorySummary>>builder()
-                            .status(HttpStatus.OK.value())
-                            .message("Transactions retrieved successfully")
-                            .data(categorySummaries)
-                            .build());
-                });
+                                                                                   LocalDate endDate,
+                                                                                   TransactionGrouping grouping) {
+        return transactionSummaryService.summarize(startDate, endDate, grouping)
+                .map(summaries -> BaseResponse.<List<CategorySummary>>builder()
+                        .status(HttpStatus.OK.value())
+                        .message("Transactions retrieved successfully")
+                        .data(summaries)
+                        .build())
+                .transform(metrics.operation("fetchTransactionSummaryByDate"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import com.bank.reportservice.model.transaction.Transaction;
+import com.bank.reportservice.model.transaction.TransactionType;
+
+import java.util.function.Function;
+
+/**
+ * Dimension a transaction summary is grouped by. Enum-valued dimensions report every constant, including the ones
+ * with no transactions; merchants are only reported when they appear.
+ */
+public enum TransactionGrouping {
+    CATEGORY(ProductCategory.values(), Transaction::getProductCategory),
+    SUB_TYPE(ProductSubType.values(), Transaction::getProductSubType),
+    TRANSACTION_TYPE(TransactionType.values(), Transaction::getTransactionType),
+    MERCHANT(null, null);
+
+    private final Enum<?>[] keys;
+    private final Function<Transaction, Enum<?>> enumKey;
+
+    TransactionGrouping(Enum<?>[] keys, Function<Transaction, Enum<?>> enumKey) {
+        this.keys = keys;
+        this.enumKey = enumKey;
+    }
+
+    boolean isEnumKeyed() {
+        return keys != null;
+    }
+
+    Enum<?>[] keys() {
+        return keys;
+    }
+
+    /**
+     * Ordinal of the transaction's key, or -1 when the transaction has no value for this dimension.
+     */
+    int indexOf(Transaction transaction) {
+        Enum<?> key = enumKey.apply(transaction);
+        return key != null ? key.ordinal() : -1;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.dto.CategorySummary;
+import com.bank.reportservice.model.transaction.Transaction;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds transactions into per-group counts and exact commission totals in a single pass. Enum dimensions are
+ * indexed by ordinal into flat arrays, so adding a transaction allocates nothing beyond the BigDecimal sum;
+ * merchants fall back to a map. Accumulators over disjoint sets of transactions can be merged.
+ */
+public class TransactionSummaryAccumulator {
+    static final String UNKNOWN = "UNKNOWN";
+
+    private final TransactionGrouping grouping;
+    private final long[] counts;
+    private final BigDecimal[] commissions;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    public TransactionSummaryAccumulator(TransactionGrouping grouping) {
+        this.grouping = grouping;
+        int size = grouping.isEnumKeyed() ? grouping.keys().length : 0;
+        this.counts = new long[size];
+        this.commissions = new BigDecimal[size];
+        Arrays.fill(commissions, BigDecimal.ZERO);
+    }
+
+    public void add(Transaction transaction) {
+        if (transaction == null) {
+            return;
+        }
+        BigDecimal commission = transaction.getCommissions();
+        if (grouping.isEnumKeyed()) {
+            int index = grouping.indexOf(transaction);
+            if (index >= 0) {
+                counts[index]++;
+                if (commission != null) {
+                    commissions[index] = commissions[index].add(commission);
+                }
+                return;
+            }
+            bucket(UNKNOWN).add(1, commission);
+            return;
+        }
+        String merchant = transaction.getMerchantName();
+        bucket(merchant != null ? merchant : UNKNOWN).add(1, commission);
+    }
+
+    /**
+     * Adds a previously computed summary entry, e.g. a cached partial of a single day.
+     */
+    public void merge(CategorySummary summary) {
+        BigDecimal commission = summary.getCommissions();
+        if (grouping.isEnumKeyed()) {
+            Enum<?>[] keys = grouping.keys();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].name().equals(summary.getCategory())) {
+                    counts[i] += summary.getQuantity();
+                    if (commission != null) {
+                        commissions[i] = commissions[i].add(commission);
+                    }
+                    return;
+                }
+            }
+        }
+        if (summary.getQuantity() > 0) {
+            bucket(summary.getCategory()).add(summary.getQuantity(), commission);
+        }
+    }
+
+    public TransactionSummaryAccumulator merge(TransactionSummaryAccumulator other) {
+        if (other.grouping != grouping) {
+            throw new IllegalArgumentException("Cannot merge " + other.grouping + " summary into " + grouping);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+            commissions[i] = commissions[i].add(other.commissions[i]);
+        }
+        other.buckets.forEach((key, bucket) -> bucket(key).add(bucket.count, bucket.commissions));
+        return this;
+    }
+
+    public List<CategorySummary> toSummaries() {
+        List<CategorySummary> summaries = new ArrayList<>(counts.length + buckets.size());
+        for (int i = 0; i < counts.length; i++) {
+            summaries.add(new CategorySummary(grouping.keys()[i].name(), counts[i], commissions[i]));
+        }
+        buckets.forEach((key, bucket) -> summaries.add(new CategorySummary(key, bucket.count, bucket.commissions)));
+        return summaries;
+    }
+
+    private Bucket bucket(String key) {
+        return buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    private static final class Bucket {
+        private long count;
+        private BigDecimal commissions = BigDecimal.ZERO;
+
+        private void add(long quantity, BigDecimal commission) {
+            count += quantity;
+            if (commission != null) {
+                commissions = commissions.add(commission);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.client.TransactionClientService;
+import com.bank.reportservice.config.TransactionSummaryProperties;
+import com.bank.reportservice.dto.CategorySummary;
+import com.bank.reportservice.model.transaction.DailyTransactionSummary;
+import com.bank.reportservice.model.transaction.Transaction;
+import com.bank.reportservice.repository.DailyTransactionSummaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summarizes the transactions of a date range. Long ranges are split into fixed-size windows that are fetched with
+ * bounded parallelism and folded independently; the partial accumulators are merged as the windows complete, so
+ * a quarter-long report is a series of small requests instead of one giant payload.
+ *
+ * <p>Days older than the open period cannot change any more, so their partial summaries are kept in Mongo. A range
+ * query merges the cached days and only goes upstream for days that are missing or still open.
+ */
+@Service
+@Slf4j
+public class TransactionSummaryService {
+    private final TransactionClientService transactionClient;
+    private final DailyTransactionSummaryRepository summaryRepository;
+    private final TransactionSummaryProperties properties;
+    private final Counter cachedDays;
+    private final Counter fetchedDays;
+    private final Timer mergeLatency;
+
+    public TransactionSummaryService(TransactionClientService transactionClient,
+                                     DailyTransactionSummaryRepository summaryRepository,
+                                     TransactionSummaryProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.transactionClient = transactionClient;
+        this.summaryRepository = summaryRepository;
+        this.properties = properties;
+        this.cachedDays = Counter.builder("report.transaction-summary.cache.days")
+                .description("Closed days served from the daily summary cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.fetchedDays = Counter.builder("report.transaction-summary.cache.days")
+                .description("Closed days missing from the daily summary cache and fetched upstream")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.mergeLatency = Timer.builder("report.transaction-summary.cache.merge")
+                .description("Time to load and merge the cached daily partials of a range")
+                .register(meterRegistry);
+    }
+
+    public Mono<List<CategorySummary>> summarize(LocalDate startDate, LocalDate endDate,
+                                                 TransactionGrouping grouping) {
+        if (!properties.isCacheEnabled() || startDate.isAfter(endDate)) {
+            return fetchRange(startDate, endDate, grouping)
+                    .map(TransactionSummaryAccumulator::toSummaries);
+        }
+        LocalDate firstOpenDay = LocalDate.now().minusDays(Math.max(properties.getOpenDays(), 1) - 1L);
+        LocalDate lastClosedDay = endDate.isBefore(firstOpenDay) ? endDate : firstOpenDay.minusDays(1);
+        Mono<TransactionSummaryAccumulator> closed = startDate.isAfter(lastClosedDay)
+                ? Mono.empty()
+                : summarizeClosedDays(startDate, lastClosedDay, grouping);
+        Mono<TransactionSummaryAccumulator> open = endDate.isBefore(firstOpenDay)
+                ? Mono.empty()
+                : fetchRange(startDate.isAfter(firstOpenDay) ? startDate : firstOpenDay, endDate, grouping);
+        return Flux.merge(closed, open)
+                .reduce(TransactionSummaryAccumulator::merge)
+                .defaultIfEmpty(new TransactionSummaryAccumulator(grouping))
+                .map(TransactionSummaryAccumulator::toSummaries);
+    }
+
+    private Mono<TransactionSummaryAccumulator> fetchRange(LocalDate startDate, LocalDate endDate,
+                                                           TransactionGrouping grouping) {
+        List<LocalDate[]> windows = windows(startDate, endDate);
+        log.debug("Summarizing transactions from {} to {} in {} windows", startDate, endDate, windows.size());
+        return Flux.fromIterable(windows)
+                .flatMap(window -> summarizeWindow(window[0], window[1], grouping), windowConcurrency())
+                .reduce(TransactionSummaryAccumulator::merge)
+                .defaultIfEmpty(new TransactionSummaryAccumulator(grouping));
+    }
+
+    private Mono<TransactionSummaryAccumulator> summarizeWindow(LocalDate first, LocalDate last,
+                                                                TransactionGrouping grouping) {
+        return transactionClient.streamTransactionsByDate(first, last)
+                .collect(() -> new TransactionSummaryAccumulator(grouping), TransactionSummaryAccumulator::add);
+    }
+
+    private Mono<TransactionSummaryAccumulator> summarizeClosedDays(LocalDate first, LocalDate last,
+                                                                    TransactionGrouping grouping) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return summaryRepository.findByIdRange(DailyTransactionSummary.idOf(grouping.name(), first),
+                            DailyTransactionSummary.idOf(grouping.name(), last))
+                    .collectList()
+                    .flatMap(partials -> {
+                        TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator(grouping);
+                        List<LocalDate> missing = new ArrayList<>();
+                        Set<LocalDate> cached = new HashSet<>();
+                        partials.forEach(partial -> {
+                            cached.add(partial.getDate());
+                            partial.getEntries().forEach(accumulator::merge);
+                        });
+                        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                            if (!cached.contains(day)) {
+                                missing.add(day);
+                            }
+                        }
+                        mergeLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        cachedDays.increment(cached.size());
+                        fetchedDays.increment(missing.size());
+                        return Flux.fromIterable(missingWindows(missing))
+                                .flatMap(window -> fetchAndCacheDays(window[0], window[1], grouping),
+                                        windowConcurrency())
+                                .reduce(accumulator, TransactionSummaryAccumulator::merge);
+                    });
+        });
+    }
+
+    /**
+     * Fetches one window and splits it into per-day partials, which are stored before being merged. Days without
+     * transactions are stored too, so they are not fetched again. A transaction that is undated or dated outside the
+     * window is counted in this answer but belongs to no day, so such a window is not cached at all: the cached days
+     * would otherwise answer the next query without it.
+     */
+    private Mono<TransactionSummaryAccumulator> fetchAndCacheDays(LocalDate first, LocalDate last,
+                                                                  TransactionGrouping grouping) {
+        return transactionClient.streamTransactionsByDate(first, last)
+                .collect(() -> new WindowDays(first, last, grouping), WindowDays::add)
+                .flatMap(days -> {
+                    TransactionSummaryAccumulator window = new TransactionSummaryAccumulator(grouping)
+                            .merge(days.unplaced);
+                    days.days.values().forEach(window::merge);
+                    if (days.unplacedCount > 0) {
+                        log.warn("{} transactions from {} to {} are undated or outside the window; "
+                                + "the window is not cached", days.unplacedCount, first, last);
+                        return Mono.just(window);
+                    }
+                    LocalDateTime computedAt = LocalDateTime.now();
+                    List<DailyTransactionSummary> partials = new ArrayList<>(days.days.size());
+                    days.days.forEach((day, accumulator) -> partials.add(DailyTransactionSummary.builder()
+                            .id(DailyTransactionSummary.idOf(grouping.name(), day))
+                            .grouping(grouping.name())
+                            .date(day)
+                            .entries(accumulator.toSummaries())
+                            .computedAt(computedAt)
+                            .build()));
+                    return summaryRepository.saveAll(partials)
+                            .then(Mono.just(window))
+                            .onErrorResume(error -> {
+                                log.error("Error caching transaction summaries from {} to {}: {}",
+                                        first, last, error.getMessage());
+                                return Mono.just(window);
+                            });
+                });
+    }
+
+    /**
+     * Groups missing days into runs of consecutive days, each split into windows of at most {@code windowDays}.
+     */
+    private List<LocalDate[]> missingWindows(List<LocalDate> missing) {
+        List<LocalDate[]> windows = new ArrayList<>();
+        int index = 0;
+        while (index < missing.size()) {
+            LocalDate runStart = missing.get(index);
+            LocalDate runEnd = runStart;
+            while (index + 1 < missing.size() && missing.get(index + 1).equals(runEnd.plusDays(1))) {
+                runEnd = missing.get(++index);
+            }
+            windows.addAll(windows(runStart, runEnd));
+            index++;
+        }
+        return windows;
+    }
+
+    /**
+     * Splits {@code [startDate, endDate]} into consecutive inclusive windows of at most {@code windowDays} days.
+     */
+    List<LocalDate[]> windows(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate[]> windows = new ArrayList<>();
+        if (startDate.isAfter(endDate)) {
+            return windows;
+        }
+        int windowDays = properties.getWindowDays();
+        if (windowDays <= 0) {
+            windows.add(new LocalDate[] {startDate, endDate});
+            return windows;
+        }
+        for (LocalDate first = startDate; !first.isAfter(endDate); first = first.plusDays(windowDays)) {
+            LocalDate last = first.plusDays(windowDays - 1L);
+            windows.add(new LocalDate[] {first, last.isAfter(endDate) ? endDate : last});
+        }
+        return windows;
+    }
+
+    private int windowConcurrency() {
+        return Math.max(properties.getWindowConcurrency(), 1);
+    }
+
+    /**
+     * Per-day accumulators of one fetched window, plus the transactions that cannot be placed on any of its days.
+     */
+    private static final class WindowDays {
+        private final LocalDate first;
+        private final LocalDate last;
+        private final Map<LocalDate, TransactionSummaryAccumulator> days = new TreeMap<>();
+        private final TransactionSummaryAccumulator unplaced;
+        private int unplacedCount;
+
+        private WindowDays(LocalDate first, LocalDate last, TransactionGrouping grouping) {
+            this.first = first;
+            this.last = last;
+            this.unplaced = new TransactionSummaryAccumulator(grouping);
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                days.put(day, new TransactionSummaryAccumulator(grouping));
+            }
+        }
+
+        private void add(Transaction transaction) {
+            LocalDate day = transaction != null && transaction.getTransactionDate() != null
+                    ? transaction.getTransactionDate().toLocalDate()
+                    : null;
+            if (day == null || day.isBefore(first) || day.isAfter(last)) {
+                unplaced.add(transaction);
+                unplacedCount++;
+                return;
+            }
+            days.get(day).add(transaction);
+        }
+    }
+}
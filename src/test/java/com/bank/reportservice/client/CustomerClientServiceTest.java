@@ -0,0 +1,100 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.UpstreamHttpProperties;
+import com.bank.reportservice.config.UpstreamLoggingProperties;
+import com.bank.reportservice.metrics.ReportMetrics;
+import com.bank.reportservice.model.customer.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerClientServiceTest {
+    private MockWebServer server;
+    private UpstreamWebClientFactory factory;
+    private CustomerClientService customerClientService;
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        factory = new UpstreamWebClientFactory(WebClient.builder(), new UpstreamHttpProperties());
+        UpstreamResilience resilience = mock(UpstreamResilience.class);
+        when(resilience.mono("customerService")).thenReturn(Function.identity());
+        customerClientService = new CustomerClientService(factory, server.url("/").toString(), resilience,
+                new UpstreamResponseLogger(new UpstreamLoggingProperties()),
+                new ReportMetrics(new SimpleMeterRegistry()));
+    }
+    @AfterEach
+    void tearDown() throws IOException {
+        factory.destroy();
+        server.shutdown();
+    }
+    @Test
+    void getAllCustomers_shouldStopAtFirstShortPage() throws InterruptedException {
+        // Arrange
+        server.enqueue(page("customer-0", "customer-1"));
+        server.enqueue(page("customer-2"));
+        // Act & Assert
+        StepVerifier.create(customerClientService.getAllCustomers(2).map(Customer::getId))
+                .expectNext("customer-0", "customer-1", "customer-2")
+                .verifyComplete();
+        assertEquals(2, server.getRequestCount());
+        assertEquals("/?size=2", server.takeRequest(1, TimeUnit.SECONDS).getPath());
+        assertEquals("/?after=customer-1&size=2", server.takeRequest(1, TimeUnit.SECONDS).getPath());
+    }
+    @Test
+    void getAllCustomers_shouldStopAtEmptyPageAfterFullOne() {
+        // Arrange
+        server.enqueue(page("customer-0", "customer-1"));
+        server.enqueue(page());
+        // Act & Assert
+        StepVerifier.create(customerClientService.getAllCustomers(2).map(Customer::getId))
+                .expectNext("customer-0", "customer-1")
+                .verifyComplete();
+        assertEquals(2, server.getRequestCount());
+    }
+    @Test
+    void getAllCustomers_shouldFailWhenServiceIgnoresCursor() {
+        // Arrange
+        server.enqueue(page("customer-0", "customer-1"));
+        server.enqueue(page("customer-0", "customer-1"));
+        // Act & Assert
+        StepVerifier.create(customerClientService.getAllCustomers(2).map(Customer::getId))
+                .expectNext("customer-0", "customer-1")
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(2, server.getRequestCount());
+    }
+    @Test
+    void getAllCustomers_shouldStopWhenServiceIgnoresSize() {
+        // Arrange
+        server.enqueue(page("customer-0", "customer-1", "customer-2"));
+        server.enqueue(page("customer-0", "customer-1", "customer-2"));
+        // Act & Assert
+        StepVerifier.create(customerClientService.getAllCustomers(2).map(Customer::getId))
+                .expectNext("customer-0", "customer-1", "customer-2")
+                .verifyComplete();
+        assertEquals(1, server.getRequestCount());
+    }
+    private static MockResponse page(String... ids) {
+        StringBuilder data = new StringBuilder();
+        for (String id : ids) {
+            data.append(data.length() == 0 ? "" : ",").append("{\"id\":\"").append(id).append("\"}");
+        }
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"status\":200,\"data\":[" + data + "]}");
+    }
+}
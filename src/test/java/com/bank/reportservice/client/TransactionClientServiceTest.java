@@ -0,0 +1,80 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.UpstreamHttpProperties;
+import com.bank.reportservice.config.UpstreamLoggingProperties;
+import com.bank.reportservice.metrics.ReportMetrics;
+import com.bank.reportservice.model.transaction.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionClientServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+    private MockWebServer server;
+    private UpstreamWebClientFactory factory;
+    private TransactionClientService transactionClientService;
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        factory = new UpstreamWebClientFactory(WebClient.builder(), new UpstreamHttpProperties());
+        UpstreamResilience resilience = mock(UpstreamResilience.class);
+        when(resilience.flux("transactionService")).thenReturn(Function.identity());
+        transactionClientService = new TransactionClientService(factory, server.url("/").toString(), resilience,
+                new UpstreamResponseLogger(new UpstreamLoggingProperties()),
+                new ReportMetrics(new SimpleMeterRegistry()));
+    }
+    @AfterEach
+    void tearDown() throws IOException {
+        factory.destroy();
+        server.shutdown();
+    }
+    @Test
+    void streamTransactionsByDate_shouldDecodeNdjson() throws InterruptedException {
+        // Arrange
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/x-ndjson")
+                .setBody("{\"id\":\"transaction1\"}\n{\"id\":\"transaction2\"}\n"));
+        // Act & Assert
+        StepVerifier.create(transactionClientService.streamTransactionsByDate(DAY, DAY).map(Transaction::getId))
+                .expectNext("transaction1", "transaction2")
+                .verifyComplete();
+        assertEquals("application/x-ndjson", server.takeRequest(1, TimeUnit.SECONDS).getHeader("Accept"));
+    }
+    @Test
+    void streamTransactionsByDate_shouldDecodeWrappedJsonList() {
+        // Arrange
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"status\":200,\"data\":[{\"id\":\"transaction1\"},{\"id\":\"transaction2\"}]}"));
+        // Act & Assert
+        StepVerifier.create(transactionClientService.streamTransactionsByDate(DAY, DAY).map(Transaction::getId))
+                .expectNext("transaction1", "transaction2")
+                .verifyComplete();
+    }
+    @Test
+    void streamTransactionsByDate_shouldFailOnUnsupportedContentType() {
+        // Arrange
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/html")
+                .setBody("<html></html>"));
+        // Act & Assert
+        StepVerifier.create(transactionClientService.streamTransactionsByDate(DAY, DAY))
+                .expectError(RuntimeException.class)
+                .verify();
+    }
+}
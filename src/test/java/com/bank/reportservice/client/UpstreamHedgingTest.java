@@ -0,0 +1,114 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.HedgingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UpstreamHedgingTest {
+    private HedgingProperties properties;
+    private HedgingProperties.Policy policy;
+    private SimpleMeterRegistry meterRegistry;
+    private UpstreamHedging hedging;
+    @BeforeEach
+    void setUp() {
+        properties = new HedgingProperties();
+        policy = new HedgingProperties.Policy();
+        policy.setEnabled(true);
+        policy.setInitialDelay(Duration.ofMillis(50));
+        policy.setBudgetRatio(1.0);
+        properties.getServices().put("accountService", policy);
+        meterRegistry = new SimpleMeterRegistry();
+        hedging = new UpstreamHedging(properties, meterRegistry);
+    }
+    @Test
+    void mono_shouldReturnHedgeWhenPrimaryIsSlow() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.just("primary").delayElement(Duration.ofSeconds(2))
+                : Mono.just("hedge"));
+        // Act & Assert
+        StepVerifier.create(call.transform(hedging.mono("accountService")))
+                .expectNext("hedge")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, count("sent"));
+        assertEquals(1.0, count("won"));
+    }
+    @Test
+    void mono_shouldReturnHedgeWhenPrimaryFailsAfterHedgeWasSent() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.<String>error(new RuntimeException("Server error: 503 SERVICE_UNAVAILABLE"))
+                        .delaySubscription(Duration.ofMillis(100))
+                : Mono.just("hedge").delayElement(Duration.ofMillis(100)));
+        // Act & Assert
+        StepVerifier.create(call.transform(hedging.mono("accountService")))
+                .expectNext("hedge")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertEquals(1.0, count("won"));
+    }
+    @Test
+    void mono_shouldFailWithPrimaryErrorWithoutHedging() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new UpstreamClientErrorException("Client error: 404 NOT_FOUND"));
+        });
+        // Act & Assert
+        StepVerifier.create(call.transform(hedging.mono("accountService")))
+                .expectError(UpstreamClientErrorException.class)
+                .verify(Duration.ofSeconds(1));
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, count("sent"));
+    }
+    @Test
+    void mono_shouldNotHedgeWhenBudgetIsExhausted() {
+        // Arrange
+        policy.setBudgetRatio(0);
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.just("primary").delayElement(Duration.ofMillis(200));
+        });
+        // Act & Assert
+        StepVerifier.create(call.transform(hedging.mono("accountService")))
+                .expectNext("primary")
+                .verifyComplete();
+        assertEquals(1, attempts.get());
+        assertEquals(1.0, count("skipped"));
+    }
+    @Test
+    void mono_shouldPassThroughWhenHedgingIsDisabled() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.just("primary").delayElement(Duration.ofMillis(200));
+        });
+        // Act & Assert
+        StepVerifier.create(call.transform(hedging.mono("creditService")))
+                .expectNext("primary")
+                .verifyComplete();
+        assertEquals(1, attempts.get());
+    }
+    private double count(String outcome) {
+        return meterRegistry.get("report.upstream.hedging.requests")
+                .tag("service", "accountService")
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
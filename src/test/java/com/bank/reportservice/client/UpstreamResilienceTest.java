@@ -0,0 +1,113 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.HedgingProperties;
+import com.bank.reportservice.config.Resilience4jConfig;
+import com.bank.reportservice.config.ResilienceProperties;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamResilienceTest {
+    private ResilienceProperties properties;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private UpstreamResilience resilience;
+    @BeforeEach
+    void setUp() {
+        properties = new ResilienceProperties();
+        ResilienceProperties.Service settings = new ResilienceProperties.Service();
+        settings.setTimeout(Duration.ofMillis(200));
+        settings.setInitialBackoff(Duration.ofMillis(10));
+        settings.setMaxConcurrentCalls(1);
+        properties.getServices().put("accountService", settings);
+        Resilience4jConfig config = new Resilience4jConfig();
+        circuitBreakerRegistry = config.circuitBreakerRegistry(properties);
+        resilience = new UpstreamResilience(circuitBreakerRegistry,
+                config.timeLimiterRegistry(properties),
+                config.retryRegistry(properties),
+                config.bulkheadRegistry(properties),
+                new UpstreamHedging(new HedgingProperties(), new SimpleMeterRegistry()));
+    }
+    @Test
+    void mono_shouldRetryServerErrorsUntilSuccess() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() < 3
+                ? Mono.error(new RuntimeException("Server error: 503 SERVICE_UNAVAILABLE"))
+                : Mono.just("ok"));
+        // Act & Assert
+        StepVerifier.create(call.transform(resilience.mono("accountService")))
+                .expectNext("ok")
+                .verifyComplete();
+        assertEquals(3, attempts.get());
+    }
+    @Test
+    void mono_shouldNotRetryClientErrors() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new UpstreamClientErrorException("Client error: 404 NOT_FOUND"));
+        });
+        // Act & Assert
+        StepVerifier.create(call.transform(resilience.mono("accountService")))
+                .expectError(UpstreamClientErrorException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+    }
+    @Test
+    void mono_shouldNotOpenCircuitOnClientErrors() {
+        // Arrange
+        Mono<String> call = Mono.error(new UpstreamClientErrorException("Client error: 404 NOT_FOUND"));
+        // Act
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(call.transform(resilience.mono("accountService")))
+                    .expectError(UpstreamClientErrorException.class)
+                    .verify();
+        }
+        // Assert
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("accountService");
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+    @Test
+    void circuitBreaker_shouldCountCallsSlowBeforeTheyTimeOut() {
+        // Act
+        Duration slowCall = circuitBreakerRegistry.circuitBreaker("accountService").getCircuitBreakerConfig()
+                .getSlowCallDurationThreshold();
+        // Assert
+        assertTrue(slowCall.compareTo(Duration.ofMillis(200)) < 0);
+    }
+    @Test
+    void mono_shouldTimeOutSlowCalls() {
+        // Arrange
+        Mono<String> call = Mono.just("late").delayElement(Duration.ofSeconds(2));
+        // Act & Assert
+        StepVerifier.create(call.transform(resilience.mono("accountService")))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+    @Test
+    void flux_shouldRejectCallsBeyondBulkheadLimit() {
+        // Arrange
+        Flux<String> slow = Flux.just("a").delayElements(Duration.ofMillis(100));
+        Flux<String> first = slow.transform(resilience.flux("accountService"));
+        Flux<String> second = Flux.just("b").transform(resilience.flux("accountService"));
+        // Act & Assert
+        StepVerifier.create(Flux.merge(first, second))
+                .expectError(BulkheadFullException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.UpstreamLoggingProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UpstreamResponseLoggerTest {
+    @Test
+    void log_shouldPassResponseThroughUnchanged() {
+        // Arrange
+        UpstreamLoggingProperties properties = new UpstreamLoggingProperties();
+        properties.setSampleRate(1.0);
+        properties.setPayloadClients(Set.of("account"));
+        UpstreamResponseLogger responseLogger = new UpstreamResponseLogger(properties);
+        List<String> accounts = List.of("A1", "A2");
+        // Act & Assert
+        StepVerifier.create(Mono.just(accounts).transform(responseLogger.log("account", "getAccountsByCustomer")))
+                .expectNext(accounts)
+                .verifyComplete();
+    }
+    @Test
+    void sizeOf_shouldCountCollectionsAndMaps() {
+        assertEquals(2, UpstreamResponseLogger.sizeOf(List.of("A1", "A2")));
+        assertEquals(1, UpstreamResponseLogger.sizeOf(Map.of("A1", 1)));
+        assertEquals(1, UpstreamResponseLogger.sizeOf("A1"));
+        assertEquals(0, UpstreamResponseLogger.sizeOf(null));
+    }
+}
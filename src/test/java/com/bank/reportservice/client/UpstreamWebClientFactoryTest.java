@@ -0,0 +1,60 @@
+package com.bank.reportservice.client;
+
+import com.bank.reportservice.config.UpstreamHttpProperties;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UpstreamWebClientFactoryTest {
+    private MockWebServer server;
+    private UpstreamHttpProperties properties;
+    private UpstreamWebClientFactory factory;
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        properties = new UpstreamHttpProperties();
+        factory = new UpstreamWebClientFactory(WebClient.builder(), properties);
+    }
+    @AfterEach
+    void tearDown() throws IOException {
+        factory.destroy();
+        server.shutdown();
+    }
+    @Test
+    void create_shouldRequestCompressedResponses() throws InterruptedException {
+        // Arrange
+        server.enqueue(new MockResponse().setBody("ok"));
+        WebClient webClient = factory.create("account", server.url("/").toString());
+        // Act & Assert
+        StepVerifier.create(webClient.get().uri("/accounts").retrieve().bodyToMono(String.class))
+                .expectNext("ok")
+                .verifyComplete();
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertEquals("gzip", request.getHeader("Accept-Encoding"));
+    }
+    @Test
+    void create_shouldFailSlowResponsesAfterResponseTimeout() {
+        // Arrange
+        UpstreamHttpProperties.Service settings = new UpstreamHttpProperties.Service();
+        settings.setResponseTimeout(Duration.ofMillis(100));
+        properties.getServices().put("credit", settings);
+        server.enqueue(new MockResponse().setBody("late").setHeadersDelay(1, TimeUnit.SECONDS));
+        WebClient webClient = factory.create("credit", server.url("/").toString());
+        // Act & Assert
+        StepVerifier.create(webClient.get().uri("/credits").retrieve().bodyToMono(String.class))
+                .expectError()
+                .verify(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,71 @@
+package com.bank.reportservice.client.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for Redis: honours TTLs and can be switched to fail every call like an unreachable server, or
+ * to never answer like a server that accepted the connection and stalled.
+ */
+class InMemoryUpstreamCacheStore implements UpstreamCacheStore {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean unavailable;
+    private volatile boolean hanging;
+
+    @Override
+    public Mono<String> get(String key) {
+        return Mono.defer(() -> {
+            if (hanging) {
+                return Mono.never();
+            }
+            if (unavailable) {
+                return Mono.error(new IllegalStateException("Redis unavailable"));
+            }
+            Entry entry = entries.get(key);
+            if (entry == null || entry.expiresAt < System.nanoTime()) {
+                entries.remove(key);
+                return Mono.empty();
+            }
+            return Mono.just(entry.value);
+        });
+    }
+
+    @Override
+    public Mono<Boolean> put(String key, String value, Duration ttl) {
+        return Mono.defer(() -> {
+            if (unavailable) {
+                return Mono.error(new IllegalStateException("Redis unavailable"));
+            }
+            entries.put(key, new Entry(value, ttl, System.nanoTime() + ttl.toNanos()));
+            return Mono.just(true);
+        });
+    }
+
+    Duration ttlOf(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.ttl : null;
+    }
+
+    void setUnavailable(boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    void setHanging(boolean hanging) {
+        this.hanging = hanging;
+    }
+
+    private static final class Entry {
+        private final String value;
+        private final Duration ttl;
+        private final long expiresAt;
+
+        private Entry(String value, Duration ttl, long expiresAt) {
+            this.value = value;
+            this.ttl = ttl;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
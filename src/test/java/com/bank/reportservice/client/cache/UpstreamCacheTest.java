@@ -0,0 +1,175 @@
+package com.bank.reportservice.client.cache;
+
+import com.bank.reportservice.config.UpstreamCacheProperties;
+import com.bank.reportservice.model.account.Account;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UpstreamCacheTest {
+    private static final TypeReference<List<Account>> ACCOUNT_LIST = new TypeReference<List<Account>>() { };
+
+    private InMemoryUpstreamCacheStore store;
+    private UpstreamCacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private UpstreamCache cache;
+    private AtomicInteger upstreamCalls;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryUpstreamCacheStore();
+        properties = new UpstreamCacheProperties();
+        properties.setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UpstreamCache(store, new ObjectMapper().findAndRegisterModules(), properties, meterRegistry);
+        upstreamCalls = new AtomicInteger();
+        account = new Account();
+        account.setId("account123");
+        account.setCustomerId("customer123");
+        account.setBalance(1000.0);
+    }
+
+    @Test
+    void getOrLoad_ShouldServeSecondLookupFromCache() {
+        // Act & Assert
+        StepVerifier.create(cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream))
+                .expectNext(Collections.singletonList(account))
+                .verifyComplete();
+        StepVerifier.create(cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream))
+                .expectNext(Collections.singletonList(account))
+                .verifyComplete();
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, lookups("hit"));
+        assertEquals(1, lookups("miss"));
+    }
+
+    @Test
+    void getOrLoad_ShouldCoalesceConcurrentMisses() {
+        // Arrange
+        Sinks.One<List<Account>> upstream = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+        Mono<List<Account>> first = cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<List<Account>> second = cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+        // Act & Assert
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue(Collections.singletonList(account)))
+                .assertNext(results -> {
+                    assertEquals(results.getT1(), results.getT2());
+                    assertEquals("account123", results.getT1().get(0).getId());
+                })
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("report.upstream.cache.coalesced").counter().count());
+    }
+
+    @Test
+    void getOrLoad_ShouldFallThroughToUpstreamWhenStoreFails() {
+        // Arrange
+        store.setUnavailable(true);
+        // Act & Assert
+        StepVerifier.create(cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream))
+                .expectNext(Collections.singletonList(account))
+                .verifyComplete();
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1.0, meterRegistry.get("report.upstream.cache.errors")
+                .tag("operation", "read").counter().count());
+        assertEquals(1.0, meterRegistry.get("report.upstream.cache.errors")
+                .tag("operation", "write").counter().count());
+    }
+
+    @Test
+    void getOrLoad_ShouldNotCacheUpstreamErrors() {
+        // Act & Assert
+        StepVerifier.create(cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, () ->
+                        Mono.error(new RuntimeException("Account service is unavailable"))))
+                .verifyError(RuntimeException.class);
+        StepVerifier.create(cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream))
+                .expectNext(Collections.singletonList(account))
+                .verifyComplete();
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void getOrLoad_ShouldApplyEntityTtl() {
+        // Arrange
+        properties.getTtl().put("accounts", Duration.ofMinutes(2));
+        // Act
+        cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream).block();
+        // Assert
+        assertEquals(Duration.ofMinutes(2), store.ttlOf("report-service:accounts:customer123"));
+    }
+
+    @Test
+    void getOrLoad_ShouldBypassStoreWhenDisabled() {
+        // Arrange
+        properties.setEnabled(false);
+        // Act
+        cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream).block();
+        cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream).block();
+        // Assert
+        assertEquals(2, upstreamCalls.get());
+        assertNull(store.ttlOf("report-service:accounts:customer123"));
+    }
+
+    @Test
+    void getOrLoad_ShouldFallThroughToUpstreamWhenStoreHangs() {
+        // Arrange
+        properties.setTimeout(Duration.ofMillis(50));
+        store.setHanging(true);
+        // Act & Assert
+        StepVerifier.create(cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream))
+                .expectNext(Collections.singletonList(account))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1.0, meterRegistry.get("report.upstream.cache.errors")
+                .tag("operation", "read").counter().count());
+    }
+
+    @Test
+    void getOrLoad_ShouldBypassStoreForPipelinesThatOptOut() {
+        // Act
+        cache.getOrLoad("accounts", "customer123", ACCOUNT_LIST, this::upstream)
+                .contextWrite(Context.of(UpstreamCache.BYPASS, true))
+                .block();
+        // Assert
+        assertEquals(1, upstreamCalls.get());
+        assertNull(store.ttlOf("report-service:accounts:customer123"));
+    }
+
+    private Mono<List<Account>> upstream() {
+        return Mono.fromCallable(() -> {
+            upstreamCalls.incrementAndGet();
+            return Collections.singletonList(account);
+        });
+    }
+
+    private long lookups(String result) {
+        return meterRegistry.get("report.upstream.cache.lookups")
+                .tag("entity", "accounts")
+                .tag("result", result)
+                .timer()
+                .count();
+    }
+}
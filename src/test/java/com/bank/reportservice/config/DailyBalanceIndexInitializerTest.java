@@ -0,0 +1,119 @@
+package com.bank.reportservice.config;
+
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.balance.DailyBalanceCheckpoint;
+import com.bank.reportservice.model.balance.DailyBalancePartition;
+import com.bank.reportservice.model.balance.MonthlyBalanceRollup;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalanceIndexInitializerTest {
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private ReactiveIndexOperations snapshotIndexOps;
+    @Mock
+    private ReactiveIndexOperations otherIndexOps;
+    private final DailyBalanceJobProperties properties = new DailyBalanceJobProperties();
+    private DailyBalanceIndexInitializer initializer;
+    @BeforeEach
+    void setUp() {
+        properties.setRetention(Duration.ofDays(30));
+        when(mongoTemplate.indexOps(DailyBalance.class)).thenReturn(snapshotIndexOps);
+        when(mongoTemplate.indexOps(MonthlyBalanceRollup.class)).thenReturn(otherIndexOps);
+        when(mongoTemplate.indexOps(DailyBalancePartition.class)).thenReturn(otherIndexOps);
+        when(mongoTemplate.indexOps(DailyBalanceCheckpoint.class)).thenReturn(otherIndexOps);
+        when(otherIndexOps.getIndexInfo()).thenReturn(Flux.empty());
+        when(snapshotIndexOps.ensureIndex(any(IndexDefinition.class)))
+                .thenAnswer(invocation -> Mono.just(((Index) invocation.getArgument(0)).getIndexOptions()
+                        .getString("name")));
+        when(otherIndexOps.ensureIndex(any(IndexDefinition.class)))
+                .thenAnswer(invocation -> Mono.just(((Index) invocation.getArgument(0)).getIndexOptions()
+                        .getString("name")));
+        initializer = new DailyBalanceIndexInitializer(mongoTemplate, properties);
+    }
+    @Test
+    void ensureIndexes_shouldCreateMissingRetentionIndex() {
+        // Arrange
+        when(snapshotIndexOps.getIndexInfo()).thenReturn(Flux.empty());
+        // Act & Assert
+        StepVerifier.create(initializer.ensureIndexes())
+                .expectNext(DailyBalanceIndexInitializer.SNAPSHOT_INDEX, DailyBalanceIndexInitializer.RETENTION_INDEX,
+                        DailyBalanceIndexInitializer.ROLLUP_INDEX, DailyBalanceIndexInitializer.PARTITION_INDEX,
+                        DailyBalanceIndexInitializer.CHECKPOINT_INDEX,
+                        DailyBalanceIndexInitializer.CHECKPOINT_RETENTION_INDEX)
+                .verifyComplete();
+        verify(snapshotIndexOps).ensureIndex(argThat(index ->
+                Long.valueOf(Duration.ofDays(30).getSeconds())
+                        .equals(index.getIndexOptions().get("expireAfterSeconds"))));
+        verify(mongoTemplate, never()).executeCommand(any(Document.class));
+    }
+    @Test
+    void ensureIndexes_shouldChangeExpiryOfExistingRetentionIndex() {
+        // Arrange
+        when(snapshotIndexOps.getIndexInfo()).thenReturn(Flux.just(retentionIndex(Duration.ofDays(90))));
+        when(mongoTemplate.getCollectionName(DailyBalance.class)).thenReturn("daily_balances");
+        when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(Mono.just(new Document("ok", 1)));
+        ArgumentCaptor<Document> command = ArgumentCaptor.forClass(Document.class);
+        // Act & Assert
+        StepVerifier.create(initializer.ensureIndexes())
+                .expectNextCount(6)
+                .verifyComplete();
+        verify(mongoTemplate).executeCommand(command.capture());
+        assertEquals("daily_balances", command.getValue().get("collMod"));
+        Document index = (Document) command.getValue().get("index");
+        assertEquals(DailyBalanceIndexInitializer.RETENTION_INDEX, index.get("name"));
+        assertEquals(Duration.ofDays(30).getSeconds(), index.get("expireAfterSeconds"));
+        verify(snapshotIndexOps, times(1)).ensureIndex(any(IndexDefinition.class));
+    }
+    @Test
+    void ensureIndexes_shouldLeaveUnchangedRetentionIndex() {
+        // Arrange
+        when(snapshotIndexOps.getIndexInfo()).thenReturn(Flux.just(retentionIndex(Duration.ofDays(30))));
+        // Act & Assert
+        StepVerifier.create(initializer.ensureIndexes())
+                .expectNextCount(6)
+                .verifyComplete();
+        verify(mongoTemplate, never()).executeCommand(any(Document.class));
+        verify(snapshotIndexOps, times(1)).ensureIndex(any(IndexDefinition.class));
+    }
+    @Test
+    void ensureIndexes_shouldExpireCheckpoints() {
+        // Arrange
+        when(snapshotIndexOps.getIndexInfo()).thenReturn(Flux.empty());
+        // Act & Assert
+        StepVerifier.create(initializer.ensureIndexes())
+                .expectNextCount(6)
+                .verifyComplete();
+        verify(otherIndexOps).ensureIndex(argThat(index ->
+                DailyBalanceIndexInitializer.CHECKPOINT_RETENTION_INDEX.equals(index.getIndexOptions().get("name"))
+                        && Long.valueOf(Duration.ofDays(7).getSeconds())
+                        .equals(index.getIndexOptions().get("expireAfterSeconds"))));
+    }
+    private IndexInfo retentionIndex(Duration expireAfter) {
+        return IndexInfo.indexInfoOf(new Document("name", DailyBalanceIndexInitializer.RETENTION_INDEX)
+                .append("key", new Document("date", 1))
+                .append("expireAfterSeconds", expireAfter.getSeconds()));
+    }
+}
@@ -4,6 +4,7 @@ import com.bank.reportservice.model.transaction.ProductCategory;
 import com.bank.reportservice.model.transaction.ProductSubType;
 import com.bank.reportservice.model.transaction.TransactionType;
 import com.bank.reportservice.service.ReportService;
+import com.bank.reportservice.service.TransactionGrouping;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,13 +12,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class ReportControllerTest {
@@ -43,7 +50,7 @@ class ReportControllerTest {
                         createProductBalance("2", ProductCategory.CREDIT_CARD)
                 ))
                 .build();
-        when(reportService.getCustomerBalances(customerId))
+        when(reportService.getCustomerBalances(customerId, null))
                 .thenReturn(Mono.just(balances));
         // Act & Assert
         webTestClient.get()
@@ -57,10 +64,33 @@ class ReportControllerTest {
                 .jsonPath("$.data.products.length()").isEqualTo(2);
     }
     @Test
+    void getCustomerBalances_WhenPartial_ShouldMarkStaleFamilies() {
+        // Arrange
+        String customerId = "123";
+        CustomerBalances balances = CustomerBalances.builder()
+                .customerId(customerId)
+                .products(Arrays.asList(createProductBalance("1", ProductCategory.ACCOUNT)))
+                .partial(true)
+                .missingFamilies(Collections.singletonList(ProductCategory.CREDIT_CARD))
+                .staleFamilies(Collections.emptyList())
+                .build();
+        when(reportService.getCustomerBalances(customerId, true))
+                .thenReturn(Mono.just(balances));
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/reports/balances/customer/{customerId}?partial=true", customerId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.partial").isEqualTo(true)
+                .jsonPath("$.data.missingFamilies[0]").isEqualTo("CREDIT_CARD")
+                .jsonPath("$.data.products[0].asOf").doesNotExist();
+    }
+    @Test
     void getCustomerBalances_WhenEmpty_ShouldReturnNotFound() {
         // Arrange
         String customerId = "123";
-        when(reportService.getCustomerBalances(customerId))
+        when(reportService.getCustomerBalances(customerId, null))
                 .thenReturn(Mono.empty());
         // Act & Assert
         webTestClient.get()
@@ -76,7 +106,7 @@ class ReportControllerTest {
     void getCustomerBalances_WhenError_ShouldReturnInternalServerError() {
         // Arrange
         String customerId = "123";
-        when(reportService.getCustomerBalances(customerId))
+        when(reportService.getCustomerBalances(customerId, null))
                 .thenReturn(Mono.error(new RuntimeException("Service error")));
         // Act & Assert
         webTestClient.get()
@@ -146,6 +176,66 @@ class ReportControllerTest {
                 .jsonPath("$.message").isEqualTo("Error retrieving movements");
     }
     @Test
+    void streamProductMovements_WhenNdjsonRequested_ShouldStreamMovements() {
+        // Arrange
+        String customerId = "123";
+        String productId = "456";
+        when(reportService.streamProductMovements(customerId, productId))
+                .thenReturn(Flux.just(createProductMovement("1", customerId, productId),
+                        createProductMovement("2", customerId, productId)));
+        // Act & Assert
+        FluxExchangeResult<String> result = webTestClient.get()
+                .uri("/api/reports/movements/customer/{customerId}/product/{productId}/stream",
+                        customerId, productId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(String.class);
+        StepVerifier.create(result.getResponseBody())
+                .assertNext(line -> assertTrue(line.contains("\"transactionId\":\"1\"")))
+                .assertNext(line -> assertTrue(line.contains("\"transactionId\":\"2\"")))
+                .verifyComplete();
+    }
+    @Test
+    void getRecentCardMovements_WithCursor_ShouldPassCursorToService() {
+        // Arrange
+        String customerId = "123";
+        String cardId = "789";
+        LocalDateTime before = LocalDateTime.of(2024, 3, 10, 12, 30);
+        when(reportService.getRecentCardMovements(customerId, cardId, 5, before, "tx9"))
+                .thenReturn(Mono.just(Arrays.asList(createProductMovement("1", customerId, cardId))));
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/reports/movements/customer/{customerId}/card/{cardId}/recent"
+                        + "?limit=5&before=2024-03-10T12:30:00&beforeId=tx9", customerId, cardId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(1)
+                .jsonPath("$.data[0].transactionId").isEqualTo("1");
+    }
+    @Test
+    void streamRecentCardMovements_WhenEventStreamRequested_ShouldStreamEvents() {
+        // Arrange
+        String customerId = "123";
+        String cardId = "789";
+        when(reportService.streamRecentCardMovements(customerId, cardId, 5, null, null))
+                .thenReturn(Flux.just(createProductMovement("1", customerId, cardId)));
+        // Act & Assert
+        FluxExchangeResult<String> result = webTestClient.get()
+                .uri("/api/reports/movements/customer/{customerId}/card/{cardId}/recent/stream?limit=5",
+                        customerId, cardId)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(String.class);
+        StepVerifier.create(result.getResponseBody())
+                .assertNext(event -> assertTrue(event.contains("\"transactionId\":\"1\"")))
+                .verifyComplete();
+    }
+    @Test
     void getMonthlyBalanceSummary_WhenSuccess_ShouldReturnSummary() {
         // Arrange
         String customerId = "123";
@@ -177,6 +267,38 @@ class ReportControllerTest {
                 .expectStatus().isNotFound();
     }
     @Test
+    void getMonthlyBalanceSummary_WithDateRange_ShouldReturnRangeSummary() {
+        // Arrange
+        String customerId = "123";
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 3, 31);
+        when(reportService.getBalanceSummary(customerId, startDate, endDate))
+                .thenReturn(Mono.just(Arrays.asList(createDailyBalanceSummary("1", "ACCOUNT", "SAVINGS"))));
+        // Act & Assert
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/reports/{customerId}/summary")
+                        .queryParam("startDate", startDate.toString())
+                        .queryParam("endDate", endDate.toString())
+                        .build(customerId))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1);
+    }
+    @Test
+    void getMonthlyBalanceSummary_WhenStartAfterEnd_ShouldReturnBadRequest() {
+        // Act & Assert
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/reports/{customerId}/summary")
+                        .queryParam("startDate", "2024-03-01")
+                        .queryParam("endDate", "2024-01-01")
+                        .build("123"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+    @Test
     void getTransactionSummary_WhenSuccess_ShouldReturnSummary() {
         // Arrange
         LocalDate startDate = LocalDate.now().minusDays(7);
@@ -189,7 +311,7 @@ class ReportControllerTest {
                         createCategorySummary("CREDIT", 3, 300.0)
                 ))
                 .build();
-        when(reportService.fetchTransactionSummaryByDate(startDate, endDate))
+        when(reportService.fetchTransactionSummaryByDate(startDate, endDate, TransactionGrouping.CATEGORY))
                 .thenReturn(Mono.just(response));
         // Act & Assert
         webTestClient.get()
@@ -204,6 +326,32 @@ class ReportControllerTest {
                 .jsonPath("$.data.length()").isEqualTo(2);
     }
     @Test
+    void getTransactionSummary_WithGroupBy_ShouldGroupByRequestedDimension() {
+        // Arrange
+        LocalDate startDate = LocalDate.now().minusDays(7);
+        LocalDate endDate = LocalDate.now();
+        BaseResponse<List<CategorySummary>> response = BaseResponse.<List<CategorySummary>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Success")
+                .data(Arrays.asList(createCategorySummary("Coffee Shop", 2, 1.5)))
+                .build();
+        when(reportService.fetchTransactionSummaryByDate(startDate, endDate, TransactionGrouping.MERCHANT))
+                .thenReturn(Mono.just(response));
+        // Act & Assert
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/reports/transactions/summary")
+                        .queryParam("startDate", startDate.toString())
+                        .queryParam("endDate", endDate.toString())
+                        .queryParam("groupBy", "MERCHANT")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data[0].category").isEqualTo("Coffee Shop")
+                .jsonPath("$.data[0].commissions").isEqualTo(1.5);
+    }
+    @Test
     void getTransactionSummary_WhenInvalidDates_ShouldReturnBadRequest() {
         // Act & Assert
         webTestClient.get()
@@ -241,7 +389,7 @@ class ReportControllerTest {
         return new CategorySummary(
                 category,
                 quantity,
-                amount
+                BigDecimal.valueOf(amount)
         );
     }
 }
@@ -0,0 +1,65 @@
+package com.bank.reportservice.listener;
+
+import com.bank.reportservice.config.BalanceViewProperties;
+import com.bank.reportservice.dto.BalanceChangeEvent;
+import com.bank.reportservice.service.CustomerBalanceViewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceChangeListenerTest {
+    private static final String EVENT = "{\"customerId\":\"customer123\",\"productId\":\"account123\","
+            + "\"type\":\"ACCOUNT\",\"subType\":\"SAVINGS\",\"availableBalance\":150.25,"
+            + "\"occurredAt\":\"2024-03-10T12:00:00\"}";
+    @Mock
+    private CustomerBalanceViewService viewService;
+    @Mock
+    private Acknowledgment acknowledgment;
+    private BalanceChangeListener listener;
+    @BeforeEach
+    void setUp() {
+        listener = new BalanceChangeListener(viewService, new ObjectMapper().findAndRegisterModules(),
+                new BalanceViewProperties());
+    }
+    @Test
+    void onBalanceChanges_shouldApplyBatchAndAcknowledge() {
+        // Arrange
+        when(viewService.apply(any(BalanceChangeEvent.class))).thenReturn(Mono.empty());
+        ArgumentCaptor<BalanceChangeEvent> event = ArgumentCaptor.forClass(BalanceChangeEvent.class);
+        // Act
+        listener.onBalanceChanges(Arrays.asList(record(0, EVENT), record(1, "not json"),
+                record(2, "{\"customerId\":\"customer123\"}")), acknowledgment);
+        // Assert
+        verify(viewService, times(1)).apply(event.capture());
+        assertEquals("account123", event.getValue().getProductId());
+        verify(acknowledgment).acknowledge();
+    }
+    @Test
+    void onBalanceChanges_shouldNotAcknowledgeFailedBatch() {
+        // Arrange
+        when(viewService.apply(any(BalanceChangeEvent.class)))
+                .thenReturn(Mono.error(new RuntimeException("Mongo unavailable")));
+        // Act & Assert
+        assertThrows(RuntimeException.class, () ->
+                listener.onBalanceChanges(Arrays.asList(record(0, EVENT)), acknowledgment));
+        verify(acknowledgment, never()).acknowledge();
+    }
+    private ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>("account-events", 0, offset, "customer123", value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank.reportservice.metrics;
+
+import com.bank.reportservice.model.transaction.ProductCategory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportMetricsTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ReportMetrics metrics;
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ReportMetrics(meterRegistry);
+    }
+    @Test
+    void upstream_shouldTimeCallsByServiceAndCategory() {
+        // Arrange
+        Mono<String> call = Mono.just("ok").delayElement(Duration.ofMillis(20));
+        // Act & Assert
+        StepVerifier.create(call.transform(metrics.upstream("accountService", "getAccountsByCustomer",
+                        ProductCategory.ACCOUNT)))
+                .expectNext("ok")
+                .verifyComplete();
+        assertEquals(1, meterRegistry.get("report.upstream.requests")
+                .tags("service", "accountService", "operation", "getAccountsByCustomer", "category", "ACCOUNT",
+                        "outcome", "success")
+                .timer().count());
+        assertEquals(0.0, meterRegistry.get("report.upstream.requests.in_flight")
+                .tag("service", "accountService").gauge().value());
+    }
+    @Test
+    void upstream_shouldCountFallbacksOnError() {
+        // Arrange
+        Mono<String> call = Mono.error(new IllegalStateException("Server error: 503 SERVICE_UNAVAILABLE"));
+        // Act & Assert
+        StepVerifier.create(call.transform(metrics.upstream("customerService", "getAllCustomers")))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(1.0, meterRegistry.get("report.upstream.fallbacks")
+                .tags("service", "customerService", "category", "none", "exception", "IllegalStateException")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("report.upstream.requests")
+                .tags("operation", "getAllCustomers", "outcome", "error").timer().count());
+    }
+    @Test
+    void operation_shouldTrackInFlightCallsUntilCancelled() {
+        // Arrange
+        Flux<String> stream = Flux.<String>never().transform(metrics.operationStream("streamProductMovements"));
+        // Act & Assert
+        StepVerifier.create(stream)
+                .expectSubscription()
+                .then(() -> assertEquals(1.0, meterRegistry.get("report.operations.in_flight")
+                        .tag("operation", "streamProductMovements").gauge().value()))
+                .thenCancel()
+                .verify();
+        assertEquals(0.0, meterRegistry.get("report.operations.in_flight")
+                .tag("operation", "streamProductMovements").gauge().value());
+        assertEquals(1, meterRegistry.get("report.operations")
+                .tags("operation", "streamProductMovements", "outcome", "cancelled").timer().count());
+    }
+    @Test
+    void operationFallback_shouldCountPerCategory() {
+        // Act
+        metrics.operationFallback("getCustomerBalances", "partial", ProductCategory.CREDIT);
+        metrics.operationFallback("getCustomerBalances", "partial", ProductCategory.CREDIT);
+        // Assert
+        assertEquals(2.0, meterRegistry.get("report.operations.fallbacks")
+                .tags("source", "partial", "category", "CREDIT").counter().count());
+    }
+}
@@ -5,6 +5,7 @@ import com.bank.reportservice.service.DailyBalanceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -12,9 +13,14 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
 import static com.jayway.jsonpath.internal.path.PathCompiler.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class DailyBalanceSchedulerTest {
@@ -28,31 +34,78 @@ class DailyBalanceSchedulerTest {
     @Test
     void executeDailyBalanceJob_Success() {
         // Arrange
-        when(dailyBalanceService.processDailyBalances())
+        when(dailyBalanceService.processDailyBalances(any(LocalDateTime.class)))
                 .thenReturn(Mono.empty());
         // Act
         scheduler.executeDailyBalanceJob();
         // Assert
-        verify(dailyBalanceService, times(1)).processDailyBalances();
+        verify(dailyBalanceService, times(1)).processDailyBalances(any(LocalDateTime.class));
     }
     @Test
     void executeDailyBalanceJob_WhenServiceSucceeds_ShouldComplete() {
         // Arrange
-        when(dailyBalanceService.processDailyBalances())
+        LocalDateTime scheduledAt = LocalDateTime.now();
+        when(dailyBalanceService.processDailyBalances(scheduledAt))
                 .thenReturn(Mono.empty());
         // Act & Assert
-        StepVerifier.create(dailyBalanceService.processDailyBalances())
+        StepVerifier.create(dailyBalanceService.processDailyBalances(scheduledAt))
                 .verifyComplete();
     }
     @Test
     void executeDailyBalanceJob_WhenServiceFails_ShouldNotThrowException() {
         // Arrange
-        when(dailyBalanceService.processDailyBalances())
+        when(dailyBalanceService.processDailyBalances(any(LocalDateTime.class)))
                 .thenReturn(Mono.error(new RuntimeException("Process failed")));
         // Act
         scheduler.executeDailyBalanceJob();
         // Assert
-        verify(dailyBalanceService, times(1)).processDailyBalances();
+        verify(dailyBalanceService, times(1)).processDailyBalances(any(LocalDateTime.class));
+    }
+    @Test
+    void executeDailyBalanceJob_ShouldKeyTheRunByTheScheduledFireTime() {
+        // Arrange
+        when(dailyBalanceService.processDailyBalances(any(LocalDateTime.class)))
+                .thenReturn(Mono.empty());
+        ArgumentCaptor<LocalDateTime> scheduledAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        LocalDateTime before = LocalDateTime.now();
+        // Act
+        scheduler.executeDailyBalanceJob();
+        // Assert
+        verify(dailyBalanceService).processDailyBalances(scheduledAt.capture());
+        assertEquals(LocalTime.of(23, 59, 59), scheduledAt.getValue().toLocalTime());
+        assertTrue(Duration.between(before, scheduledAt.getValue()).abs().compareTo(Duration.ofHours(12)) <= 0,
+                "The run should be keyed by the closest scheduled fire");
+    }
+    @Test
+    void resumeDailyBalanceJob_ShouldResumeUnfinishedRun() {
+        // Arrange
+        when(dailyBalanceService.resumeUnfinishedRun()).thenReturn(Mono.empty());
+        // Act
+        scheduler.resumeDailyBalanceJob();
+        scheduler.resumeDailyBalanceJob();
+        // Assert
+        verify(dailyBalanceService, times(2)).resumeUnfinishedRun();
+    }
+    @Test
+    void resumeDailyBalanceJob_WhenJobIsRunning_ShouldSkip() {
+        // Arrange
+        when(dailyBalanceService.processDailyBalances(any(LocalDateTime.class))).thenReturn(Mono.never());
+        // Act
+        scheduler.executeDailyBalanceJob();
+        scheduler.resumeDailyBalanceJob();
+        // Assert
+        verify(dailyBalanceService, never()).resumeUnfinishedRun();
+    }
+    @Test
+    void resumeDailyBalanceJob_WhenResumeFails_ShouldNotThrowException() {
+        // Arrange
+        when(dailyBalanceService.resumeUnfinishedRun())
+                .thenReturn(Mono.error(new RuntimeException("Resume failed")), Mono.empty());
+        // Act
+        scheduler.resumeDailyBalanceJob();
+        scheduler.resumeDailyBalanceJob();
+        // Assert
+        verify(dailyBalanceService, times(2)).resumeUnfinishedRun();
     }
     @Test
     void verifyScheduledAnnotation() {
@@ -0,0 +1,87 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.client.AccountClientService;
+import com.bank.reportservice.model.account.Account;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountResolverTest {
+    @Mock
+    private AccountClientService accountClient;
+
+    @Test
+    void resolve_ShouldAnswerKnownAccountsWithoutCallingUpstream() {
+        // Arrange
+        Account account = createAccount("account123");
+        AccountResolver resolver = new AccountResolver(accountClient, Collections.singletonList(account));
+        // Act & Assert
+        StepVerifier.create(resolver.resolve(Arrays.asList("account123", "account123")))
+                .assertNext(resolved -> {
+                    assertEquals(1, resolved.size());
+                    assertEquals(account, resolved.get("account123"));
+                })
+                .verifyComplete();
+        verifyNoInteractions(accountClient);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolve_ShouldBatchMissingAccountsIntoSingleCall() {
+        // Arrange
+        Account known = createAccount("account123");
+        Account fetched = createAccount("account456");
+        AccountResolver resolver = new AccountResolver(accountClient, Collections.singletonList(known));
+        when(accountClient.getAccountsByIds(anyCollection()))
+                .thenReturn(Mono.just(Collections.singletonList(fetched)));
+        // Act & Assert
+        StepVerifier.create(resolver.resolve(
+                        Arrays.asList("account123", "account456", "account456", "account999")))
+                .assertNext(resolved -> {
+                    assertEquals(2, resolved.size());
+                    assertTrue(resolved.containsKey("account123"));
+                    assertTrue(resolved.containsKey("account456"));
+                    assertFalse(resolved.containsKey("account999"));
+                })
+                .verifyComplete();
+        ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(accountClient, times(1)).getAccountsByIds(captor.capture());
+        assertEquals(Arrays.asList("account456", "account999"), Arrays.asList(captor.getValue().toArray()));
+    }
+
+    @Test
+    void resolve_ShouldReuseFetchedAccountsOnLaterCalls() {
+        // Arrange
+        Account fetched = createAccount("account456");
+        AccountResolver resolver = new AccountResolver(accountClient, null);
+        when(accountClient.getAccountsByIds(anyCollection()))
+                .thenReturn(Mono.just(Collections.singletonList(fetched)));
+        // Act & Assert
+        StepVerifier.create(resolver.resolve(Collections.singletonList("account456"))
+                        .flatMap(first -> resolver.resolve(Collections.singletonList("account456"))))
+                .assertNext(resolved -> assertEquals(fetched, resolved.get("account456")))
+                .verifyComplete();
+        verify(accountClient, times(1)).getAccountsByIds(anyCollection());
+    }
+
+    private Account createAccount(String id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+}
@@ -0,0 +1,169 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.SnapshotFallbackProperties;
+import com.bank.reportservice.dto.ProductBalance;
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.credit.CreditType;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import com.bank.reportservice.repository.DailyBalanceRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotFallbackTest {
+    private static final Set<ProductCategory> ALL_FAMILIES = EnumSet.allOf(ProductCategory.class);
+    @Mock
+    private DailyBalanceRepository dailyBalanceRepository;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private SnapshotFallbackProperties properties;
+    private BalanceSnapshotFallback snapshotFallback;
+    @BeforeEach
+    void setUp() {
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        properties = new SnapshotFallbackProperties();
+        snapshotFallback = new BalanceSnapshotFallback(circuitBreakerRegistry, dailyBalanceRepository, properties);
+    }
+    @Test
+    void openFamilies_shouldFollowOpenBalanceBreakers() {
+        assertTrue(snapshotFallback.openFamilies().isEmpty());
+        circuitBreakerRegistry.circuitBreaker("transactionService").transitionToOpenState();
+        assertTrue(snapshotFallback.openFamilies().isEmpty());
+        CircuitBreaker creditBreaker = circuitBreakerRegistry.circuitBreaker("creditService");
+        creditBreaker.transitionToOpenState();
+        assertEquals(Set.of(ProductCategory.CREDIT, ProductCategory.CREDIT_CARD), snapshotFallback.openFamilies());
+        properties.setEnabled(false);
+        assertTrue(snapshotFallback.openFamilies().isEmpty());
+    }
+    @Test
+    void openFamilies_shouldLeaveHalfOpenBreakersLive() {
+        CircuitBreaker accountBreaker = circuitBreakerRegistry.circuitBreaker("accountService");
+        accountBreaker.transitionToOpenState();
+        assertEquals(Set.of(ProductCategory.ACCOUNT, ProductCategory.DEBIT_CARD), snapshotFallback.openFamilies());
+        accountBreaker.transitionToHalfOpenState();
+        assertTrue(snapshotFallback.openFamilies().isEmpty());
+    }
+    @Test
+    void serve_shouldUseLatestSnapshotPerProduct() {
+        // Arrange
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        LocalDateTime twoDaysAgo = LocalDateTime.now().minusDays(2);
+        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(eq("customer123"), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.just(
+                        createSnapshot("account123", ProductCategory.ACCOUNT, "900.00", twoDaysAgo),
+                        createSnapshot("account123", ProductCategory.ACCOUNT, "1000.00", yesterday),
+                        createSnapshot("credit123", ProductCategory.CREDIT, "8000.00", twoDaysAgo)));
+        // Act & Assert
+        StepVerifier.create(snapshotFallback.serve("customer123", ALL_FAMILIES, Mono::empty))
+                .assertNext(products -> {
+                    assertEquals(2, products.size());
+                    assertEquals(new BigDecimal("1000.00"), products.get(0).getAvailableBalance());
+                    assertEquals(yesterday, products.get(0).getAsOf());
+                    assertEquals(twoDaysAgo, products.get(1).getAsOf());
+                })
+                .verifyComplete();
+    }
+    @Test
+    void serve_shouldMapCreditSnapshotLikeLiveBalances() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2023, 6, 1, 10, 0);
+        DailyBalance creditSnapshot = DailyBalance.builder()
+                .customerId("customer123")
+                .productId("credit123")
+                .productType(ProductCategory.CREDIT.name())
+                .subType(CreditType.BUSINESS.name())
+                .balance(new BigDecimal("8000.00"))
+                .date(LocalDateTime.now().minusDays(1))
+                .productCreatedAt(createdAt)
+                .build();
+        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(eq("customer123"), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.just(creditSnapshot));
+        // Act & Assert
+        StepVerifier.create(snapshotFallback.serve("customer123", ALL_FAMILIES, Mono::empty))
+                .assertNext(products -> {
+                    ProductBalance credit = products.get(0);
+                    assertEquals(ProductCategory.CREDIT, credit.getType());
+                    assertEquals(ProductSubType.BUSINESS_CREDIT, credit.getSubType());
+                    assertEquals(createdAt, credit.getCreatedAt());
+                })
+                .verifyComplete();
+    }
+    @Test
+    void serve_shouldOnlyServeRequestedFamilies() {
+        // Arrange
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(eq("customer123"), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.just(
+                        createSnapshot("account123", ProductCategory.ACCOUNT, "1000.00", yesterday),
+                        createSnapshot("credit123", ProductCategory.CREDIT, "8000.00", yesterday)));
+        // Act & Assert
+        StepVerifier.create(snapshotFallback.serve("customer123",
+                        Set.of(ProductCategory.CREDIT, ProductCategory.CREDIT_CARD), Mono::empty))
+                .assertNext(products -> {
+                    assertEquals(1, products.size());
+                    assertEquals("credit123", products.get(0).getProductId());
+                })
+                .verifyComplete();
+        StepVerifier.create(snapshotFallback.serve("customer123", Set.of(ProductCategory.DEBIT_CARD), Mono::empty))
+                .assertNext(products -> assertTrue(products.isEmpty()))
+                .verifyComplete();
+    }
+    @Test
+    void serve_shouldCompleteEmptyWithoutSnapshots() {
+        // Arrange
+        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(eq("customer123"), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.empty());
+        // Act & Assert
+        StepVerifier.create(snapshotFallback.serve("customer123", ALL_FAMILIES, Mono::empty))
+                .verifyComplete();
+    }
+    @Test
+    void halfOpen_shouldRefreshServedCustomersOnce() {
+        // Arrange
+        AtomicInteger refreshes = new AtomicInteger();
+        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(eq("customer123"), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.empty());
+        CircuitBreaker accountBreaker = circuitBreakerRegistry.circuitBreaker("accountService");
+        accountBreaker.transitionToOpenState();
+        Supplier<Mono<Void>> refresh = () -> Mono.fromRunnable(refreshes::incrementAndGet);
+        StepVerifier.create(snapshotFallback.serve("customer123", snapshotFallback.openFamilies(), refresh))
+                .verifyComplete();
+        // Act
+        accountBreaker.transitionToHalfOpenState();
+        accountBreaker.transitionToOpenState();
+        accountBreaker.transitionToHalfOpenState();
+        // Assert
+        assertEquals(1, refreshes.get());
+    }
+    private DailyBalance createSnapshot(String productId, ProductCategory type, String balance,
+                                        LocalDateTime date) {
+        return DailyBalance.builder()
+                .customerId("customer123")
+                .productId(productId)
+                .productType(type.name())
+                .balance(new BigDecimal(balance))
+                .date(date)
+                .build();
+    }
+}
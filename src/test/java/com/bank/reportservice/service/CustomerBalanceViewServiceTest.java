@@ -0,0 +1,261 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.BalanceViewProperties;
+import com.bank.reportservice.dto.BalanceChangeEvent;
+import com.bank.reportservice.dto.CustomerBalances;
+import com.bank.reportservice.dto.ProductBalance;
+import com.bank.reportservice.model.balance.CustomerBalanceView;
+import com.bank.reportservice.model.balance.MaterializedProductBalance;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import com.bank.reportservice.repository.CustomerBalanceViewRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerBalanceViewServiceTest {
+    private static final LocalDateTime OCCURRED_AT = LocalDateTime.of(2024, 3, 10, 12, 0);
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private CustomerBalanceViewRepository viewRepository;
+    @Mock
+    private UpdateResult updateResult;
+    private BalanceViewProperties properties;
+    private CustomerBalanceViewService viewService;
+    @BeforeEach
+    void setUp() {
+        properties = new BalanceViewProperties();
+        properties.setEnabled(true);
+        viewService = new CustomerBalanceViewService(mongoTemplate, viewRepository, properties);
+        lenient().when(viewRepository.findById(anyString())).thenReturn(Mono.empty());
+    }
+    @Test
+    void apply_shouldOnlyOverwriteOlderProductEntry() {
+        // Arrange
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CustomerBalanceView.class)))
+                .thenReturn(Mono.just(updateResult));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        // Act & Assert
+        StepVerifier.create(viewService.apply(createEvent(new BigDecimal("250.50"))))
+                .verifyComplete();
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(CustomerBalanceView.class));
+        Document queryObject = query.getValue().getQueryObject();
+        assertEquals("customer123", queryObject.get("_id"));
+        assertEquals(2, queryObject.getList("$or", Document.class).size());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(new Decimal128(new BigDecimal("250.50")), set.get("products.account123.availableBalance"));
+        assertEquals(OCCURRED_AT, set.get("products.account123.asOf"));
+    }
+    @Test
+    void apply_shouldRetryAsUpdateOnDuplicateKey() {
+        // Arrange
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CustomerBalanceView.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(CustomerBalanceView.class)))
+                .thenReturn(Mono.just(updateResult));
+        // Act & Assert
+        StepVerifier.create(viewService.apply(createEvent(BigDecimal.TEN)))
+                .verifyComplete();
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(CustomerBalanceView.class));
+    }
+    @Test
+    void apply_shouldCarryAccountBalanceToLinkedDebitCards() {
+        // Arrange
+        Map<String, MaterializedProductBalance> products = new HashMap<>();
+        products.put("account123", createProduct("account123", false));
+        products.put("card123", createDebitCard("card123", "account123"));
+        products.put("card456", createDebitCard("card456", "account456"));
+        when(viewRepository.findById("customer123")).thenReturn(Mono.just(CustomerBalanceView.builder()
+                .id("customer123")
+                .products(products)
+                .build()));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CustomerBalanceView.class)))
+                .thenReturn(Mono.just(updateResult));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        // Act & Assert
+        StepVerifier.create(viewService.apply(createEvent(new BigDecimal("75.00"))))
+                .verifyComplete();
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), update.capture(), eq(CustomerBalanceView.class));
+        Document set = (Document) update.getAllValues().get(1).getUpdateObject().get("$set");
+        assertEquals(new Decimal128(new BigDecimal("75.00")), set.get("products.card123.availableBalance"));
+        assertEquals(ProductCategory.DEBIT_CARD, set.get("products.card123.type"));
+        assertEquals("account123", set.get("products.card123.linkedAccountId"));
+        assertEquals(OCCURRED_AT, set.get("products.card123.asOf"));
+    }
+    @Test
+    void seed_shouldReplaceProductsAndMarkViewSeeded() {
+        // Arrange
+        Map<String, MaterializedProductBalance> products = new HashMap<>();
+        products.put("account123", createProduct("account123", false));
+        products.put("deleted123", createProduct("deleted123", false));
+        MaterializedProductBalance opened = createProduct("opened123", false);
+        opened.setAsOf(OCCURRED_AT.plusDays(1));
+        products.put("opened123", opened);
+        when(viewRepository.findById("customer123")).thenReturn(Mono.just(CustomerBalanceView.builder()
+                .id("customer123")
+                .products(products)
+                .seededAt(OCCURRED_AT.minusDays(1))
+                .version(4L)
+                .build()));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CustomerBalanceView.class)))
+                .thenReturn(Mono.just(updateResult));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        // Act & Assert
+        StepVerifier.create(viewService.seed(seededBalances(), OCCURRED_AT))
+                .verifyComplete();
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(CustomerBalanceView.class));
+        assertEquals(4L, query.getValue().getQueryObject().get("version"));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(OCCURRED_AT, set.get("seededAt"));
+        @SuppressWarnings("unchecked")
+        Map<String, MaterializedProductBalance> seeded = (Map<String, MaterializedProductBalance>) set.get("products");
+        assertEquals(Set.of("account123", "opened123"), seeded.keySet());
+        assertEquals(BigDecimal.ONE, seeded.get("account123").getAvailableBalance());
+        assertEquals(OCCURRED_AT, seeded.get("account123").getAsOf());
+        assertSame(opened, seeded.get("opened123"));
+    }
+    @Test
+    void seed_shouldIgnoreSeedOlderThanView() {
+        // Arrange
+        when(viewRepository.findById("customer123")).thenReturn(Mono.just(CustomerBalanceView.builder()
+                .id("customer123")
+                .seededAt(OCCURRED_AT.plusMinutes(1))
+                .build()));
+        // Act & Assert
+        StepVerifier.create(viewService.seed(seededBalances(), OCCURRED_AT))
+                .verifyComplete();
+        verifyNoInteractions(mongoTemplate);
+    }
+    @Test
+    void seed_shouldMergeAgainWhenViewChangedConcurrently() {
+        // Arrange
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CustomerBalanceView.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")), Mono.just(updateResult));
+        // Act & Assert
+        StepVerifier.create(viewService.seed(seededBalances(), OCCURRED_AT))
+                .verifyComplete();
+        verify(viewRepository, times(2)).findById("customer123");
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), any(Update.class), eq(CustomerBalanceView.class));
+    }
+    @Test
+    void seed_shouldDoNothingWhenDisabled() {
+        // Arrange
+        properties.setEnabled(false);
+        // Act & Assert
+        StepVerifier.create(viewService.seed(CustomerBalances.builder().customerId("customer123").build(),
+                        OCCURRED_AT))
+                .verifyComplete();
+        verifyNoInteractions(mongoTemplate);
+    }
+    @Test
+    void findCustomerBalances_shouldServeOpenProductsOfSeededView() {
+        // Arrange
+        Map<String, MaterializedProductBalance> products = new HashMap<>();
+        products.put("account123", createProduct("account123", false));
+        products.put("account456", createProduct("account456", true));
+        CustomerBalanceView view = CustomerBalanceView.builder()
+                .id("customer123")
+                .products(products)
+                .seededAt(LocalDateTime.now())
+                .build();
+        when(viewRepository.findById("customer123")).thenReturn(Mono.just(view));
+        // Act & Assert
+        StepVerifier.create(viewService.findCustomerBalances("customer123"))
+                .assertNext(balances -> {
+                    assertEquals(1, balances.getProducts().size());
+                    assertEquals("account123", balances.getProducts().get(0).getProductId());
+                })
+                .verifyComplete();
+    }
+    @Test
+    void findCustomerBalances_shouldIgnoreViewThatWasNeverSeeded() {
+        // Arrange
+        CustomerBalanceView view = CustomerBalanceView.builder().id("customer123").build();
+        when(viewRepository.findById("customer123")).thenReturn(Mono.just(view));
+        // Act & Assert
+        StepVerifier.create(viewService.findCustomerBalances("customer123"))
+                .verifyComplete();
+    }
+    @Test
+    void findCustomerBalances_shouldIgnoreViewSeededLongerThanMaxAgeAgo() {
+        // Arrange
+        CustomerBalanceView view = CustomerBalanceView.builder()
+                .id("customer123")
+                .seededAt(LocalDateTime.now().minus(properties.getMaxAge()).minusMinutes(1))
+                .build();
+        when(viewRepository.findById("customer123")).thenReturn(Mono.just(view));
+        // Act & Assert
+        StepVerifier.create(viewService.findCustomerBalances("customer123"))
+                .verifyComplete();
+    }
+    private BalanceChangeEvent createEvent(BigDecimal balance) {
+        return BalanceChangeEvent.builder()
+                .customerId("customer123")
+                .productId("account123")
+                .type(ProductCategory.ACCOUNT)
+                .subType(ProductSubType.SAVINGS)
+                .availableBalance(balance)
+                .occurredAt(OCCURRED_AT)
+                .build();
+    }
+    private CustomerBalances seededBalances() {
+        return CustomerBalances.builder()
+                .customerId("customer123")
+                .products(Collections.singletonList(ProductBalance.builder()
+                        .productId("account123")
+                        .type(ProductCategory.ACCOUNT)
+                        .subType(ProductSubType.SAVINGS)
+                        .availableBalance(BigDecimal.ONE)
+                        .build()))
+                .build();
+    }
+    private MaterializedProductBalance createProduct(String productId, boolean closed) {
+        return MaterializedProductBalance.builder()
+                .productId(productId)
+                .type(ProductCategory.ACCOUNT)
+                .subType(ProductSubType.SAVINGS)
+                .availableBalance(BigDecimal.TEN)
+                .asOf(OCCURRED_AT)
+                .closed(closed)
+                .build();
+    }
+    private MaterializedProductBalance createDebitCard(String productId, String linkedAccountId) {
+        return MaterializedProductBalance.builder()
+                .productId(productId)
+                .type(ProductCategory.DEBIT_CARD)
+                .availableBalance(BigDecimal.TEN)
+                .asOf(OCCURRED_AT.minusDays(1))
+                .linkedAccountId(linkedAccountId)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.DailyBalanceJobProperties;
+import com.bank.reportservice.model.balance.DailyBalancePartition;
+import com.bank.reportservice.model.balance.DailyBalanceRunStatus;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalancePartitionLeasesTest {
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Spy
+    private DailyBalanceJobProperties properties = new DailyBalanceJobProperties();
+    @Mock
+    private UpdateResult updateResult;
+    @InjectMocks
+    private DailyBalancePartitionLeases partitionLeases;
+    @Test
+    void claim_shouldSkipPartitionsHeldByOtherInstances() {
+        // Arrange
+        DailyBalancePartition claimed = DailyBalancePartition.builder()
+                .id(DailyBalancePartition.idOf("2024-03-04", 1))
+                .attempts(1)
+                .build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DailyBalancePartition.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")), Mono.just(claimed));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        // Act & Assert
+        StepVerifier.create(partitionLeases.claim("2024-03-04", 2, 1))
+                .expectNext(claimed)
+                .verifyComplete();
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), update.capture(),
+                any(FindAndModifyOptions.class), eq(DailyBalancePartition.class));
+        Document updateObject = update.getValue().getUpdateObject();
+        assertEquals(partitionLeases.owner(), ((Document) updateObject.get("$set")).get("owner"));
+        assertEquals(1, ((Document) updateObject.get("$inc")).get("attempts"));
+    }
+    @Test
+    void claim_shouldCompleteEmptyWhenNoPartitionIsAvailable() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DailyBalancePartition.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+        // Act & Assert
+        StepVerifier.create(partitionLeases.claim("2024-03-04", 3, 2))
+                .verifyComplete();
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(DailyBalancePartition.class));
+    }
+    @Test
+    void claim_shouldStopAtTheRequestedNumberOfPartitions() {
+        // Arrange
+        DailyBalancePartition claimed = DailyBalancePartition.builder()
+                .id(DailyBalancePartition.idOf("2024-03-04", 0))
+                .attempts(1)
+                .build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DailyBalancePartition.class)))
+                .thenReturn(Mono.just(claimed));
+        // Act & Assert
+        StepVerifier.create(partitionLeases.claim("2024-03-04", 4, 2))
+                .expectNext(claimed, claimed)
+                .verifyComplete();
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(DailyBalancePartition.class));
+    }
+    @Test
+    void renew_shouldReportLostLease() {
+        // Arrange
+        DailyBalancePartition progress = DailyBalancePartition.builder()
+                .id(DailyBalancePartition.idOf("2024-03-04", 0))
+                .status(DailyBalanceRunStatus.RUNNING)
+                .attempts(2)
+                .customersProcessed(10)
+                .build();
+        when(updateResult.getMatchedCount()).thenReturn(0L);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(DailyBalancePartition.class)))
+                .thenReturn(Mono.just(updateResult));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        // Act & Assert
+        StepVerifier.create(partitionLeases.renew(progress))
+                .expectNext(false)
+                .verifyComplete();
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(DailyBalancePartition.class));
+        Document queryObject = query.getValue().getQueryObject();
+        assertEquals(partitionLeases.owner(), queryObject.get("owner"));
+        assertEquals(2, queryObject.get("attempts"));
+    }
+}
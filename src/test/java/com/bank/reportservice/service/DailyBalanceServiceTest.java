@@ -4,29 +4,55 @@ import com.bank.reportservice.client.AccountClientService;
 import com.bank.reportservice.client.CreditClientService;
 import com.bank.reportservice.client.CustomerClientService;
 import com.bank.reportservice.client.DebitCardClientService;
+import com.bank.reportservice.config.DailyBalanceJobProperties;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.account.Account;
 import com.bank.reportservice.model.account.AccountType;
 import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.balance.DailyBalanceCheckpoint;
+import com.bank.reportservice.model.balance.DailyBalancePartition;
+import com.bank.reportservice.model.balance.DailyBalanceRun;
+import com.bank.reportservice.model.balance.DailyBalanceRunStatus;
 import com.bank.reportservice.model.credit.Credit;
 import com.bank.reportservice.model.credit.CreditType;
 import com.bank.reportservice.model.creditcard.CreditCard;
 import com.bank.reportservice.model.creditcard.CreditCardType;
 import com.bank.reportservice.model.customer.Customer;
 import com.bank.reportservice.model.debitcard.DebitCard;
+import com.bank.reportservice.repository.DailyBalanceCheckpointRepository;
 import com.bank.reportservice.repository.DailyBalanceRepository;
+import com.bank.reportservice.repository.DailyBalanceRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class DailyBalanceServiceTest {
@@ -40,6 +66,19 @@ class DailyBalanceServiceTest {
     private DailyBalanceRepository dailyBalanceRepository;
     @Mock
     private DebitCardClientService debitCardClientService;
+    @Mock
+    private DailyBalanceRunRepository dailyBalanceRunRepository;
+    @Mock
+    private DailyBalanceCheckpointRepository dailyBalanceCheckpointRepository;
+    @Spy
+    private DailyBalanceJobProperties properties = new DailyBalanceJobProperties();
+    @Mock
+    private DailyBalanceWriter dailyBalanceWriter;
+    @Mock
+    private DailyBalancePartitionLeases partitionLeases;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private ReportMetrics metrics = new ReportMetrics(meterRegistry);
     @InjectMocks
     private DailyBalanceService dailyBalanceService;
     private final String CUSTOMER_ID = "customer123";
@@ -49,12 +88,13 @@ class DailyBalanceServiceTest {
     private final String DEBIT_CARD_ID = "debitCard123";
     @BeforeEach
     void setUp() {
-        when(dailyBalanceRepository.save(any(DailyBalance.class)))
+        lenient().when(dailyBalanceWriter.write(any(DailyBalance.class)))
                 .thenAnswer(invocation -> {
                     DailyBalance balance = invocation.getArgument(0);
                     balance.setId("generatedId");
                     return Mono.just(balance);
                 });
+        properties.setPartitions(1);
     }
     @Test
     void processDailyBalances_shouldProcessAllCustomers() {
@@ -64,7 +104,10 @@ class DailyBalanceServiceTest {
         Customer customer2 = new Customer();
         customer2.setId("customer456");
         List<Customer> customers = Arrays.asList(customer1, customer2);
-        when(customerClientService.getAllCustomers()).thenReturn(Mono.just(customers));
+        when(customerClientService.getAllCustomers(anyInt())).thenReturn(Flux.fromIterable(customers));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty());
+        mockRunAndCheckpointSaves();
+        mockPartitionClaims(partition(0, 1));
         mockAccountsForCustomer(CUSTOMER_ID);
         mockCreditsForCustomer(CUSTOMER_ID);
         mockCreditCardsForCustomer(CUSTOMER_ID);
@@ -74,13 +117,372 @@ class DailyBalanceServiceTest {
         mockCreditCardsForCustomer("customer456");
         mockDebitCardsForCustomer("customer456");
         // Act & Assert
-        StepVerifier.create(dailyBalanceService.processDailyBalances())
+        StepVerifier.create(dailyBalanceService.processDailyBalances(LocalDateTime.now()))
                 .verifyComplete();
-        verify(customerClientService, times(1)).getAllCustomers();
+        verify(customerClientService, times(1)).getAllCustomers(anyInt());
         verify(accountService, times(2)).getAccountsByCustomer(anyString());
         verify(creditService, times(2)).getCreditsByCustomer(anyString());
         verify(creditService, times(2)).getCreditCardsByCustomer(anyString());
         verify(debitCardClientService, times(2)).getDebitCardsByCustomer(anyString());
+        verify(dailyBalanceCheckpointRepository, times(2)).save(any(DailyBalanceCheckpoint.class));
+        verify(dailyBalanceCheckpointRepository, never()).findById(anyString());
+    }
+    @Test
+    void runDailyBalances_shouldReportRunSummary() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        when(customerClientService.getAllCustomers(anyInt())).thenReturn(Flux.fromIterable(Arrays.asList(customer)));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty());
+        mockRunAndCheckpointSaves();
+        mockPartitionClaims(partition(0, 1));
+        mockAccountsForCustomer(CUSTOMER_ID);
+        mockCreditsForCustomer(CUSTOMER_ID);
+        mockCreditCardsForCustomer(CUSTOMER_ID);
+        when(debitCardClientService.getDebitCardsByCustomer(CUSTOMER_ID))
+                .thenReturn(Mono.error(new RuntimeException("Debit card service down")));
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .assertNext(run -> {
+                    assertEquals(LocalDate.now().toString(), run.getId());
+                    assertEquals(DailyBalanceRunStatus.COMPLETED, run.getStatus());
+                    assertEquals(1, run.getCustomersProcessed());
+                    assertEquals(3, run.getProductsSaved());
+                    assertEquals(1, run.getFailures());
+                })
+                .verifyComplete();
+        verify(dailyBalanceWriter, times(3)).write(argThat(dailyBalance ->
+                dailyBalance.getDate() != null));
+        verify(dailyBalanceCheckpointRepository).deleteByRunId(LocalDate.now().toString());
+    }
+    @Test
+    void runDailyBalances_shouldTimeStagesPerCategory() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        when(customerClientService.getAllCustomers(anyInt())).thenReturn(Flux.fromIterable(Arrays.asList(customer)));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty());
+        mockRunAndCheckpointSaves();
+        mockPartitionClaims(partition(0, 1));
+        mockAccountsForCustomer(CUSTOMER_ID);
+        mockCreditsForCustomer(CUSTOMER_ID);
+        mockCreditCardsForCustomer(CUSTOMER_ID);
+        when(debitCardClientService.getDebitCardsByCustomer(CUSTOMER_ID))
+                .thenReturn(Mono.error(new RuntimeException("Debit card service down")));
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(1, stageTimer("fetch", "ACCOUNT", "success"));
+        assertEquals(1, stageTimer("save", "CREDIT_CARD", "success"));
+        assertEquals(1, stageTimer("fetch", "DEBIT_CARD", "error"));
+        assertEquals(1.0, meterRegistry.get("report.job.stage.errors")
+                .tags("stage", "fetch", "category", "DEBIT_CARD").counter().count());
+    }
+    @Test
+    void runDailyBalances_shouldResumeFromCheckpoints() {
+        // Arrange
+        LocalDateTime snapshotTime = LocalDateTime.now().minusMinutes(5);
+        DailyBalanceRun interrupted = DailyBalanceRun.builder()
+                .id(LocalDate.now().toString())
+                .status(DailyBalanceRunStatus.RUNNING)
+                .snapshotTime(snapshotTime)
+                .partitions(1)
+                .build();
+        // The previous attempt checkpointed the first customer but died before saving its progress.
+        DailyBalancePartition expired = partition(0, 2);
+        Customer customer1 = new Customer();
+        customer1.setId(CUSTOMER_ID);
+        Customer customer2 = new Customer();
+        customer2.setId("customer456");
+        when(customerClientService.getAllCustomers(anyInt()))
+                .thenReturn(Flux.fromIterable(Arrays.asList(customer1, customer2)));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.just(interrupted));
+        when(dailyBalanceCheckpointRepository.findById(DailyBalanceCheckpoint.idOf(interrupted.getId(), CUSTOMER_ID)))
+                .thenReturn(Mono.just(DailyBalanceCheckpoint.builder()
+                        .id(DailyBalanceCheckpoint.idOf(interrupted.getId(), CUSTOMER_ID))
+                        .productsSaved(4)
+                        .build()));
+        when(dailyBalanceCheckpointRepository.findById(DailyBalanceCheckpoint.idOf(interrupted.getId(), "customer456")))
+                .thenReturn(Mono.empty());
+        when(dailyBalanceRepository.deleteByCustomerIdAndDate("customer456", snapshotTime))
+                .thenReturn(Mono.just(2L));
+        mockRunAndCheckpointSaves();
+        mockPartitionClaims(expired);
+        mockAccountsForCustomer("customer456");
+        mockCreditsForCustomer("customer456");
+        mockCreditCardsForCustomer("customer456");
+        mockDebitCardsForCustomer("customer456");
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .assertNext(run -> {
+                    assertEquals(DailyBalanceRunStatus.COMPLETED, run.getStatus());
+                    assertEquals(2, run.getCustomersProcessed());
+                    assertEquals(8, run.getProductsSaved());
+                })
+                .verifyComplete();
+        verify(accountService, never()).getAccountsByCustomer(CUSTOMER_ID);
+        verify(dailyBalanceRepository).deleteByCustomerIdAndDate("customer456", snapshotTime);
+        verify(dailyBalanceWriter, times(4)).write(argThat(dailyBalance ->
+                snapshotTime.equals(dailyBalance.getDate())));
+    }
+    @Test
+    void resumeUnfinishedRun_shouldResumeLatestRunFromCheckpoints() {
+        // Arrange
+        LocalDateTime snapshotTime = LocalDate.now().minusDays(1).atTime(23, 59, 59);
+        DailyBalanceRun interrupted = DailyBalanceRun.builder()
+                .id(snapshotTime.toLocalDate().toString())
+                .status(DailyBalanceRunStatus.RUNNING)
+                .snapshotTime(snapshotTime)
+                .partitions(1)
+                .build();
+        Customer customer1 = new Customer();
+        customer1.setId(CUSTOMER_ID);
+        Customer customer2 = new Customer();
+        customer2.setId("customer456");
+        when(customerClientService.getAllCustomers(anyInt()))
+                .thenReturn(Flux.fromIterable(Arrays.asList(customer1, customer2)));
+        when(dailyBalanceRunRepository.findFirstByOrderByIdDesc()).thenReturn(Mono.just(interrupted));
+        when(dailyBalanceCheckpointRepository.findById(DailyBalanceCheckpoint.idOf(interrupted.getId(), CUSTOMER_ID)))
+                .thenReturn(Mono.just(DailyBalanceCheckpoint.builder()
+                        .id(DailyBalanceCheckpoint.idOf(interrupted.getId(), CUSTOMER_ID))
+                        .productsSaved(3)
+                        .failures(1)
+                        .build()));
+        when(dailyBalanceCheckpointRepository.findById(DailyBalanceCheckpoint.idOf(interrupted.getId(), "customer456")))
+                .thenReturn(Mono.empty());
+        when(dailyBalanceRepository.deleteByCustomerIdAndDate("customer456", snapshotTime))
+                .thenReturn(Mono.just(0L));
+        mockRunAndCheckpointSaves();
+        mockPartitionClaims(partition(0, 2));
+        mockAccountsForCustomer("customer456");
+        mockCreditsForCustomer("customer456");
+        mockCreditCardsForCustomer("customer456");
+        mockDebitCardsForCustomer("customer456");
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.resumeUnfinishedRun())
+                .assertNext(run -> {
+                    assertEquals(snapshotTime.toLocalDate().toString(), run.getId());
+                    assertEquals(DailyBalanceRunStatus.COMPLETED, run.getStatus());
+                    assertEquals(2, run.getCustomersProcessed());
+                    assertEquals(7, run.getProductsSaved());
+                    assertEquals(1, run.getFailures());
+                })
+                .verifyComplete();
+        verify(accountService, never()).getAccountsByCustomer(CUSTOMER_ID);
+        verify(dailyBalanceWriter, times(4)).write(argThat(dailyBalance ->
+                snapshotTime.equals(dailyBalance.getDate())));
+    }
+    @Test
+    void resumeUnfinishedRun_shouldSkipCompletedRun() {
+        // Arrange
+        DailyBalanceRun completed = DailyBalanceRun.builder()
+                .id(LocalDate.now().toString())
+                .status(DailyBalanceRunStatus.COMPLETED)
+                .build();
+        when(dailyBalanceRunRepository.findFirstByOrderByIdDesc()).thenReturn(Mono.just(completed));
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.resumeUnfinishedRun())
+                .verifyComplete();
+        verify(partitionLeases, never()).claim(anyString(), anyInt(), anyInt());
+    }
+    @Test
+    void runDailyBalances_shouldSkipCompletedRun() {
+        // Arrange
+        DailyBalanceRun completed = DailyBalanceRun.builder()
+                .id(LocalDate.now().toString())
+                .status(DailyBalanceRunStatus.COMPLETED)
+                .build();
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.just(completed));
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .expectNext(completed)
+                .verifyComplete();
+        verify(customerClientService, never()).getAllCustomers(anyInt());
+        verify(partitionLeases, never()).claim(anyString(), anyInt(), anyInt());
+    }
+    @Test
+    void runDailyBalances_shouldOnlyProcessCustomersOfClaimedPartition() {
+        // Arrange
+        properties.setPartitions(2);
+        properties.setLeaseRenewInterval(Duration.ofMillis(10));
+        Customer customer1 = new Customer();
+        customer1.setId(CUSTOMER_ID);
+        Customer customer2 = new Customer();
+        customer2.setId("customer456");
+        int claimed = DailyBalanceService.partitionOf(CUSTOMER_ID, 2);
+        when(customerClientService.getAllCustomers(anyInt()))
+                .thenReturn(Flux.fromIterable(Arrays.asList(customer1, customer2)));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty());
+        mockRunAndCheckpointSaves();
+        List<DailyBalancePartition> completed = mockPartitionClaims(partition(claimed, 1));
+        DailyBalancePartition peer = partition(1 - claimed, 1);
+        peer.setStatus(DailyBalanceRunStatus.COMPLETED);
+        peer.setCustomersProcessed(1);
+        peer.setProductsSaved(4);
+        AtomicInteger polls = new AtomicInteger();
+        when(partitionLeases.partitions(anyString())).thenAnswer(invocation -> polls.incrementAndGet() == 1
+                ? Flux.fromIterable(completed)
+                : Flux.concat(Flux.fromIterable(completed), Flux.just(peer)));
+        mockAccountsForCustomer(CUSTOMER_ID);
+        mockCreditsForCustomer(CUSTOMER_ID);
+        mockCreditCardsForCustomer(CUSTOMER_ID);
+        mockDebitCardsForCustomer(CUSTOMER_ID);
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .assertNext(run -> {
+                    assertEquals(2, run.getPartitions());
+                    assertEquals(DailyBalanceRunStatus.COMPLETED, run.getStatus());
+                    assertEquals(2, run.getCustomersProcessed());
+                    assertEquals(8, run.getProductsSaved());
+                })
+                .verifyComplete();
+        assertNotEquals(claimed, DailyBalanceService.partitionOf("customer456", 2));
+        verify(accountService, never()).getAccountsByCustomer("customer456");
+        verify(partitionLeases, times(3)).claim(anyString(), eq(2), anyInt());
+    }
+    @Test
+    void runDailyBalances_shouldJoinRunOpenedByAnotherInstance() {
+        // Arrange
+        LocalDateTime snapshotTime = LocalDateTime.now().minusSeconds(1);
+        DailyBalanceRun opened = DailyBalanceRun.builder()
+                .id(LocalDate.now().toString())
+                .status(DailyBalanceRunStatus.RUNNING)
+                .snapshotTime(snapshotTime)
+                .partitions(1)
+                .build();
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        when(customerClientService.getAllCustomers(anyInt())).thenReturn(Flux.just(customer));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty(), Mono.just(opened));
+        mockRunAndCheckpointSaves();
+        doReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")))
+                .when(dailyBalanceRunRepository).insert(any(DailyBalanceRun.class));
+        mockPartitionClaims(partition(0, 1));
+        mockAccountsForCustomer(CUSTOMER_ID);
+        mockCreditsForCustomer(CUSTOMER_ID);
+        mockCreditCardsForCustomer(CUSTOMER_ID);
+        mockDebitCardsForCustomer(CUSTOMER_ID);
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .assertNext(run -> assertEquals(snapshotTime, run.getSnapshotTime()))
+                .verifyComplete();
+        verify(dailyBalanceWriter, times(4)).write(argThat(dailyBalance ->
+                snapshotTime.equals(dailyBalance.getDate())));
+    }
+    @Test
+    void runDailyBalances_shouldKeyRunByScheduledFireTime() {
+        // Arrange
+        LocalDateTime scheduledAt = LocalDateTime.of(2024, 3, 4, 23, 59, 59);
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        when(customerClientService.getAllCustomers(anyInt())).thenReturn(Flux.just(customer));
+        when(dailyBalanceRunRepository.findById("2024-03-04")).thenReturn(Mono.empty());
+        mockRunAndCheckpointSaves();
+        mockPartitionClaims(partition(0, 1));
+        mockAccountsForCustomer(CUSTOMER_ID);
+        mockCreditsForCustomer(CUSTOMER_ID);
+        mockCreditCardsForCustomer(CUSTOMER_ID);
+        mockDebitCardsForCustomer(CUSTOMER_ID);
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances(scheduledAt))
+                .assertNext(run -> {
+                    assertEquals("2024-03-04", run.getId());
+                    assertEquals(scheduledAt, run.getSnapshotTime());
+                })
+                .verifyComplete();
+        verify(dailyBalanceWriter, times(4)).write(argThat(dailyBalance ->
+                scheduledAt.equals(dailyBalance.getDate())));
+    }
+    @Test
+    void runDailyBalances_shouldListCustomersOnceForAllClaimedPartitions() {
+        // Arrange
+        properties.setPartitions(2);
+        Customer customer1 = new Customer();
+        customer1.setId(CUSTOMER_ID);
+        Customer customer2 = new Customer();
+        customer2.setId("customer456");
+        int first = DailyBalanceService.partitionOf(CUSTOMER_ID, 2);
+        when(customerClientService.getAllCustomers(anyInt()))
+                .thenReturn(Flux.fromIterable(Arrays.asList(customer1, customer2)));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty());
+        mockRunAndCheckpointSaves();
+        List<DailyBalancePartition> completed = mockPartitionPasses(Collections.singletonList(
+                Arrays.asList(partition(first, 1), partition(1 - first, 1))));
+        mockAccountsForCustomer(CUSTOMER_ID);
+        mockCreditsForCustomer(CUSTOMER_ID);
+        mockCreditCardsForCustomer(CUSTOMER_ID);
+        mockDebitCardsForCustomer(CUSTOMER_ID);
+        mockAccountsForCustomer("customer456");
+        mockCreditsForCustomer("customer456");
+        mockCreditCardsForCustomer("customer456");
+        mockDebitCardsForCustomer("customer456");
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .assertNext(run -> {
+                    assertEquals(DailyBalanceRunStatus.COMPLETED, run.getStatus());
+                    assertEquals(2, run.getCustomersProcessed());
+                    assertEquals(8, run.getProductsSaved());
+                })
+                .verifyComplete();
+        assertEquals(2, completed.size());
+        verify(customerClientService, times(1)).getAllCustomers(anyInt());
+    }
+    @Test
+    void runDailyBalances_shouldRetryPartitionAfterFailure() {
+        // Arrange
+        properties.setLeaseRenewInterval(Duration.ofMillis(10));
+        DailyBalancePartition claimed = partition(0, 1);
+        DailyBalancePartition retaken = partition(0, 2);
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        when(customerClientService.getAllCustomers(anyInt()))
+                .thenReturn(Flux.error(new RuntimeException("Customer service is unavailable")), Flux.just(customer));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(dailyBalanceCheckpointRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(dailyBalanceRepository.deleteByCustomerIdAndDate(eq(CUSTOMER_ID), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(0L));
+        mockRunAndCheckpointSaves();
+        mockPartitionClaims(claimed, retaken);
+        when(partitionLeases.release(claimed)).thenReturn(Mono.empty());
+        mockAccountsForCustomer(CUSTOMER_ID);
+        mockCreditsForCustomer(CUSTOMER_ID);
+        mockCreditCardsForCustomer(CUSTOMER_ID);
+        mockDebitCardsForCustomer(CUSTOMER_ID);
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .assertNext(run -> {
+                    assertEquals(DailyBalanceRunStatus.COMPLETED, run.getStatus());
+                    assertEquals(1, run.getCustomersProcessed());
+                })
+                .verifyComplete();
+        verify(partitionLeases).release(claimed);
+        verify(dailyBalanceRunRepository, never())
+                .save(argThat(run -> run.getStatus() == DailyBalanceRunStatus.FAILED));
+    }
+    @Test
+    void runDailyBalances_shouldMarkRunFailedWhenRetriesAreExhausted() {
+        // Arrange
+        properties.setLeaseRenewInterval(Duration.ofMillis(10));
+        properties.setPartitionRetries(1);
+        DailyBalancePartition claimed = partition(0, 1);
+        when(customerClientService.getAllCustomers(anyInt()))
+                .thenReturn(Flux.error(new RuntimeException("Customer service is unavailable")));
+        when(dailyBalanceRunRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(dailyBalanceRunRepository.insert(any(DailyBalanceRun.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(partitionLeases.claim(anyString(), anyInt(), anyInt())).thenReturn(Flux.just(claimed));
+        when(dailyBalanceRunRepository.save(any(DailyBalanceRun.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(partitionLeases.release(claimed)).thenReturn(Mono.empty());
+        // Act & Assert
+        StepVerifier.create(dailyBalanceService.runDailyBalances())
+                .expectErrorMessage("Customer service is unavailable")
+                .verify();
+        verify(partitionLeases, times(2)).release(claimed);
+        verify(partitionLeases, never()).complete(any(DailyBalancePartition.class));
+        verify(dailyBalanceRunRepository).save(argThat(run -> run.getStatus() == DailyBalanceRunStatus.FAILED));
+        verify(dailyBalanceCheckpointRepository, never()).deleteByRunId(anyString());
     }
     @Test
     void saveBalancesForCustomer_shouldSaveAllProductTypes() {
@@ -96,7 +498,8 @@ class DailyBalanceServiceTest {
         verify(creditService, times(1)).getCreditsByCustomer(CUSTOMER_ID);
         verify(creditService, times(1)).getCreditCardsByCustomer(CUSTOMER_ID);
         verify(debitCardClientService, times(1)).getDebitCardsByCustomer(CUSTOMER_ID);
-        verify(dailyBalanceRepository, times(4)).save(any(DailyBalance.class));
+        verify(accountService, never()).getAccountsByIds(anyCollection());
+        verify(dailyBalanceWriter, times(4)).write(any(DailyBalance.class));
     }
     @Test
     void saveAccountBalances_shouldSaveAllAccounts() {
@@ -109,7 +512,7 @@ class DailyBalanceServiceTest {
         StepVerifier.create(dailyBalanceService.saveAccountBalances(CUSTOMER_ID))
                 .verifyComplete();
         verify(accountService, times(1)).getAccountsByCustomer(CUSTOMER_ID);
-        verify(dailyBalanceRepository, times(2)).save(any(DailyBalance.class));
+        verify(dailyBalanceWriter, times(2)).write(any(DailyBalance.class));
     }
     @Test
     void saveCreditBalances_shouldSaveAllCredits() {
@@ -122,7 +525,7 @@ class DailyBalanceServiceTest {
         StepVerifier.create(dailyBalanceService.saveCreditBalances(CUSTOMER_ID))
                 .verifyComplete();
         verify(creditService, times(1)).getCreditsByCustomer(CUSTOMER_ID);
-        verify(dailyBalanceRepository, times(2)).save(any(DailyBalance.class));
+        verify(dailyBalanceWriter, times(2)).write(any(DailyBalance.class));
     }
     @Test
     void saveCreditCardBalances_shouldSaveAllCreditCards() {
@@ -139,7 +542,7 @@ class DailyBalanceServiceTest {
         StepVerifier.create(dailyBalanceService.saveCreditCardBalances(CUSTOMER_ID))
                 .verifyComplete();
         verify(creditService, times(1)).getCreditCardsByCustomer(CUSTOMER_ID);
-        verify(dailyBalanceRepository, times(2)).save(any(DailyBalance.class));
+        verify(dailyBalanceWriter, times(2)).write(any(DailyBalance.class));
     }
     @Test
     void saveDebitCardBalances_shouldSaveAllDebitCards() {
@@ -148,13 +551,14 @@ class DailyBalanceServiceTest {
         List<DebitCard> cards = Arrays.asList(card);
         Account account = createAccount(ACCOUNT_ID, AccountType.SAVINGS, 1000.0);
         when(debitCardClientService.getDebitCardsByCustomer(CUSTOMER_ID)).thenReturn(Mono.just(cards));
-        when(accountService.getAccountById(ACCOUNT_ID)).thenReturn(Mono.just(account));
+        when(accountService.getAccountsByIds(anyCollection())).thenReturn(Mono.just(Arrays.asList(account)));
         // Act & Assert
         StepVerifier.create(dailyBalanceService.saveDebitCardBalances(CUSTOMER_ID))
                 .verifyComplete();
         verify(debitCardClientService, times(1)).getDebitCardsByCustomer(CUSTOMER_ID);
-        verify(accountService, times(1)).getAccountById(ACCOUNT_ID);
-        verify(dailyBalanceRepository, times(1)).save(any(DailyBalance.class));
+        verify(accountService, times(1)).getAccountsByIds(anyCollection());
+        verify(accountService, never()).getAccountById(anyString());
+        verify(dailyBalanceWriter, times(1)).write(any(DailyBalance.class));
     }
     @Test
     void saveDebitCardBalances_shouldHandleAccountNotFound() {
@@ -162,32 +566,77 @@ class DailyBalanceServiceTest {
         DebitCard card = createDebitCard(DEBIT_CARD_ID, ACCOUNT_ID);
         List<DebitCard> cards = Arrays.asList(card);
         when(debitCardClientService.getDebitCardsByCustomer(CUSTOMER_ID)).thenReturn(Mono.just(cards));
-        when(accountService.getAccountById(ACCOUNT_ID))
+        when(accountService.getAccountsByIds(anyCollection()))
                 .thenReturn(Mono.error(new RuntimeException("Account not found")));
         // Act & Assert
         StepVerifier.create(dailyBalanceService.saveDebitCardBalances(CUSTOMER_ID))
                 .verifyComplete();
         verify(debitCardClientService, times(1)).getDebitCardsByCustomer(CUSTOMER_ID);
-        verify(accountService, times(1)).getAccountById(ACCOUNT_ID);
-        verify(dailyBalanceRepository, times(1)).save(any(DailyBalance.class));
+        verify(accountService, times(1)).getAccountsByIds(anyCollection());
+        verify(dailyBalanceWriter, times(1)).write(any(DailyBalance.class));
     }
     @Test
     void saveDailyBalance_shouldSaveBalance() {
         // Arrange
         BigDecimal balance = new BigDecimal("1000.00");
+        LocalDateTime createdAt = LocalDateTime.of(2023, 5, 1, 9, 0);
         // Act & Assert
         StepVerifier.create(dailyBalanceService.saveDailyBalance(
-                        CUSTOMER_ID, ACCOUNT_ID, "ACCOUNT", "SAVINGS", balance))
+                        CUSTOMER_ID, ACCOUNT_ID, "ACCOUNT", "SAVINGS", createdAt, balance))
                 .verifyComplete();
-        verify(dailyBalanceRepository, times(1)).save(argThat(dailyBalance ->
+        verify(dailyBalanceWriter, times(1)).write(argThat(dailyBalance ->
                 dailyBalance.getCustomerId().equals(CUSTOMER_ID) &&
                         dailyBalance.getProductId().equals(ACCOUNT_ID) &&
                         dailyBalance.getProductType().equals("ACCOUNT") &&
                         dailyBalance.getSubType().equals("SAVINGS") &&
                         dailyBalance.getBalance().equals(balance) &&
+                        createdAt.equals(dailyBalance.getProductCreatedAt()) &&
                         dailyBalance.getDate() != null
         ));
     }
+    private void mockRunAndCheckpointSaves() {
+        lenient().when(dailyBalanceRunRepository.insert(any(DailyBalanceRun.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(dailyBalanceRunRepository.save(any(DailyBalanceRun.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(dailyBalanceCheckpointRepository.save(any(DailyBalanceCheckpoint.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        lenient().when(dailyBalanceCheckpointRepository.deleteByRunId(anyString())).thenReturn(Mono.just(0L));
+    }
+    private List<DailyBalancePartition> mockPartitionClaims(DailyBalancePartition... claimed) {
+        return mockPartitionPasses(Arrays.stream(claimed).map(Collections::singletonList).collect(Collectors.toList()));
+    }
+    private List<DailyBalancePartition> mockPartitionPasses(List<List<DailyBalancePartition>> passes) {
+        Iterator<List<DailyBalancePartition>> claims = passes.iterator();
+        List<DailyBalancePartition> completed = new ArrayList<>();
+        when(partitionLeases.claim(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> claims.hasNext() ? Flux.fromIterable(claims.next()) : Flux.empty());
+        lenient().when(partitionLeases.renew(any(DailyBalancePartition.class))).thenReturn(Mono.just(true));
+        when(partitionLeases.complete(any(DailyBalancePartition.class))).thenAnswer(invocation -> {
+            DailyBalancePartition partition = invocation.getArgument(0);
+            partition.setStatus(DailyBalanceRunStatus.COMPLETED);
+            completed.add(partition);
+            return Mono.just(true);
+        });
+        lenient().when(partitionLeases.partitions(anyString()))
+                .thenAnswer(invocation -> Flux.fromIterable(completed));
+        return completed;
+    }
+    private DailyBalancePartition partition(int partition, int attempts) {
+        String runId = LocalDate.now().toString();
+        return DailyBalancePartition.builder()
+                .id(DailyBalancePartition.idOf(runId, partition))
+                .runId(runId)
+                .partition(partition)
+                .status(DailyBalanceRunStatus.RUNNING)
+                .attempts(attempts)
+                .build();
+    }
+    private long stageTimer(String stage, String category, String outcome) {
+        return meterRegistry.get("report.job.stage")
+                .tags("stage", stage, "category", category, "outcome", outcome)
+                .timer().count();
+    }
     private void mockAccountsForCustomer(String customerId) {
         Account account = createAccount(ACCOUNT_ID, AccountType.SAVINGS, 1000.0);
         when(accountService.getAccountsByCustomer(customerId))
@@ -208,11 +657,8 @@ class DailyBalanceServiceTest {
     }
     private void mockDebitCardsForCustomer(String customerId) {
         DebitCard card = createDebitCard(DEBIT_CARD_ID, ACCOUNT_ID);
-        Account account = createAccount(ACCOUNT_ID, AccountType.SAVINGS, 1000.0);
         when(debitCardClientService.getDebitCardsByCustomer(customerId))
                 .thenReturn(Mono.just(Arrays.asList(card)));
-        when(accountService.getAccountById(ACCOUNT_ID))
-                .thenReturn(Mono.just(account));
     }
     private Account createAccount(String id, AccountType type, double balance) {
         Account account = new Account();
@@ -0,0 +1,191 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.config.DailyBalanceJobProperties;
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyBalanceWriterTest {
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private MongoConverter converter;
+    @Mock
+    private MongoCollection<Document> collection;
+    @Mock
+    private InsertManyResult insertManyResult;
+    @Mock
+    private MonthlyBalanceRollupService rollupService;
+    private SimpleMeterRegistry meterRegistry;
+    private DailyBalanceWriter writer;
+    @BeforeEach
+    void setUp() {
+        DailyBalanceJobProperties properties = new DailyBalanceJobProperties();
+        properties.setWriteBatchSize(2);
+        properties.setWriteMaxDelay(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(DailyBalance.class)).thenReturn("daily_balances");
+        when(mongoTemplate.getCollection("daily_balances")).thenReturn(Mono.just(collection));
+        lenient().when(rollupService.record(anyList())).thenReturn(Mono.empty());
+        writer = new DailyBalanceWriter(mongoTemplate, properties, rollupService, meterRegistry);
+        writer.start();
+    }
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+    @Test
+    void write_shouldGroupSnapshotsIntoBulkInserts() {
+        // Arrange
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.just(insertManyResult));
+        // Act & Assert
+        StepVerifier.create(Flux.merge(
+                        writer.write(createDailyBalance("product1")),
+                        writer.write(createDailyBalance("product2")),
+                        writer.write(createDailyBalance("product3")))
+                        .collectList())
+                .assertNext(written -> assertEquals(3, written.size()))
+                .verifyComplete();
+        verify(collection, times(2)).insertMany(anyList(), any(InsertManyOptions.class));
+        assertEquals(3.0, meterRegistry.get("report.daily-balance.write.documents")
+                .tag("result", "written").counter().count());
+    }
+    @Test
+    void write_shouldFailOnlyRejectedSnapshots() {
+        // Arrange
+        MongoBulkWriteException error = mock(MongoBulkWriteException.class);
+        when(error.getWriteErrors()).thenReturn(Collections.singletonList(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.error(error));
+        Mono<DailyBalance> accepted = writer.write(createDailyBalance("product1"));
+        Mono<DailyBalance> rejected = writer.write(createDailyBalance("product2"));
+        // Act & Assert
+        StepVerifier.create(Flux.mergeDelayError(2, accepted, rejected))
+                .expectNextMatches(balance -> "product1".equals(balance.getProductId()))
+                .expectError(MongoBulkWriteException.class)
+                .verify();
+        assertEquals(1.0, meterRegistry.get("report.daily-balance.write.documents")
+                .tag("result", "failed").counter().count());
+        verify(rollupService).record(argThat(written -> written.size() == 1
+                && "product1".equals(written.get(0).getProductId())));
+    }
+    @Test
+    void write_shouldFailWholeBatchWhenInsertFails() {
+        // Arrange
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.error(new RuntimeException("Mongo unavailable")));
+        // Act & Assert
+        StepVerifier.create(writer.write(createDailyBalance("product1")))
+                .expectErrorMessage("Mongo unavailable")
+                .verify();
+        assertEquals(1.0, meterRegistry.get("report.daily-balance.write.batch.failures").counter().count());
+        verifyNoInteractions(rollupService);
+    }
+    @Test
+    void write_shouldRollUpEachBatchOnce() {
+        // Arrange
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.just(insertManyResult));
+        // Act & Assert
+        StepVerifier.create(Flux.merge(
+                        writer.write(createDailyBalance("product1")),
+                        writer.write(createDailyBalance("product2")))
+                        .collectList())
+                .assertNext(written -> assertEquals(2, written.size()))
+                .verifyComplete();
+        verify(rollupService, times(1)).record(argThat(written -> written.size() == 2));
+    }
+    @Test
+    void write_shouldNotFailWhenRollupFails() {
+        // Arrange
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.just(insertManyResult));
+        when(rollupService.record(anyList())).thenReturn(Mono.error(new RuntimeException("Rollup unavailable")));
+        // Act & Assert
+        StepVerifier.create(writer.write(createDailyBalance("product1")))
+                .expectNextMatches(balance -> "product1".equals(balance.getProductId()))
+                .verifyComplete();
+        assertEquals(0.0, meterRegistry.get("report.daily-balance.write.batch.failures").counter().count());
+    }
+    @Test
+    void write_shouldKeepWritingAfterMappingFailure() {
+        // Arrange
+        doThrow(new IllegalStateException("Cannot map balance"))
+                .doNothing()
+                .when(converter).write(any(DailyBalance.class), any(Document.class));
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.just(insertManyResult));
+        // Act & Assert
+        StepVerifier.create(writer.write(createDailyBalance("product1")))
+                .expectErrorMessage("Cannot map balance")
+                .verify(Duration.ofSeconds(1));
+        StepVerifier.create(writer.write(createDailyBalance("product2")))
+                .expectNextMatches(balance -> "product2".equals(balance.getProductId()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        verify(collection, times(1)).insertMany(anyList(), any(InsertManyOptions.class));
+    }
+    @Test
+    void write_shouldQueueBatchesWhileEveryFlushIsInFlight() {
+        // Arrange
+        writer.stop();
+        DailyBalanceJobProperties properties = new DailyBalanceJobProperties();
+        properties.setWriteBatchSize(2);
+        properties.setWriteMaxDelay(Duration.ofMillis(10));
+        properties.setWriteConcurrency(1);
+        writer = new DailyBalanceWriter(mongoTemplate, properties, rollupService, meterRegistry);
+        writer.start();
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenReturn(Mono.delay(Duration.ofMillis(200)).thenReturn(insertManyResult));
+        // Act & Assert
+        // The second partial batch times out while the first is still being inserted.
+        StepVerifier.create(Flux.merge(
+                        writer.write(createDailyBalance("product1")),
+                        Mono.delay(Duration.ofMillis(50)).then(writer.write(createDailyBalance("product2"))),
+                        Mono.delay(Duration.ofMillis(100)).then(writer.write(createDailyBalance("product3"))))
+                        .collectList())
+                .assertNext(written -> assertEquals(3, written.size()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+    private DailyBalance createDailyBalance(String productId) {
+        DailyBalance balance = new DailyBalance();
+        balance.setCustomerId("customer123");
+        balance.setProductId(productId);
+        balance.setProductType("ACCOUNT");
+        balance.setBalance(new BigDecimal("100.00"));
+        balance.setDate(LocalDateTime.now());
+        return balance;
+    }
+}
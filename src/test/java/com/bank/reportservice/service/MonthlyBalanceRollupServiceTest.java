@@ -0,0 +1,165 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.model.balance.DailyBalance;
+import com.bank.reportservice.model.balance.MonthlyBalanceRollup;
+import com.bank.reportservice.repository.MonthlyBalanceRollupRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MonthlyBalanceRollupServiceTest {
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+    @Mock
+    private MonthlyBalanceRollupRepository rollupRepository;
+    @Mock
+    private MongoCollection<Document> collection;
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+    @Captor
+    private ArgumentCaptor<List<UpdateOneModel<Document>>> upserts;
+    @InjectMocks
+    private MonthlyBalanceRollupService rollupService;
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(Collections.emptyList());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        lenient().when(mongoTemplate.getConverter()).thenReturn(converter);
+        lenient().when(mongoTemplate.getCollectionName(MonthlyBalanceRollup.class))
+                .thenReturn("monthly_balance_rollups");
+        lenient().when(mongoTemplate.getCollection("monthly_balance_rollups")).thenReturn(Mono.just(collection));
+    }
+    @Test
+    void record_shouldIncrementMonthlyRollupsInOneBulkWrite() {
+        // Arrange
+        DailyBalance snapshot = createSnapshot("account123", new BigDecimal("150.25"));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(Mono.just(bulkWriteResult));
+        // Act & Assert
+        StepVerifier.create(rollupService.record(Arrays.asList(snapshot, createSnapshot("account456", BigDecimal.TEN))))
+                .verifyComplete();
+        verify(collection, times(1)).bulkWrite(upserts.capture(), any(BulkWriteOptions.class));
+        assertEquals(2, upserts.getValue().size());
+        UpdateOneModel<Document> upsert = upserts.getValue().get(0);
+        assertTrue(upsert.getOptions().isUpsert());
+        Document filter = (Document) upsert.getFilter();
+        assertEquals("customer123:account123:2024-03", filter.get("_id"));
+        Document updateObject = (Document) upsert.getUpdate();
+        Decimal128 balance = new Decimal128(new BigDecimal("150.25"));
+        assertEquals(balance, ((Document) updateObject.get("$inc")).get("sum"));
+        assertEquals(1, ((Document) updateObject.get("$inc")).get("count"));
+        assertEquals(balance, ((Document) updateObject.get("$min")).get("min"));
+        assertEquals(balance, ((Document) updateObject.get("$max")).get("max"));
+        assertTrue(((Document) updateObject.get("$set")).get("lastSnapshotDate") instanceof Date);
+    }
+    @Test
+    void record_shouldIgnoreAlreadyAppliedSnapshots() {
+        // Arrange
+        MongoBulkWriteException error = mock(MongoBulkWriteException.class);
+        when(error.getWriteErrors()).thenReturn(Collections.singletonList(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(Mono.error(error));
+        List<DailyBalance> snapshots = Collections.singletonList(createSnapshot("account123", BigDecimal.TEN));
+        // Act & Assert
+        StepVerifier.create(rollupService.record(snapshots))
+                .verifyComplete();
+    }
+    @Test
+    void record_shouldFailOnOtherWriteErrors() {
+        // Arrange
+        MongoBulkWriteException error = mock(MongoBulkWriteException.class);
+        when(error.getWriteErrors()).thenReturn(Collections.singletonList(
+                new BulkWriteError(121, "document failed validation", new BsonDocument(), 0)));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(Mono.error(error));
+        List<DailyBalance> snapshots = Collections.singletonList(createSnapshot("account123", BigDecimal.TEN));
+        // Act & Assert
+        StepVerifier.create(rollupService.record(snapshots))
+                .expectError(MongoBulkWriteException.class)
+                .verify();
+    }
+    @Test
+    void record_shouldSkipEmptyBatch() {
+        // Act & Assert
+        StepVerifier.create(rollupService.record(Collections.emptyList()))
+                .verifyComplete();
+        verifyNoInteractions(collection);
+    }
+    @Test
+    void findMonthlySummary_shouldAverageRunningSums() {
+        // Arrange
+        MonthlyBalanceRollup rollup = MonthlyBalanceRollup.builder()
+                .customerId("customer123")
+                .productId("account123")
+                .productType("ACCOUNT")
+                .subType("SAVINGS")
+                .month("2024-03")
+                .sum(new BigDecimal("3300.00"))
+                .count(3)
+                .build();
+        MonthlyBalanceRollup empty = MonthlyBalanceRollup.builder()
+                .productId("account456")
+                .count(0)
+                .build();
+        when(rollupRepository.findByCustomerIdAndMonth("customer123", "2024-03"))
+                .thenReturn(Flux.just(rollup, empty));
+        // Act & Assert
+        StepVerifier.create(rollupService.findMonthlySummary("customer123", YearMonth.of(2024, 3)))
+                .assertNext(summary -> {
+                    assertEquals("account123", summary.getProductId());
+                    assertEquals("ACCOUNT", summary.getProductType());
+                    assertEquals(new BigDecimal("1100.00"), summary.getAverageBalance());
+                })
+                .verifyComplete();
+    }
+    private DailyBalance createSnapshot(String productId, BigDecimal balance) {
+        DailyBalance snapshot = new DailyBalance();
+        snapshot.setCustomerId("customer123");
+        snapshot.setProductId(productId);
+        snapshot.setProductType("ACCOUNT");
+        snapshot.setSubType("SAVINGS");
+        snapshot.setBalance(balance);
+        snapshot.setDate(LocalDateTime.of(2024, 3, 15, 23, 59, 59));
+        return snapshot;
+    }
+}
@@ -4,10 +4,13 @@ import com.bank.reportservice.client.AccountClientService;
 import com.bank.reportservice.client.CreditClientService;
 import com.bank.reportservice.client.DebitCardClientService;
 import com.bank.reportservice.client.TransactionClientService;
+import com.bank.reportservice.config.PartialBalancesProperties;
 import com.bank.reportservice.dto.CategorySummary;
+import com.bank.reportservice.dto.CustomerBalances;
 import com.bank.reportservice.dto.DailyBalanceSummary;
 import com.bank.reportservice.dto.ProductBalance;
 import com.bank.reportservice.dto.ProductMovement;
+import com.bank.reportservice.metrics.ReportMetrics;
 import com.bank.reportservice.model.account.Account;
 import com.bank.reportservice.model.account.AccountType;
 import com.bank.reportservice.model.balance.DailyBalance;
@@ -21,23 +24,28 @@ import com.bank.reportservice.model.transaction.ProductSubType;
 import com.bank.reportservice.model.transaction.Transaction;
 import com.bank.reportservice.model.transaction.TransactionType;
 import com.bank.reportservice.repository.DailyBalanceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -53,6 +61,19 @@ public class ReportServiceTest {
     private DailyBalanceRepository dailyBalanceRepository;
     @Mock
     private DebitCardClientService debitCardClientService;
+    @Mock
+    private MonthlyBalanceRollupService rollupService;
+    @Mock
+    private CustomerBalanceViewService balanceViewService;
+    @Mock
+    private TransactionSummaryService transactionSummaryService;
+    @Spy
+    private PartialBalancesProperties partialProperties = new PartialBalancesProperties();
+    @Mock
+    private BalanceSnapshotFallback snapshotFallback;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private ReportMetrics metrics = new ReportMetrics(meterRegistry);
     @InjectMocks
     private ReportService reportService;
     private String customerId;
@@ -110,6 +131,9 @@ public class ReportServiceTest {
         dailyBalance.setSubType(ProductSubType.SAVINGS.toString());
         dailyBalance.setBalance(new BigDecimal("1000.00"));
         dailyBalance.setDate(LocalDateTime.now().minusDays(1));
+        lenient().when(balanceViewService.findCustomerBalances(anyString())).thenReturn(Mono.empty());
+        lenient().when(balanceViewService.seed(any(CustomerBalances.class), any(LocalDateTime.class)))
+                .thenReturn(Mono.empty());
     }
     @Test
     void getCustomerBalances_Success() {
@@ -122,7 +146,6 @@ public class ReportServiceTest {
         when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(creditCards));
         when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(credits));
         when(debitCardClientService.getDebitCardsByCustomer(customerId)).thenReturn(Mono.just(debitCards));
-        when(accountClient.getAccountById(anyString())).thenReturn(Mono.just(account));
         // Act & Assert
         StepVerifier.create(reportService.getCustomerBalances(customerId))
                 .assertNext(customerBalances -> {
@@ -147,13 +170,166 @@ public class ReportServiceTest {
                     assertNotNull(debitCardBalance);
                     assertEquals(ProductCategory.DEBIT_CARD, debitCardBalance.getType());
                     assertEquals(new BigDecimal("1000.0"), debitCardBalance.getAvailableBalance());
+                    assertNotNull(customerBalances.getAsOf());
                 })
                 .verifyComplete();
         verify(accountClient).getAccountsByCustomer(customerId);
         verify(creditClient).getCreditCardsByCustomer(customerId);
         verify(creditClient).getCreditsByCustomer(customerId);
         verify(debitCardClientService).getDebitCardsByCustomer(customerId);
-        verify(accountClient).getAccountById(debitCard.getPrimaryAccountId());
+        verify(accountClient, never()).getAccountsByIds(anyCollection());
+        verify(accountClient, never()).getAccountById(anyString());
+        verify(balanceViewService).seed(any(CustomerBalances.class), any(LocalDateTime.class));
+    }
+    @Test
+    void getCustomerBalances_ShouldServeSeededView() {
+        // Arrange
+        CustomerBalances materialized = CustomerBalances.builder()
+                .customerId(customerId)
+                .products(Collections.singletonList(ProductBalance.builder()
+                        .productId("account123")
+                        .type(ProductCategory.ACCOUNT)
+                        .subType(ProductSubType.SAVINGS)
+                        .availableBalance(new BigDecimal("1200.00"))
+                        .build()))
+                .build();
+        when(balanceViewService.findCustomerBalances(customerId)).thenReturn(Mono.just(materialized));
+        // Act & Assert
+        StepVerifier.create(reportService.getCustomerBalances(customerId))
+                .expectNext(materialized)
+                .verifyComplete();
+        verifyNoInteractions(accountClient, creditClient, debitCardClientService);
+    }
+    @Test
+    void getCustomerBalances_ShouldFanOutWhenViewIsUnavailable() {
+        // Arrange
+        when(balanceViewService.findCustomerBalances(customerId))
+                .thenReturn(Mono.error(new RuntimeException("Mongo unavailable")));
+        when(balanceViewService.seed(any(CustomerBalances.class), any(LocalDateTime.class)))
+                .thenReturn(Mono.error(new RuntimeException("Mongo unavailable")));
+        when(accountClient.getAccountsByCustomer(customerId)).thenReturn(Mono.just(Collections.singletonList(account)));
+        when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(debitCardClientService.getDebitCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        // Act & Assert
+        StepVerifier.create(reportService.getCustomerBalances(customerId))
+                .assertNext(customerBalances -> assertEquals(1, customerBalances.getProducts().size()))
+                .verifyComplete();
+    }
+    @Test
+    void getCustomerBalances_ShouldServeOpenFamiliesFromSnapshotsAndTheRestLive() {
+        // Arrange
+        Set<ProductCategory> open = Set.of(ProductCategory.ACCOUNT, ProductCategory.DEBIT_CARD);
+        when(snapshotFallback.openFamilies()).thenReturn(open);
+        when(snapshotFallback.serve(eq(customerId), eq(open), any()))
+                .thenReturn(Mono.just(List.of(BalanceSnapshotFallback.toProductBalance(dailyBalance))));
+        when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(List.of(creditCard)));
+        when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(List.of(credit)));
+        // Act & Assert
+        StepVerifier.create(reportService.getCustomerBalances(customerId))
+                .assertNext(customerBalances -> {
+                    assertEquals(3, customerBalances.getProducts().size());
+                    assertEquals(dailyBalance.getDate(), customerBalances.getAsOf());
+                    assertEquals(open, Set.copyOf(customerBalances.getStaleFamilies()));
+                })
+                .verifyComplete();
+        verifyNoInteractions(accountClient, debitCardClientService);
+        verify(balanceViewService, never()).seed(any(CustomerBalances.class), any(LocalDateTime.class));
+    }
+    @Test
+    void getCustomerBalances_ShouldFallBackToSnapshotsWhenFanOutFailsOnOpenBreaker() {
+        // Arrange
+        Set<ProductCategory> open = Set.of(ProductCategory.ACCOUNT, ProductCategory.DEBIT_CARD);
+        when(snapshotFallback.openFamilies()).thenReturn(Collections.emptySet(), open);
+        when(snapshotFallback.serve(eq(customerId), eq(open), any()))
+                .thenReturn(Mono.just(List.of(BalanceSnapshotFallback.toProductBalance(dailyBalance))));
+        when(accountClient.getAccountsByCustomer(customerId))
+                .thenReturn(Mono.error(new RuntimeException("Account service is unavailable")));
+        when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(debitCardClientService.getDebitCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        // Act & Assert
+        StepVerifier.create(reportService.getCustomerBalances(customerId))
+                .assertNext(customerBalances -> {
+                    assertEquals(1, customerBalances.getProducts().size());
+                    assertEquals("account123", customerBalances.getProducts().get(0).getProductId());
+                    assertEquals(dailyBalance.getDate(), customerBalances.getAsOf());
+                })
+                .verifyComplete();
+    }
+    @Test
+    void getCustomerBalances_PartialShouldServeFailedFamilyFromSnapshot() {
+        // Arrange
+        DailyBalance creditSnapshot = DailyBalance.builder()
+                .customerId(customerId)
+                .productId("credit123")
+                .productType(ProductCategory.CREDIT.name())
+                .subType(CreditType.PERSONAL.name())
+                .balance(new BigDecimal("7900.00"))
+                .date(LocalDateTime.now().minusDays(1))
+                .build();
+        when(accountClient.getAccountsByCustomer(customerId)).thenReturn(Mono.just(Collections.singletonList(account)));
+        when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(creditClient.getCreditsByCustomer(customerId))
+                .thenReturn(Mono.error(new RuntimeException("Credit service is unavailable")));
+        when(debitCardClientService.getDebitCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(eq(customerId), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.just(creditSnapshot, dailyBalance));
+        // Act & Assert
+        StepVerifier.create(reportService.getCustomerBalances(customerId, true))
+                .assertNext(customerBalances -> {
+                    assertTrue(customerBalances.getPartial());
+                    assertEquals(List.of(ProductCategory.CREDIT), customerBalances.getStaleFamilies());
+                    assertTrue(customerBalances.getMissingFamilies().isEmpty());
+                    assertEquals(2, customerBalances.getProducts().size());
+                    ProductBalance creditBalance = findProductById(customerBalances.getProducts(), "credit123");
+                    assertNotNull(creditBalance);
+                    assertEquals(new BigDecimal("7900.00"), creditBalance.getAvailableBalance());
+                    assertEquals(creditSnapshot.getDate(), creditBalance.getAsOf());
+                    assertNull(findProductById(customerBalances.getProducts(), "account123").getAsOf());
+                })
+                .verifyComplete();
+        verify(balanceViewService, never()).seed(any(CustomerBalances.class), any(LocalDateTime.class));
+    }
+    @Test
+    void getCustomerBalances_PartialShouldReportFamilyMissingItsDeadline() {
+        // Arrange
+        partialProperties.getDeadlines().put(ProductCategory.CREDIT_CARD, Duration.ofMillis(50));
+        partialProperties.setSnapshotFallback(false);
+        when(accountClient.getAccountsByCustomer(customerId)).thenReturn(Mono.just(Collections.singletonList(account)));
+        when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.never());
+        when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(Collections.singletonList(credit)));
+        when(debitCardClientService.getDebitCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        // Act & Assert
+        StepVerifier.create(reportService.getCustomerBalances(customerId, true))
+                .assertNext(customerBalances -> {
+                    assertTrue(customerBalances.getPartial());
+                    assertEquals(List.of(ProductCategory.CREDIT_CARD), customerBalances.getMissingFamilies());
+                    assertEquals(2, customerBalances.getProducts().size());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        verifyNoInteractions(dailyBalanceRepository);
+    }
+    @Test
+    void getCustomerBalances_PartialShouldDropDebitCardsWhenAccountsAreMissing() {
+        // Arrange
+        partialProperties.setSnapshotFallback(false);
+        when(accountClient.getAccountsByCustomer(customerId))
+                .thenReturn(Mono.error(new RuntimeException("Account service is unavailable")));
+        when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(debitCardClientService.getDebitCardsByCustomer(customerId))
+                .thenReturn(Mono.just(Collections.singletonList(debitCard)));
+        // Act & Assert
+        StepVerifier.create(reportService.getCustomerBalances(customerId, true))
+                .assertNext(customerBalances -> {
+                    assertEquals(List.of(ProductCategory.ACCOUNT, ProductCategory.DEBIT_CARD),
+                            customerBalances.getMissingFamilies());
+                    assertTrue(customerBalances.getProducts().isEmpty());
+                })
+                .verifyComplete();
+        verify(accountClient, never()).getAccountsByIds(anyCollection());
     }
     @Test
     void getResumeByProductAndUserAndDates_FilterByTypeAndDates_Success() {
@@ -166,7 +342,6 @@ public class ReportServiceTest {
         when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(creditCards));
         when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(credits));
         when(debitCardClientService.getDebitCardsByCustomer(customerId)).thenReturn(Mono.just(debitCards));
-        when(accountClient.getAccountById(anyString())).thenReturn(Mono.just(account));
         String typeProduct = "ACCOUNT";
         LocalDate startDate = LocalDate.now().minusDays(60);
         LocalDate endDate = LocalDate.now();
@@ -188,6 +363,38 @@ public class ReportServiceTest {
         verify(debitCardClientService).getDebitCardsByCustomer(customerId);
     }
     @Test
+    void getResumeByProductAndUserAndDates_PartialShouldKeepSnapshotProductsAndFlags() {
+        // Arrange
+        partialProperties.setEnabled(true);
+        DailyBalance creditSnapshot = DailyBalance.builder()
+                .customerId(customerId)
+                .productId("credit123")
+                .productType(ProductCategory.CREDIT.name())
+                .subType(CreditType.PERSONAL.name())
+                .balance(new BigDecimal("7900.00"))
+                .date(LocalDateTime.now().minusDays(1))
+                .build();
+        when(accountClient.getAccountsByCustomer(customerId)).thenReturn(Mono.just(Collections.singletonList(account)));
+        when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(creditClient.getCreditsByCustomer(customerId))
+                .thenReturn(Mono.error(new RuntimeException("Credit service is unavailable")));
+        when(debitCardClientService.getDebitCardsByCustomer(customerId)).thenReturn(Mono.just(Collections.emptyList()));
+        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(eq(customerId), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.just(creditSnapshot));
+        // Act & Assert
+        StepVerifier.create(reportService.getResumeByProductAndUserAndDates("CREDIT", customerId,
+                        LocalDate.now().minusDays(60), LocalDate.now()))
+                .assertNext(customerBalances -> {
+                    assertEquals(1, customerBalances.getProducts().size());
+                    assertEquals("credit123", customerBalances.getProducts().get(0).getProductId());
+                    assertTrue(customerBalances.getPartial());
+                    assertEquals(List.of(ProductCategory.CREDIT), customerBalances.getStaleFamilies());
+                    assertTrue(customerBalances.getMissingFamilies().isEmpty());
+                    assertNotNull(customerBalances.getAsOf());
+                })
+                .verifyComplete();
+    }
+    @Test
     void getProductMovements_Success() {
         // Arrange
         List<Transaction> transactions = Arrays.asList(transaction);
@@ -223,22 +430,140 @@ public class ReportServiceTest {
         transaction3.setId("transaction3");
         transaction3.setTransactionDate(LocalDateTime.now().minusDays(3));
         transaction3.setAmount(new BigDecimal("300.00"));
-        List<Transaction> transactions = Arrays.asList(transaction1, transaction2, transaction3);
-        when(transactionClient.getTransactionsByCustomerAndProduct(customerId, "creditCard123"))
-                .thenReturn(Mono.just(transactions));
+        when(transactionClient.streamTransactionsByCustomerAndProduct(customerId, "creditCard123"))
+                .thenReturn(Flux.just(transaction1, transaction2, transaction3));
         // Act & Assert
-        StepVerifier.create(reportService.getRecentCardMovements(customerId, "creditCard123", 2))
+        StepVerifier.create(reportService.getRecentCardMovements(customerId, "creditCard123", 2, null, null))
                 .assertNext(movements -> {
                     assertEquals(2, movements.size());
                     assertEquals("transaction1", movements.get(0).getTransactionId());
                     assertEquals("transaction2", movements.get(1).getTransactionId());
                 })
                 .verifyComplete();
-        verify(transactionClient).getTransactionsByCustomerAndProduct(customerId, "creditCard123");
+        verify(transactionClient).streamTransactionsByCustomerAndProduct(customerId, "creditCard123");
+        verify(transactionClient, never()).getTransactionsByCustomerAndProduct(anyString(), anyString());
+    }
+    @Test
+    void getRecentCardMovements_WithCursor_ShouldReturnNextPage() {
+        // Arrange
+        LocalDateTime sameInstant = LocalDateTime.now().minusDays(2);
+        Transaction newest = createTransaction("transaction1", LocalDateTime.now().minusDays(1));
+        Transaction tiedA = createTransaction("transaction2a", sameInstant);
+        Transaction tiedB = createTransaction("transaction2b", sameInstant);
+        Transaction oldest = createTransaction("transaction3", LocalDateTime.now().minusDays(3));
+        when(transactionClient.streamTransactionsByCustomerAndProduct(customerId, "creditCard123"))
+                .thenReturn(Flux.just(oldest, tiedA, newest, tiedB));
+        // Act & Assert
+        StepVerifier.create(reportService.getRecentCardMovements(customerId, "creditCard123", 2,
+                        sameInstant, "transaction2b"))
+                .assertNext(movements -> {
+                    assertEquals(2, movements.size());
+                    assertEquals("transaction2a", movements.get(0).getTransactionId());
+                    assertEquals("transaction3", movements.get(1).getTransactionId());
+                })
+                .verifyComplete();
+    }
+    @Test
+    void getRecentCardMovements_WithZeroLimit_ShouldReturnEmptyPage() {
+        // Arrange
+        when(transactionClient.streamTransactionsByCustomerAndProduct(customerId, "creditCard123"))
+                .thenReturn(Flux.just(transaction));
+        // Act & Assert
+        StepVerifier.create(reportService.getRecentCardMovements(customerId, "creditCard123", 0, null, null))
+                .assertNext(movements -> assertTrue(movements.isEmpty()))
+                .verifyComplete();
+    }
+    @Test
+    void streamProductMovements_ShouldMapEachTransaction() {
+        // Arrange
+        when(transactionClient.streamTransactionsByCustomerAndProduct(customerId, "account123"))
+                .thenReturn(Flux.just(transaction));
+        // Act & Assert
+        StepVerifier.create(reportService.streamProductMovements(customerId, "account123"))
+                .assertNext(movement -> {
+                    assertEquals("transaction123", movement.getTransactionId());
+                    assertEquals(TransactionType.DEPOSIT, movement.getType());
+                    assertEquals(new BigDecimal("500.00"), movement.getAmount());
+                })
+                .verifyComplete();
+    }
+    @Test
+    void streamRecentCardMovements_ShouldEmitNewestFirst() {
+        // Arrange
+        Transaction older = new Transaction();
+        older.setId("older");
+        older.setTransactionDate(LocalDateTime.now().minusDays(3));
+        Transaction newer = new Transaction();
+        newer.setId("newer");
+        newer.setTransactionDate(LocalDateTime.now().minusDays(1));
+        when(transactionClient.streamTransactionsByCustomerAndProduct(customerId, "creditCard123"))
+                .thenReturn(Flux.just(older, transaction, newer));
+        // Act & Assert
+        StepVerifier.create(reportService.streamRecentCardMovements(customerId, "creditCard123", 2, null, null))
+                .assertNext(movement -> assertEquals("newer", movement.getTransactionId()))
+                .assertNext(movement -> assertEquals("older", movement.getTransactionId()))
+                .verifyComplete();
     }
     @Test
     void getMonthlyBalanceSummary_Success() {
         // Arrange
+        when(rollupService.findMonthlySummary(eq(customerId), any(YearMonth.class))).thenReturn(Flux.empty());
+        when(dailyBalanceRepository.summarizeBalances(
+                eq(customerId), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Flux.just(
+                        new DailyBalanceSummary("account123", "ACCOUNT", "SAVINGS", new BigDecimal("1100.004")),
+                        new DailyBalanceSummary("creditCard123", "CREDIT_CARD", "PERSONAL_CREDIT_CARD",
+                                new BigDecimal("2900.005"))));
+        // Act & Assert
+        StepVerifier.create(reportService.getMonthlyBalanceSummary(customerId))
+                .assertNext(summaries -> {
+                    assertEquals(2, summaries.size());
+                    assertEquals(new BigDecimal("1100.00"),
+                            findSummaryById(summaries, "account123").getAverageBalance());
+                    assertEquals(new BigDecimal("2900.01"),
+                            findSummaryById(summaries, "creditCard123").getAverageBalance());
+                })
+                .verifyComplete();
+        verify(dailyBalanceRepository).summarizeBalances(eq(customerId),
+                eq(LocalDate.now().withDayOfMonth(1).atStartOfDay()), any(LocalDateTime.class));
+        verify(dailyBalanceRepository, never()).findBalanceSnapshots(anyString(), any(), any());
+    }
+    @Test
+    void getMonthlyBalanceSummary_ShouldReadRollups() {
+        // Arrange
+        when(rollupService.findMonthlySummary(customerId, YearMonth.now()))
+                .thenReturn(Flux.just(new DailyBalanceSummary("account123", "ACCOUNT", "SAVINGS",
+                        new BigDecimal("1100.00"))));
+        // Act & Assert
+        StepVerifier.create(reportService.getMonthlyBalanceSummary(customerId))
+                .assertNext(summaries -> {
+                    assertEquals(1, summaries.size());
+                    assertEquals(new BigDecimal("1100.00"), summaries.get(0).getAverageBalance());
+                })
+                .verifyComplete();
+        verify(dailyBalanceRepository, never()).summarizeBalances(anyString(), any(), any());
+    }
+    @Test
+    void getBalanceSummary_ShouldQueryWholeDateRange() {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 3, 31);
+        when(dailyBalanceRepository.summarizeBalances(eq(customerId), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(Flux.empty());
+        // Act & Assert
+        StepVerifier.create(reportService.getBalanceSummary(customerId, startDate, endDate))
+                .assertNext(summaries -> assertTrue(summaries.isEmpty()))
+                .verifyComplete();
+        verify(dailyBalanceRepository).summarizeBalances(customerId, startDate.atStartOfDay(),
+                endDate.atTime(LocalTime.MAX));
+    }
+    @Test
+    void getMonthlyBalanceSummary_WhenAggregationFails_ShouldAverageInMemory() {
+        // Arrange
+        when(rollupService.findMonthlySummary(eq(customerId), any(YearMonth.class))).thenReturn(Flux.empty());
+        when(dailyBalanceRepository.summarizeBalances(
+                eq(customerId), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Flux.error(new RuntimeException("$toDecimal not supported")));
         List<DailyBalance> balances = Arrays.asList(
                 dailyBalance,
                 createDailyBalanceWithAmount("account123", "1100.00"),
@@ -246,7 +571,7 @@ public class ReportServiceTest {
                 createDailyBalanceWithAmount("creditCard123", "3000.00"),
                 createDailyBalanceWithAmount("creditCard123", "2800.00")
         );
-        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(
+        when(dailyBalanceRepository.findBalanceSnapshots(
                 eq(customerId), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(Flux.fromIterable(balances));
         // Act & Assert
@@ -265,47 +590,29 @@ public class ReportServiceTest {
                     assertEquals(new BigDecimal("2900.00"), creditCardSummary.getAverageBalance());
                 })
                 .verifyComplete();
-        verify(dailyBalanceRepository).findByCustomerIdAndDateBetween(
+        verify(dailyBalanceRepository).findBalanceSnapshots(
                 eq(customerId), any(LocalDateTime.class), any(LocalDateTime.class));
     }
     @Test
     void fetchTransactionSummaryByDate_Success() {
         // Arrange
-        List<Transaction> transactions = new ArrayList<>();
-        Transaction accountTx1 = new Transaction();
-        accountTx1.setProductCategory(ProductCategory.ACCOUNT);
-        accountTx1.setCommissions(new BigDecimal("5.00"));
-        transactions.add(accountTx1);
-        Transaction accountTx2 = new Transaction();
-        accountTx2.setProductCategory(ProductCategory.ACCOUNT);
-        accountTx2.setCommissions(new BigDecimal("10.00"));
-        transactions.add(accountTx2);
-        Transaction creditCardTx = new Transaction();
-        creditCardTx.setProductCategory(ProductCategory.CREDIT_CARD);
-        creditCardTx.setCommissions(new BigDecimal("15.00"));
-        transactions.add(creditCardTx);
-        when(transactionClient.getTransactionsByDate(any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(Mono.just(transactions));
         LocalDate startDate = LocalDate.now().minusDays(30);
         LocalDate endDate = LocalDate.now();
+        List<CategorySummary> summaries = Arrays.asList(
+                new CategorySummary("ACCOUNT", 2, new BigDecimal("15.00")),
+                new CategorySummary("CREDIT_CARD", 1, new BigDecimal("15.00")));
+        when(transactionSummaryService.summarize(startDate, endDate, TransactionGrouping.CATEGORY))
+                .thenReturn(Mono.just(summaries));
         // Act & Assert
-        StepVerifier.create(reportService.fetchTransactionSummaryByDate(startDate, endDate))
+        StepVerifier.create(reportService.fetchTransactionSummaryByDate(startDate, endDate,
+                        TransactionGrouping.CATEGORY))
                 .assertNext(response -> {
                     assertEquals(HttpStatus.OK.value(), response.getStatus());
                     assertEquals("Transactions retrieved successfully", response.getMessage());
-                    List<CategorySummary> summaries = response.getData();
-                    assertEquals(4, summaries.size());
-                    CategorySummary accountSummary = findCategorySummary(summaries, "ACCOUNT");
-                    assertNotNull(accountSummary);
-                    assertEquals(2, accountSummary.getQuantity());
-                    assertEquals(15.0, accountSummary.getCommissions(), 0.001);
-                    CategorySummary creditCardSummary = findCategorySummary(summaries, "CREDIT_CARD");
-                    assertNotNull(creditCardSummary);
-                    assertEquals(1, creditCardSummary.getQuantity());
-                    assertEquals(15.0, creditCardSummary.getCommissions(), 0.001);
+                    assertEquals(summaries, response.getData());
                 })
                 .verifyComplete();
-        verify(transactionClient).getTransactionsByDate(startDate, endDate);
+        verify(transactionSummaryService).summarize(startDate, endDate, TransactionGrouping.CATEGORY);
     }
     @Test
     void getCustomerBalances_EmptyProducts() {
@@ -325,7 +632,8 @@ public class ReportServiceTest {
     @Test
     void getMonthlyBalanceSummary_EmptyBalances() {
         // Arrange
-        when(dailyBalanceRepository.findByCustomerIdAndDateBetween(
+        when(rollupService.findMonthlySummary(eq(customerId), any(YearMonth.class))).thenReturn(Flux.empty());
+        when(dailyBalanceRepository.summarizeBalances(
                 eq(customerId), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(Flux.empty());
         // Act & Assert
@@ -353,13 +661,14 @@ public class ReportServiceTest {
         List<Account> accounts = Collections.singletonList(account);
         List<CreditCard> creditCards = Collections.singletonList(creditCard);
         List<Credit> credits = Collections.singletonList(credit);
+        debitCard.setPrimaryAccountId("account999");
         List<DebitCard> debitCards = Collections.singletonList(debitCard);
         when(accountClient.getAccountsByCustomer(customerId)).thenReturn(Mono.just(accounts));
         when(creditClient.getCreditCardsByCustomer(customerId)).thenReturn(Mono.just(creditCards));
         when(creditClient.getCreditsByCustomer(customerId)).thenReturn(Mono.just(credits));
         when(debitCardClientService.getDebitCardsByCustomer(customerId))
             .thenReturn(Mono.just(debitCards));
-        when(accountClient.getAccountById(anyString()))
+        when(accountClient.getAccountsByIds(anyCollection()))
             .thenReturn(Mono.error(new RuntimeException("Account not found")));
         // Act & Assert
         StepVerifier.create(reportService.getCustomerBalances(customerId))
@@ -371,6 +680,12 @@ public class ReportServiceTest {
                 })
                 .verifyComplete();
     }
+    private Transaction createTransaction(String id, LocalDateTime date) {
+        Transaction created = new Transaction();
+        created.setId(id);
+        created.setTransactionDate(date);
+        return created;
+    }
     private ProductBalance findProductById(List<ProductBalance> products, String productId) {
         return products.stream()
                 .filter(p -> p.getProductId().equals(productId))
@@ -383,12 +698,6 @@ public class ReportServiceTest {
                 .findFirst()
                 .orElse(null);
     }
-    private CategorySummary findCategorySummary(List<CategorySummary> summaries, String category) {
-        return summaries.stream()
-                .filter(s -> s.getCategory().equals(category))
-                .findFirst()
-                .orElse(null);
-    }
     private DailyBalance createDailyBalanceWithAmount(String productId, String amount) {
         DailyBalance balance = new DailyBalance();
         balance.setId("dailyBalance" + productId + amount);
@@ -0,0 +1,91 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.dto.CategorySummary;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.ProductSubType;
+import com.bank.reportservice.model.transaction.Transaction;
+import com.bank.reportservice.model.transaction.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionSummaryAccumulatorTest {
+    @Test
+    void add_shouldKeepExactCommissionTotals() {
+        // Arrange
+        TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator(TransactionGrouping.CATEGORY);
+        // Act
+        for (int i = 0; i < 10; i++) {
+            accumulator.add(createTransaction(ProductCategory.ACCOUNT, ProductSubType.SAVINGS, "0.10", null));
+        }
+        accumulator.add(createTransaction(ProductCategory.ACCOUNT, ProductSubType.SAVINGS, null, null));
+        accumulator.add(null);
+        // Assert
+        List<CategorySummary> summaries = accumulator.toSummaries();
+        assertEquals(ProductCategory.values().length, summaries.size());
+        CategorySummary account = find(summaries, "ACCOUNT");
+        assertEquals(11, account.getQuantity());
+        assertEquals(new BigDecimal("1.00"), account.getCommissions());
+        assertEquals(0, find(summaries, "CREDIT").getQuantity());
+    }
+    @Test
+    void add_shouldGroupBySubTypeAndReportMissingKeysAsUnknown() {
+        // Arrange
+        TransactionSummaryAccumulator accumulator = new TransactionSummaryAccumulator(TransactionGrouping.SUB_TYPE);
+        // Act
+        accumulator.add(createTransaction(ProductCategory.ACCOUNT, ProductSubType.CHECKING, "1.00", null));
+        accumulator.add(createTransaction(ProductCategory.ACCOUNT, null, "2.00", null));
+        // Assert
+        List<CategorySummary> summaries = accumulator.toSummaries();
+        assertEquals(ProductSubType.values().length + 1, summaries.size());
+        assertEquals(new BigDecimal("1.00"), find(summaries, "CHECKING").getCommissions());
+        assertEquals(new BigDecimal("2.00"), find(summaries, TransactionSummaryAccumulator.UNKNOWN).getCommissions());
+    }
+    @Test
+    void merge_shouldCombineMerchantBuckets() {
+        // Arrange
+        TransactionSummaryAccumulator first = new TransactionSummaryAccumulator(TransactionGrouping.MERCHANT);
+        first.add(createTransaction(ProductCategory.DEBIT_CARD, ProductSubType.DEBIT, "0.50", "Coffee Shop"));
+        TransactionSummaryAccumulator second = new TransactionSummaryAccumulator(TransactionGrouping.MERCHANT);
+        second.add(createTransaction(ProductCategory.DEBIT_CARD, ProductSubType.DEBIT, "0.25", "Coffee Shop"));
+        second.add(createTransaction(ProductCategory.DEBIT_CARD, ProductSubType.DEBIT, "3.00", "Bookstore"));
+        // Act
+        List<CategorySummary> summaries = first.merge(second).toSummaries();
+        // Assert
+        assertEquals(2, summaries.size());
+        assertEquals(2, find(summaries, "Coffee Shop").getQuantity());
+        assertEquals(new BigDecimal("0.75"), find(summaries, "Coffee Shop").getCommissions());
+        assertEquals(new BigDecimal("3.00"), find(summaries, "Bookstore").getCommissions());
+    }
+    @Test
+    void merge_shouldRejectDifferentGrouping() {
+        // Arrange
+        TransactionSummaryAccumulator byType = new TransactionSummaryAccumulator(TransactionGrouping.TRANSACTION_TYPE);
+        TransactionSummaryAccumulator byCategory = new TransactionSummaryAccumulator(TransactionGrouping.CATEGORY);
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> byType.merge(byCategory));
+    }
+    private Transaction createTransaction(ProductCategory category, ProductSubType subType,
+                                          String commissions, String merchantName) {
+        return Transaction.builder()
+                .productCategory(category)
+                .productSubType(subType)
+                .transactionType(TransactionType.DEBIT_CARD_PAYMENT)
+                .commissions(commissions != null ? new BigDecimal(commissions) : null)
+                .merchantName(merchantName)
+                .build();
+    }
+    private CategorySummary find(List<CategorySummary> summaries, String key) {
+        CategorySummary summary = summaries.stream()
+                .filter(s -> s.getCategory().equals(key))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(summary);
+        return summary;
+    }
+}
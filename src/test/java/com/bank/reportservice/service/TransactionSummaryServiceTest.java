@@ -0,0 +1,247 @@
+package com.bank.reportservice.service;
+
+import com.bank.reportservice.client.TransactionClientService;
+import com.bank.reportservice.config.TransactionSummaryProperties;
+import com.bank.reportservice.dto.CategorySummary;
+import com.bank.reportservice.model.transaction.DailyTransactionSummary;
+import com.bank.reportservice.model.transaction.ProductCategory;
+import com.bank.reportservice.model.transaction.Transaction;
+import com.bank.reportservice.repository.DailyTransactionSummaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionSummaryServiceTest {
+    @Mock
+    private TransactionClientService transactionClient;
+    @Mock
+    private DailyTransactionSummaryRepository summaryRepository;
+    private TransactionSummaryProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionSummaryService summaryService;
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionSummaryProperties();
+        properties.setCacheEnabled(false);
+        meterRegistry = new SimpleMeterRegistry();
+        summaryService = new TransactionSummaryService(transactionClient, summaryRepository, properties,
+                meterRegistry);
+    }
+    @Test
+    void summarize_shouldFoldTransactionsByCategory() {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2024, 3, 1);
+        LocalDate endDate = LocalDate.of(2024, 3, 5);
+        when(transactionClient.streamTransactionsByDate(startDate, endDate))
+                .thenReturn(Flux.just(
+                        createTransaction(ProductCategory.ACCOUNT, "5.00"),
+                        createTransaction(ProductCategory.ACCOUNT, "10.00"),
+                        createTransaction(ProductCategory.CREDIT_CARD, "15.00")));
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(startDate, endDate, TransactionGrouping.CATEGORY))
+                .assertNext(summaries -> {
+                    assertEquals(4, summaries.size());
+                    CategorySummary accountSummary = findCategorySummary(summaries, "ACCOUNT");
+                    assertEquals(2, accountSummary.getQuantity());
+                    assertEquals(new BigDecimal("15.00"), accountSummary.getCommissions());
+                    CategorySummary creditCardSummary = findCategorySummary(summaries, "CREDIT_CARD");
+                    assertEquals(1, creditCardSummary.getQuantity());
+                    assertEquals(new BigDecimal("15.00"), creditCardSummary.getCommissions());
+                })
+                .verifyComplete();
+    }
+    @Test
+    void summarize_shouldMergeWindowsOfLongRange() {
+        // Arrange
+        properties.setWindowDays(7);
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 1, 20);
+        when(transactionClient.streamTransactionsByDate(any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Flux.just(createTransaction(ProductCategory.CREDIT, "1.25")));
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(startDate, endDate, TransactionGrouping.CATEGORY))
+                .assertNext(summaries -> {
+                    CategorySummary creditSummary = findCategorySummary(summaries, "CREDIT");
+                    assertEquals(3, creditSummary.getQuantity());
+                    assertEquals(new BigDecimal("3.75"), creditSummary.getCommissions());
+                })
+                .verifyComplete();
+        verify(transactionClient).streamTransactionsByDate(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 7));
+        verify(transactionClient).streamTransactionsByDate(LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 14));
+        verify(transactionClient).streamTransactionsByDate(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 20));
+        verifyNoMoreInteractions(transactionClient);
+    }
+    @Test
+    void summarize_shouldFetchWholeRangeWhenWindowingDisabled() {
+        // Arrange
+        properties.setWindowDays(0);
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 3, 31);
+        when(transactionClient.streamTransactionsByDate(startDate, endDate)).thenReturn(Flux.empty());
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(startDate, endDate, TransactionGrouping.CATEGORY))
+                .assertNext(summaries -> assertEquals(0, findCategorySummary(summaries, "ACCOUNT").getQuantity()))
+                .verifyComplete();
+        verify(transactionClient, times(1)).streamTransactionsByDate(startDate, endDate);
+    }
+    @Test
+    void summarize_shouldServeClosedDaysFromCache() {
+        // Arrange
+        properties.setCacheEnabled(true);
+        LocalDate startDate = LocalDate.now().minusDays(3);
+        LocalDate endDate = LocalDate.now().minusDays(2);
+        when(summaryRepository.findByIdRange("CATEGORY:" + startDate, "CATEGORY:" + endDate))
+                .thenReturn(Flux.just(
+                        createDailySummary(startDate, new CategorySummary("ACCOUNT", 2, new BigDecimal("3.00"))),
+                        createDailySummary(endDate, new CategorySummary("ACCOUNT", 1, new BigDecimal("1.50")))));
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(startDate, endDate, TransactionGrouping.CATEGORY))
+                .assertNext(summaries -> {
+                    CategorySummary accountSummary = findCategorySummary(summaries, "ACCOUNT");
+                    assertEquals(3, accountSummary.getQuantity());
+                    assertEquals(new BigDecimal("4.50"), accountSummary.getCommissions());
+                })
+                .verifyComplete();
+        verifyNoInteractions(transactionClient);
+        assertEquals(2.0, meterRegistry.get("report.transaction-summary.cache.days")
+                .tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("report.transaction-summary.cache.merge").timer().count());
+    }
+    @Test
+    @SuppressWarnings("unchecked")
+    void summarize_shouldFetchAndCacheMissingClosedDays() {
+        // Arrange
+        properties.setCacheEnabled(true);
+        LocalDate cachedDay = LocalDate.now().minusDays(4);
+        LocalDate firstMissingDay = LocalDate.now().minusDays(3);
+        LocalDate lastMissingDay = LocalDate.now().minusDays(2);
+        when(summaryRepository.findByIdRange(anyString(), anyString()))
+                .thenReturn(Flux.just(createDailySummary(cachedDay,
+                        new CategorySummary("CREDIT", 1, new BigDecimal("2.00")))));
+        when(transactionClient.streamTransactionsByDate(firstMissingDay, lastMissingDay))
+                .thenReturn(Flux.just(createTransaction(ProductCategory.CREDIT, "1.00",
+                        lastMissingDay.atTime(10, 0))));
+        when(summaryRepository.saveAll(anyIterable())).thenReturn(Flux.empty());
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(cachedDay, lastMissingDay, TransactionGrouping.CATEGORY))
+                .assertNext(summaries -> {
+                    CategorySummary creditSummary = findCategorySummary(summaries, "CREDIT");
+                    assertEquals(2, creditSummary.getQuantity());
+                    assertEquals(new BigDecimal("3.00"), creditSummary.getCommissions());
+                })
+                .verifyComplete();
+        ArgumentCaptor<Iterable<DailyTransactionSummary>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(summaryRepository).saveAll(saved.capture());
+        List<DailyTransactionSummary> partials = new ArrayList<>();
+        saved.getValue().forEach(partials::add);
+        assertEquals(2, partials.size());
+        assertEquals("CATEGORY:" + firstMissingDay, partials.get(0).getId());
+        assertEquals(0, findCategorySummary(partials.get(0).getEntries(), "CREDIT").getQuantity());
+        assertEquals(1, findCategorySummary(partials.get(1).getEntries(), "CREDIT").getQuantity());
+        assertEquals(2.0, meterRegistry.get("report.transaction-summary.cache.days")
+                .tag("result", "miss").counter().count());
+    }
+    @Test
+    void summarize_shouldAlwaysFetchOpenDays() {
+        // Arrange
+        properties.setCacheEnabled(true);
+        LocalDate today = LocalDate.now();
+        when(transactionClient.streamTransactionsByDate(today, today))
+                .thenReturn(Flux.just(createTransaction(ProductCategory.ACCOUNT, "0.50", today.atStartOfDay())));
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(today, today, TransactionGrouping.CATEGORY))
+                .assertNext(summaries -> assertEquals(1, findCategorySummary(summaries, "ACCOUNT").getQuantity()))
+                .verifyComplete();
+        verifyNoInteractions(summaryRepository);
+    }
+    @Test
+    void summarize_shouldIgnoreCacheWriteErrors() {
+        // Arrange
+        properties.setCacheEnabled(true);
+        LocalDate day = LocalDate.now().minusDays(1);
+        when(summaryRepository.findByIdRange(anyString(), anyString())).thenReturn(Flux.empty());
+        when(transactionClient.streamTransactionsByDate(day, day))
+                .thenReturn(Flux.just(createTransaction(ProductCategory.DEBIT_CARD, "1.00", day.atTime(8, 0))));
+        when(summaryRepository.saveAll(anyIterable())).thenReturn(Flux.error(new RuntimeException("Mongo down")));
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(day, day, TransactionGrouping.CATEGORY))
+                .assertNext(summaries ->
+                        assertEquals(1, findCategorySummary(summaries, "DEBIT_CARD").getQuantity()))
+                .verifyComplete();
+    }
+    @Test
+    void summarize_shouldCountButNotCacheTransactionsOutsideTheirWindow() {
+        // Arrange
+        properties.setCacheEnabled(true);
+        LocalDate day = LocalDate.now().minusDays(2);
+        when(summaryRepository.findByIdRange(anyString(), anyString())).thenReturn(Flux.empty());
+        when(transactionClient.streamTransactionsByDate(day, day))
+                .thenReturn(Flux.just(
+                        createTransaction(ProductCategory.ACCOUNT, "1.00", day.atTime(9, 0)),
+                        createTransaction(ProductCategory.ACCOUNT, "2.00", day.minusDays(10).atTime(9, 0)),
+                        createTransaction(ProductCategory.ACCOUNT, "3.00")));
+        // Act & Assert
+        StepVerifier.create(summaryService.summarize(day, day, TransactionGrouping.CATEGORY))
+                .assertNext(summaries -> {
+                    CategorySummary accountSummary = findCategorySummary(summaries, "ACCOUNT");
+                    assertEquals(3, accountSummary.getQuantity());
+                    assertEquals(new BigDecimal("6.00"), accountSummary.getCommissions());
+                })
+                .verifyComplete();
+        verify(summaryRepository, never()).saveAll(anyIterable());
+    }
+    @Test
+    void windows_shouldBeEmptyWhenStartIsAfterEnd() {
+        // Act
+        List<LocalDate[]> windows = summaryService.windows(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1));
+        // Assert
+        assertEquals(0, windows.size());
+    }
+    private Transaction createTransaction(ProductCategory category, String commissions) {
+        Transaction transaction = new Transaction();
+        transaction.setProductCategory(category);
+        transaction.setCommissions(new BigDecimal(commissions));
+        return transaction;
+    }
+    private Transaction createTransaction(ProductCategory category, String commissions, LocalDateTime date) {
+        Transaction transaction = createTransaction(category, commissions);
+        transaction.setTransactionDate(date);
+        return transaction;
+    }
+    private DailyTransactionSummary createDailySummary(LocalDate date, CategorySummary summary) {
+        return DailyTransactionSummary.builder()
+                .id(DailyTransactionSummary.idOf("CATEGORY", date))
+                .grouping("CATEGORY")
+                .date(date)
+                .entries(List.of(summary))
+                .build();
+    }
+    private CategorySummary findCategorySummary(List<CategorySummary> summaries, String category) {
+        CategorySummary summary = summaries.stream()
+                .filter(s -> s.getCategory().equals(category))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(summary);
+        return summary;
+    }
+}